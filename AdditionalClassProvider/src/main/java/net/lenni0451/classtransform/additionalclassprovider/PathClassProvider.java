@@ -54,7 +54,7 @@ public class PathClassProvider implements IClassProvider {
     @Override
     @SneakyThrows
     public Map<String, Supplier<byte[]>> getAllClasses() {
-        try (Stream<Path> paths = Files.find(this.path, Integer.MAX_VALUE, (path, basicFileAttributes) -> path.getFileName().toString().endsWith(".class") && basicFileAttributes.isRegularFile())) {
+        try (Stream<Path> paths = Files.find(this.path, Integer.MAX_VALUE, (path, basicFileAttributes) -> basicFileAttributes.isRegularFile() && path.getFileName().toString().endsWith(".class"))) {
             Map<String, Supplier<byte[]>> classes = paths
                     .collect(HashMap::new, (m, p) -> {
                         String name = dot(this.path.relativize(p).toString());
@@ -0,0 +1,184 @@
+package net.lenni0451.classtransform.benchmarks;
+
+import net.lenni0451.classtransform.annotations.CShadow;
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.mappings.impl.ProguardMapper;
+import net.lenni0451.classtransform.mappings.impl.SrgMapper;
+import net.lenni0451.classtransform.mappings.impl.TinyV2Mapper;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Generated mappings and derived inputs shared by the mapping benchmarks.<br>
+ * Tiny v2 mappings are loaded from {@code named} to {@code official}, so transformers can be written using the named names.
+ */
+@ParametersAreNonnullByDefault
+public class MappingsFixture {
+
+    private static final long SEED = 0x1337;
+
+    private final MappingsGenerator generator;
+    private final AMapper mapper;
+
+    /**
+     * Generate and load tiny v2 mappings with the given amount of entries.
+     *
+     * @param entries The amount of class, field and method entries
+     * @throws IOException If the mappings could not be generated
+     */
+    public MappingsFixture(final int entries) throws IOException {
+        this.generator = MappingsGenerator.ofEntries(SEED, entries);
+        File file = generate(this.generator, MappingsGenerator.Format.TINY_V2);
+        this.mapper = createMapper(MappingsGenerator.Format.TINY_V2, file);
+        this.mapper.load();
+        file.delete();
+    }
+
+    /**
+     * Generate a mappings file in a temporary directory.<br>
+     * The file is deleted when the JVM exits.
+     *
+     * @param generator The mappings generator
+     * @param format    The format of the mappings
+     * @return The generated file
+     * @throws IOException If the file could not be written
+     */
+    public static File generate(final MappingsGenerator generator, final MappingsGenerator.Format format) throws IOException {
+        File file = File.createTempFile("mappings-benchmark", "-" + format.getFileName());
+        file.deleteOnExit();
+        generator.write(format, file);
+        return file;
+    }
+
+    /**
+     * Create a mapper for a generated mappings file.
+     *
+     * @param format The format of the mappings
+     * @param file   The mappings file
+     * @return The mapper which still has to be loaded
+     */
+    public static AMapper createMapper(final MappingsGenerator.Format format, final File file) {
+        MapperConfig config = MapperConfig.create().loadAsync(false).remapTransformer(true).cacheTransformers(true);
+        switch (format) {
+            case TINY_V2:
+                return new TinyV2Mapper(config, file, "named", "official");
+            case PROGUARD:
+                return new ProguardMapper(config, file);
+            case SRG:
+                return new SrgMapper(config, file);
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    /**
+     * @return The generator of the mappings
+     */
+    public MappingsGenerator getGenerator() {
+        return this.generator;
+    }
+
+    /**
+     * @return The loaded mapper
+     */
+    public AMapper getMapper() {
+        return this.mapper;
+    }
+
+    /**
+     * Collect a shuffled sample of mapping keys.<br>
+     * The returned array always has the given size, keys are repeated if there are not enough mappings.
+     *
+     * @param size The size of the sample
+     * @return The sampled keys
+     */
+    public String[] sampleKeys(final int size) {
+        List<String> keys = new ArrayList<>(this.mapper.getRemapper().getMappings().keySet());
+        Collections.shuffle(keys, new Random(SEED));
+        String[] sample = new String[size];
+        for (int i = 0; i < size; i++) sample[i] = keys.get(i % keys.size());
+        return sample;
+    }
+
+    /**
+     * Create a transformer for the class with the given index.<br>
+     * The transformer shadows all fields and injects into the head of all methods of the class using the named names.
+     *
+     * @param index The index of the class
+     * @return The transformer class node
+     */
+    public ClassNode createTransformer(final int index) {
+        MapRemapper remapper = this.mapper.getRemapper();
+        String owner = this.generator.namedClass(index);
+        ClassNode transformer = new ClassNode();
+        transformer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "net/lenni0451/classtransform/benchmarks/generated/Transformer" + index, null, "java/lang/Object", null);
+        transformer.visibleAnnotations = new ArrayList<>();
+        transformer.visibleAnnotations.add(annotation(CTransformer.class, "name", Collections.singletonList(owner.replace('/', '.'))));
+        for (int f = 0; f < this.generator.getFieldsPerClass(); f++) {
+            String name = "field" + f;
+            for (String desc : remapper.getFieldMappings(owner, name).keySet()) {
+                FieldNode field = new FieldNode(Opcodes.ACC_PUBLIC, name, desc, null, null);
+                field.visibleAnnotations = new ArrayList<>();
+                field.visibleAnnotations.add(annotation(CShadow.class));
+                transformer.fields.add(field);
+            }
+        }
+        for (int m = 0; m < this.generator.getMethodsPerClass(); m++) {
+            String name = "method" + m;
+            for (String desc : remapper.getMethodMappings(owner, name).keySet()) {
+                MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC, "inject" + m, "()V", null, null);
+                method.visibleAnnotations = new ArrayList<>();
+                method.visibleAnnotations.add(annotation(CInject.class,
+                        "method", Collections.singletonList(name + desc),
+                        "target", Collections.singletonList(annotation(CTarget.class, "value", "HEAD"))));
+                method.instructions.add(new InsnNode(Opcodes.RETURN));
+                transformer.methods.add(method);
+            }
+        }
+        return transformer;
+    }
+
+    /**
+     * Create the obfuscated target class of the class with the given index.
+     *
+     * @param index The index of the class
+     * @return The target class node
+     */
+    public ClassNode createTarget(final int index) {
+        MapRemapper remapper = this.mapper.getRemapper();
+        String owner = this.generator.namedClass(index);
+        ClassNode target = new ClassNode();
+        target.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, remapper.mapType(owner), null, "java/lang/Object", null);
+        for (int f = 0; f < this.generator.getFieldsPerClass(); f++) {
+            for (Map.Entry<String, String> field : remapper.getFieldMappings(owner, "field" + f).entrySet()) {
+                target.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, field.getValue(), remapper.mapDesc(field.getKey()), null, null));
+            }
+        }
+        for (int m = 0; m < this.generator.getMethodsPerClass(); m++) {
+            for (Map.Entry<String, String> method : remapper.getMethodMappings(owner, "method" + m).entrySet()) {
+                MethodNode methodNode = new MethodNode(Opcodes.ACC_PUBLIC, method.getValue(), remapper.mapMethodDesc(method.getKey()), null, null);
+                methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
+                target.methods.add(methodNode);
+            }
+        }
+        return target;
+    }
+
+    private static AnnotationNode annotation(final Class<?> type, final Object... values) {
+        AnnotationNode annotation = new AnnotationNode(Type.getDescriptor(type));
+        annotation.values = new ArrayList<>(Arrays.asList(values));
+        return annotation;
+    }
+
+}
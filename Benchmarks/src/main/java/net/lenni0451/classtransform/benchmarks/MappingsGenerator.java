@@ -0,0 +1,240 @@
+package net.lenni0451.classtransform.benchmarks;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generate deterministic synthetic mappings for benchmarks.<br>
+ * The same seed and class count always produce the same files.
+ */
+@ParametersAreNonnullByDefault
+public class MappingsGenerator {
+
+    private static final String[] PRIMITIVES = {"I", "J", "Z", "D", "F", "B", "S", "C"};
+    private static final String[] PROGUARD_PRIMITIVES = {"int", "long", "boolean", "double", "float", "byte", "short", "char"};
+
+    private final long seed;
+    private final int classCount;
+    private final int fieldsPerClass;
+    private final int methodsPerClass;
+
+    /**
+     * Create a generator with 5 fields and 10 methods per class for roughly the given amount of entries.
+     *
+     * @param seed    The seed of the random generator
+     * @param entries The amount of class, field and method entries
+     * @return The generator
+     */
+    public static MappingsGenerator ofEntries(final long seed, final int entries) {
+        return new MappingsGenerator(seed, Math.max(1, entries / 16), 5, 10);
+    }
+
+    /**
+     * @param seed            The seed of the random generator
+     * @param classCount      The amount of classes
+     * @param fieldsPerClass  The amount of fields per class
+     * @param methodsPerClass The amount of methods per class
+     */
+    public MappingsGenerator(final long seed, final int classCount, final int fieldsPerClass, final int methodsPerClass) {
+        this.seed = seed;
+        this.classCount = classCount;
+        this.fieldsPerClass = fieldsPerClass;
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    /**
+     * @return The amount of lines (excluding headers) in every generated file
+     */
+    public int getLineCount() {
+        return this.classCount * (1 + this.fieldsPerClass + this.methodsPerClass);
+    }
+
+    /**
+     * @return The amount of classes
+     */
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    /**
+     * @return The amount of fields per class
+     */
+    public int getFieldsPerClass() {
+        return this.fieldsPerClass;
+    }
+
+    /**
+     * @return The amount of methods per class
+     */
+    public int getMethodsPerClass() {
+        return this.methodsPerClass;
+    }
+
+    /**
+     * Write the mappings in the given format.
+     *
+     * @param format The format of the mappings
+     * @param file   The output file
+     * @throws IOException If the file could not be written
+     */
+    public void write(final Format format, final File file) throws IOException {
+        switch (format) {
+            case TINY_V2:
+                this.writeTinyV2(file);
+                break;
+            case PROGUARD:
+                this.writeProguard(file);
+                break;
+            case SRG:
+                this.writeSrg(file);
+                break;
+        }
+    }
+
+    /**
+     * Write tiny v2 mappings with the namespaces {@code official} and {@code named}.
+     *
+     * @param file The output file
+     * @throws IOException If the file could not be written
+     */
+    public void writeTinyV2(final File file) throws IOException {
+        Random random = new Random(this.seed);
+        try (Writer writer = this.open(file)) {
+            writer.write("tiny\t2\t0\tofficial\tnamed\n");
+            for (int i = 0; i < this.classCount; i++) {
+                writer.write("c\t" + this.obfClass(i) + "\t" + this.namedClass(i) + "\n");
+                for (int f = 0; f < this.fieldsPerClass; f++) {
+                    writer.write("\tf\t" + this.type(random) + "\t" + obfMember(f) + "\tfield" + f + "\n");
+                }
+                for (int m = 0; m < this.methodsPerClass; m++) {
+                    writer.write("\tm\t" + this.methodDescriptor(random) + "\t" + obfMember(m) + "\tmethod" + m + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Write proguard mappings from named to obfuscated names.
+     *
+     * @param file The output file
+     * @throws IOException If the file could not be written
+     */
+    public void writeProguard(final File file) throws IOException {
+        Random random = new Random(this.seed);
+        try (Writer writer = this.open(file)) {
+            for (int i = 0; i < this.classCount; i++) {
+                writer.write(this.namedClass(i).replace('/', '.') + " -> " + this.obfClass(i) + ":\n");
+                for (int f = 0; f < this.fieldsPerClass; f++) {
+                    writer.write("    " + this.proguardType(random) + " field" + f + " -> " + obfMember(f) + "\n");
+                }
+                for (int m = 0; m < this.methodsPerClass; m++) {
+                    int line = random.nextInt(1000) + 1;
+                    StringBuilder args = new StringBuilder();
+                    for (int a = random.nextInt(4); a > 0; a--) {
+                        if (args.length() != 0) args.append(',');
+                        args.append(this.proguardType(random));
+                    }
+                    writer.write("    " + line + ":" + (line + 5) + ":" + this.proguardType(random) + " method" + m + "(" + args + ") -> " + obfMember(m) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Write srg mappings from obfuscated to named names.
+     *
+     * @param file The output file
+     * @throws IOException If the file could not be written
+     */
+    public void writeSrg(final File file) throws IOException {
+        Random random = new Random(this.seed);
+        try (Writer writer = this.open(file)) {
+            for (int i = 0; i < this.classCount; i++) {
+                writer.write("CL: " + this.obfClass(i) + " " + this.namedClass(i) + "\n");
+            }
+            for (int i = 0; i < this.classCount; i++) {
+                for (int f = 0; f < this.fieldsPerClass; f++) {
+                    writer.write("FD: " + this.obfClass(i) + "/" + obfMember(f) + " " + this.namedClass(i) + "/field" + f + "\n");
+                }
+                for (int m = 0; m < this.methodsPerClass; m++) {
+                    String descriptor = this.methodDescriptor(random);
+                    writer.write("MD: " + this.obfClass(i) + "/" + obfMember(m) + " " + descriptor + " " + this.namedClass(i) + "/method" + m + " " + descriptor + "\n");
+                }
+            }
+        }
+    }
+
+    private Writer open(final File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param index The index of the class
+     * @return The obfuscated name of the class
+     */
+    public String obfClass(final int index) {
+        return "c" + Integer.toString(index, 36);
+    }
+
+    /**
+     * @param index The index of the class
+     * @return The named name of the class
+     */
+    public String namedClass(final int index) {
+        return "net/example/p" + (index % 64) + "/Class" + index;
+    }
+
+    /**
+     * @param index The index of the field or method
+     * @return The obfuscated name of the field or method
+     */
+    public static String obfMember(final int index) {
+        return Integer.toString(index + 10, 36);
+    }
+
+    private String type(final Random random) {
+        if (random.nextInt(3) == 0) return PRIMITIVES[random.nextInt(PRIMITIVES.length)];
+        int index = random.nextInt(this.classCount);
+        return "L" + this.obfClass(index) + ";";
+    }
+
+    private String methodDescriptor(final Random random) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int a = random.nextInt(4); a > 0; a--) descriptor.append(this.type(random));
+        descriptor.append(')');
+        if (random.nextInt(4) == 0) descriptor.append('V');
+        else descriptor.append(this.type(random));
+        return descriptor.toString();
+    }
+
+    private String proguardType(final Random random) {
+        if (random.nextInt(3) == 0) return PROGUARD_PRIMITIVES[random.nextInt(PROGUARD_PRIMITIVES.length)];
+        return this.namedClass(random.nextInt(this.classCount)).replace('/', '.');
+    }
+
+
+    /**
+     * The formats the generator can write.
+     */
+    public enum Format {
+        TINY_V2("mappings.tiny"),
+        PROGUARD("mappings.txt"),
+        SRG("mappings.srg");
+
+        private final String fileName;
+
+        Format(final String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * @return The default file name of the format
+         */
+        public String getFileName() {
+            return this.fileName;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package net.lenni0451.classtransform.benchmarks;
+
+import net.lenni0451.classtransform.mappings.AMapper;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measure the time and heap needed to load generated mappings of different sizes.<br>
+ * Peak heap is measured using the peak usage of the heap memory pools, retained heap is measured after a full gc.<br>
+ * Usage: {@code [entries,entries,...] [iterations]}
+ */
+@ParametersAreNonnullByDefault
+public class MappingsLoadBenchmark {
+
+    private static final long SEED = 0x1337;
+
+    public static void main(final String[] args) throws IOException {
+        int[] entries = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray() : new int[]{10_000, 100_000, 500_000, 2_000_000};
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        System.out.printf(Locale.ROOT, "%-10s %10s %12s %14s %14s%n", "Format", "Entries", "Load (ms)", "Peak heap (MB)", "Retained (MB)");
+        for (int entryCount : entries) {
+            MappingsGenerator generator = MappingsGenerator.ofEntries(SEED, entryCount);
+            for (MappingsGenerator.Format format : MappingsGenerator.Format.values()) {
+                File file = MappingsFixture.generate(generator, format);
+                try {
+                    measure(format, generator.getLineCount(), iterations, file);
+                } finally {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static void measure(final MappingsGenerator.Format format, final int lines, final int iterations, final File file) {
+        MappingsFixture.createMapper(format, file).load(); //Warmup
+
+        long bestTime = Long.MAX_VALUE;
+        long peakHeap = 0;
+        long retainedHeap = 0;
+        for (int i = 0; i < iterations; i++) {
+            AMapper mapper = MappingsFixture.createMapper(format, file);
+            long baseline = usedHeapAfterGc();
+            resetPeakUsage();
+            long start = System.nanoTime();
+            mapper.load();
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+            peakHeap = Math.max(peakHeap, peakUsage() - baseline);
+            retainedHeap = Math.max(retainedHeap, usedHeapAfterGc() - baseline);
+            if (mapper.getRemapper().isEmpty()) throw new IllegalStateException("No mappings loaded");
+        }
+        System.out.printf(Locale.ROOT, "%-10s %,10d %,12.1f %,14.1f %,14.1f%n",
+                format, lines, bestTime / 1_000_000D, peakHeap / (1024D * 1024D), retainedHeap / (1024D * 1024D));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakUsage() {
+        //The pools reach their peaks at different times, so this is an upper bound of the real peak
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+}
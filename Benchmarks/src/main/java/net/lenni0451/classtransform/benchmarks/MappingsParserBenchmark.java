@@ -0,0 +1,79 @@
+package net.lenni0451.classtransform.benchmarks;
+
+import net.lenni0451.classtransform.benchmarks.legacy.LegacyProguardMapper;
+import net.lenni0451.classtransform.benchmarks.legacy.LegacySrgMapper;
+import net.lenni0451.classtransform.benchmarks.legacy.LegacyTinyV2Mapper;
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.mappings.impl.ProguardMapper;
+import net.lenni0451.classtransform.mappings.impl.SrgMapper;
+import net.lenni0451.classtransform.mappings.impl.TinyV2Mapper;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Compare the parsing throughput of the streaming mapping parsers with the original regex based parsers.<br>
+ * Usage: {@code [classCount] [iterations]}
+ */
+@ParametersAreNonnullByDefault
+public class MappingsParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+
+    public static void main(final String[] args) throws IOException {
+        int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        MappingsGenerator generator = new MappingsGenerator(0x1337, classCount, 5, 10);
+
+        File dir = Files.createTempDirectory("mappings-benchmark").toFile();
+        File tiny = new File(dir, "mappings.tiny");
+        File proguard = new File(dir, "mappings.txt");
+        File srg = new File(dir, "mappings.srg");
+        generator.writeTinyV2(tiny);
+        generator.writeProguard(proguard);
+        generator.writeSrg(srg);
+
+        System.out.println("Parsing " + generator.getLineCount() + " lines, " + iterations + " iterations");
+        try {
+            compare("Tiny v2", generator.getLineCount(), iterations,
+                    f -> new LegacyTinyV2Mapper(MapperConfig.create(), f, "official", "named"),
+                    f -> new TinyV2Mapper(MapperConfig.create(), f, "official", "named"), tiny);
+            compare("Proguard", generator.getLineCount(), iterations,
+                    f -> new LegacyProguardMapper(MapperConfig.create(), f),
+                    f -> new ProguardMapper(MapperConfig.create(), f), proguard);
+            compare("SRG", generator.getLineCount(), iterations,
+                    f -> new LegacySrgMapper(MapperConfig.create(), f),
+                    f -> new SrgMapper(MapperConfig.create(), f), srg);
+        } finally {
+            tiny.delete();
+            proguard.delete();
+            srg.delete();
+            dir.delete();
+        }
+    }
+
+    private static void compare(final String name, final int lines, final int iterations, final Function<File, AMapper> legacy, final Function<File, AMapper> streaming, final File file) {
+        double legacyThroughput = measure(lines, iterations, legacy, file);
+        double streamingThroughput = measure(lines, iterations, streaming, file);
+        System.out.printf(Locale.ROOT, "%-10s legacy: %,14.0f lines/s   streaming: %,14.0f lines/s   speedup: %.2fx%n",
+                name, legacyThroughput, streamingThroughput, streamingThroughput / legacyThroughput);
+    }
+
+    private static double measure(final int lines, final int iterations, final Function<File, AMapper> mapperSupplier, final File file) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) mapperSupplier.apply(file).load();
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            AMapper mapper = mapperSupplier.apply(file);
+            long start = System.nanoTime();
+            mapper.load();
+            total += System.nanoTime() - start;
+        }
+        return lines * (double) iterations / (total / 1_000_000_000D);
+    }
+
+}
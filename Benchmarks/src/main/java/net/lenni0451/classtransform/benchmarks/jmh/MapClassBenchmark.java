@@ -0,0 +1,65 @@
+package net.lenni0451.classtransform.benchmarks.jmh;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.benchmarks.MappingsFixture;
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the latency of remapping a single transformer using {@link AMapper#mapClass(TransformerManager, ClassNode, ClassNode)}.<br>
+ * Every transformer shadows all fields and injects into all methods of its target class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapClassBenchmark {
+
+    private static final int TRANSFORMER_COUNT = 64;
+
+    @Param({"10000", "100000", "2000000"})
+    public int entries;
+
+    private AMapper mapper;
+    private TransformerManager transformerManager;
+    private ClassNode[] targets;
+    private ClassNode[] transformers;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        MappingsFixture fixture = new MappingsFixture(this.entries);
+        this.mapper = fixture.getMapper();
+        this.transformerManager = new TransformerManager(new BasicClassProvider(), this.mapper);
+        this.targets = new ClassNode[TRANSFORMER_COUNT];
+        this.transformers = new ClassNode[TRANSFORMER_COUNT];
+        int classCount = fixture.getGenerator().getClassCount();
+        for (int i = 0; i < TRANSFORMER_COUNT; i++) {
+            int classIndex = (int) ((long) i * classCount / TRANSFORMER_COUNT);
+            this.targets[i] = fixture.createTarget(classIndex);
+            this.transformers[i] = fixture.createTransformer(classIndex);
+        }
+    }
+
+    @Benchmark
+    public ClassNode mapClass() {
+        int i = this.index++ % TRANSFORMER_COUNT;
+        //The transformer is modified while being remapped
+        return this.mapper.mapClass(this.transformerManager, this.targets[i], ASMUtils.cloneClass(this.transformers[i]));
+    }
+
+    @Benchmark
+    public ClassNode cachedMapClass() {
+        int i = this.index++ % TRANSFORMER_COUNT;
+        return this.transformerManager.getMappedTransformerCache().get(this.targets[i], this.transformers[i]);
+    }
+
+}
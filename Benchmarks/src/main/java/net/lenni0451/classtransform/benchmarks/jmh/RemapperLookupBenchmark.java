@@ -0,0 +1,105 @@
+package net.lenni0451.classtransform.benchmarks.jmh;
+
+import net.lenni0451.classtransform.benchmarks.MappingsFixture;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the lookup throughput of a {@link MapRemapper} filled with generated mappings.<br>
+ * The looked up keys are a fixed random sample of all mappings, so most lookups miss the cpu caches for large mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RemapperLookupBenchmark {
+
+    private static final int SAMPLE_SIZE = 1 << 14;
+    private static final int MASK = SAMPLE_SIZE - 1;
+
+    @Param({"10000", "100000", "2000000"})
+    public int entries;
+
+    private MapRemapper remapper;
+    private String[] classes;
+    private String[] methodOwners;
+    private String[] methodNames;
+    private String[] methodDescs;
+    private String[] fieldOwners;
+    private String[] fieldNames;
+    private String[] fieldDescs;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        MappingsFixture fixture = new MappingsFixture(this.entries);
+        this.remapper = fixture.getMapper().getRemapper();
+
+        List<String> classes = new ArrayList<>();
+        List<String[]> methods = new ArrayList<>();
+        List<String[]> fields = new ArrayList<>();
+        for (String key : fixture.sampleKeys(SAMPLE_SIZE)) {
+            int dot = key.indexOf('.');
+            int bracket = key.indexOf('(');
+            int colon = key.indexOf(':');
+            if (dot == -1) classes.add(key);
+            else if (bracket != -1) methods.add(new String[]{key.substring(0, dot), key.substring(dot + 1, bracket), key.substring(bracket)});
+            else if (colon != -1) fields.add(new String[]{key.substring(0, dot), key.substring(dot + 1, colon), key.substring(colon + 1)});
+        }
+        this.classes = new String[SAMPLE_SIZE];
+        this.methodOwners = new String[SAMPLE_SIZE];
+        this.methodNames = new String[SAMPLE_SIZE];
+        this.methodDescs = new String[SAMPLE_SIZE];
+        this.fieldOwners = new String[SAMPLE_SIZE];
+        this.fieldNames = new String[SAMPLE_SIZE];
+        this.fieldDescs = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            //Copy the strings, the mappings would otherwise be looked up using the same instances they are stored with
+            this.classes[i] = new String(classes.get(i % classes.size()));
+            String[] method = methods.get(i % methods.size());
+            this.methodOwners[i] = new String(method[0]);
+            this.methodNames[i] = new String(method[1]);
+            this.methodDescs[i] = new String(method[2]);
+            String[] field = fields.get(i % fields.size());
+            this.fieldOwners[i] = new String(field[0]);
+            this.fieldNames[i] = new String(field[1]);
+            this.fieldDescs[i] = new String(field[2]);
+        }
+    }
+
+    @Benchmark
+    public String classMapping() {
+        return this.remapper.getClassMapping(this.classes[this.index++ & MASK]);
+    }
+
+    @Benchmark
+    public String methodMapping() {
+        int i = this.index++ & MASK;
+        return this.remapper.getMethodMapping(this.methodOwners[i], this.methodNames[i], this.methodDescs[i]);
+    }
+
+    @Benchmark
+    public String fieldMapping() {
+        int i = this.index++ & MASK;
+        return this.remapper.getFieldMapping(this.fieldOwners[i], this.fieldNames[i], this.fieldDescs[i]);
+    }
+
+    @Benchmark
+    public String missingMethodMapping() {
+        int i = this.index++ & MASK;
+        return this.remapper.getMethodMapping(this.methodOwners[i], this.fieldNames[i], this.methodDescs[i]);
+    }
+
+    @Benchmark
+    public String mapMethodDesc() {
+        return this.remapper.mapMethodDesc(this.methodDescs[this.index++ & MASK]);
+    }
+
+}
@@ -0,0 +1,44 @@
+package net.lenni0451.classtransform.benchmarks.jmh;
+
+import net.lenni0451.classtransform.benchmarks.MappingsFixture;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time needed to build the reversed remapper of generated mappings.<br>
+ * The reversed remapper is cached, so every invocation reverses a fresh copy of the mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RemapperReverseBenchmark {
+
+    @Param({"10000", "100000", "2000000"})
+    public int entries;
+
+    private MapRemapper mappings;
+    private MapRemapper remapper;
+
+    @Setup
+    public void setup() throws IOException {
+        this.mappings = new MappingsFixture(this.entries).getMapper().getRemapper();
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        this.remapper = new MapRemapper();
+        this.remapper.copy(this.mappings);
+    }
+
+    @Benchmark
+    public MapRemapper reverse() {
+        return this.remapper.reverse();
+    }
+
+}
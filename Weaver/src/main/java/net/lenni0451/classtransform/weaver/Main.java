@@ -0,0 +1,153 @@
+package net.lenni0451.classtransform.weaver;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.additionalclassprovider.ClosableFileSystemClassProvider;
+import net.lenni0451.classtransform.additionalclassprovider.DelegatingClassProvider;
+import net.lenni0451.classtransform.additionalclassprovider.PathClassProvider;
+import net.lenni0451.classtransform.utils.FailStrategy;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The command line interface of the {@link Weaver}.<br>
+ * The input jars and the classpath are used to look up transformers and to compute stack map frames.
+ */
+public class Main {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java -jar weaver.jar --input <jar> --output <jar> --transformer <name> [options]",
+            "  --input, -i <jar|dir>        A jar or directory to weave, can be used multiple times",
+            "  --output, -o <jar>           The jar to write the woven classes to",
+            "  --transformer, -t <name>     A transformer class or package (package.* or package.**), can be used multiple times",
+            "  --classpath, -cp <jar|dir>   A jar or directory containing transformers or libraries, can be used multiple times",
+            "  --threads <count>            The amount of threads used to transform classes",
+            "  --fingerprint <value>        A value included in the class hashes, changing it weaves all classes again",
+            "  --full                       Weave all classes even if they did not change"
+    );
+
+    public static void main(final String[] args) throws Exception {
+        List<File> inputs = new ArrayList<>();
+        List<File> classpath = new ArrayList<>();
+        List<String> transformers = new ArrayList<>();
+        File output = null;
+        Integer threads = null;
+        String fingerprint = null;
+        boolean full = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input":
+                    case "-i":
+                        inputs.add(new File(value(args, ++i)));
+                        break;
+                    case "--output":
+                    case "-o":
+                        output = new File(value(args, ++i));
+                        break;
+                    case "--transformer":
+                    case "-t":
+                        transformers.add(value(args, ++i));
+                        break;
+                    case "--classpath":
+                    case "-cp":
+                        for (String path : value(args, ++i).split(File.pathSeparator)) classpath.add(new File(path));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--fingerprint":
+                        fingerprint = value(args, ++i);
+                        break;
+                    case "--full":
+                        full = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (inputs.isEmpty()) throw new IllegalArgumentException("No input specified");
+            if (output == null) throw new IllegalArgumentException("No output specified");
+            if (transformers.isEmpty()) throw new IllegalArgumentException("No transformer specified");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        List<FileSystem> fileSystems = new ArrayList<>();
+        try {
+            List<File> files = new ArrayList<>(inputs);
+            files.addAll(classpath);
+            IClassProvider[] classProviders = new IClassProvider[files.size()];
+            for (int i = 0; i < files.size(); i++) classProviders[i] = openClassProvider(files.get(i), fileSystems);
+            IClassProvider classProvider = new DelegatingClassProvider(classProviders[0], Arrays.copyOfRange(classProviders, 1, classProviders.length));
+            TransformerManager transformerManager = new TransformerManager(new JdkFallbackClassProvider(classProvider));
+            transformerManager.setFailStrategy(FailStrategy.CANCEL);
+            for (String transformer : transformers) transformerManager.addTransformer(transformer);
+
+            Weaver weaver = new Weaver(transformerManager).incremental(!full);
+            if (threads != null) weaver.threads(threads);
+            if (fingerprint != null) weaver.fingerprint(fingerprint);
+            System.out.println(weaver.weave(inputs, output));
+        } finally {
+            for (FileSystem fileSystem : fileSystems) fileSystem.close();
+        }
+    }
+
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length) throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        return args[index];
+    }
+
+    private static IClassProvider openClassProvider(final File file, final List<FileSystem> fileSystems) throws IOException {
+        if (file.isDirectory()) return new PathClassProvider(file.toPath());
+        FileSystem fileSystem = FileSystems.newFileSystem(file.toPath(), (ClassLoader) null);
+        fileSystems.add(fileSystem);
+        return new ClosableFileSystemClassProvider(fileSystem);
+    }
+
+
+    /**
+     * Look up JDK classes which are not on the classpath using the class loader of the weaver.<br>
+     * Only the classpath is used to find transformers in packages.
+     */
+    @ParametersAreNonnullByDefault
+    private static class JdkFallbackClassProvider implements IClassProvider {
+        private final IClassProvider classProvider;
+        private final IClassProvider fallback = new BasicClassProvider();
+
+        private JdkFallbackClassProvider(final IClassProvider classProvider) {
+            this.classProvider = classProvider;
+        }
+
+        @Nonnull
+        @Override
+        public byte[] getClass(String name) throws ClassNotFoundException {
+            try {
+                return this.classProvider.getClass(name);
+            } catch (ClassNotFoundException e) {
+                return this.fallback.getClass(name);
+            }
+        }
+
+        @Nonnull
+        @Override
+        public Map<String, Supplier<byte[]>> getAllClasses() {
+            return this.classProvider.getAllClasses();
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package net.lenni0451.classtransform.weaver;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The manifest written to a woven jar.<br>
+ * It contains the content hash of every class and the transformers which have been applied to it.<br>
+ * Each line has the format {@code <class name> <hash> <woven|unchanged> <transformers|->}.
+ */
+@ParametersAreNonnullByDefault
+public class WeaveManifest {
+
+    /**
+     * The path of the manifest in the woven jar.
+     */
+    public static final String PATH = "META-INF/classtransform/weave.manifest";
+
+    private static final String HEADER = "# ClassTransform weave manifest";
+
+    /**
+     * Read a manifest from a stream.
+     *
+     * @param is The stream to read from
+     * @return The read manifest
+     * @throws IOException If the manifest could not be read
+     */
+    public static WeaveManifest read(final InputStream is) throws IOException {
+        WeaveManifest manifest = new WeaveManifest();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split(" ");
+            if (parts.length != 4) throw new IOException("Invalid weave manifest line: " + line);
+            List<String> transformers = parts[3].equals("-") ? Collections.emptyList() : Arrays.asList(parts[3].split(","));
+            manifest.add(new Entry(parts[0], parts[1], parts[2].equals("woven"), transformers));
+        }
+        return manifest;
+    }
+
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    /**
+     * Add an entry to the manifest.<br>
+     * An existing entry for the same class is replaced.
+     *
+     * @param entry The entry to add
+     */
+    public void add(final Entry entry) {
+        this.entries.put(entry.className, entry);
+    }
+
+    /**
+     * @param className The name of the class
+     * @return The entry of the class or null if the class is not in the manifest
+     */
+    @Nullable
+    public Entry get(final String className) {
+        return this.entries.get(className);
+    }
+
+    /**
+     * @return All entries sorted by class name
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    /**
+     * Write the manifest to a stream.<br>
+     * The stream is not closed.
+     *
+     * @param os The stream to write to
+     * @throws IOException If the manifest could not be written
+     */
+    public void write(final OutputStream os) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        writer.write(HEADER + "\n");
+        for (Entry entry : this.entries.values()) {
+            writer.write(entry.className + " " + entry.hash + " " + (entry.woven ? "woven" : "unchanged") + " ");
+            writer.write(entry.transformers.isEmpty() ? "-" : String.join(",", entry.transformers));
+            writer.write("\n");
+        }
+        writer.flush();
+    }
+
+
+    /**
+     * A class in the woven jar.
+     */
+    public static class Entry {
+        private final String className;
+        private final String hash;
+        private final boolean woven;
+        private final List<String> transformers;
+
+        public Entry(final String className, final String hash, final boolean woven, final List<String> transformers) {
+            this.className = className;
+            this.hash = hash;
+            this.woven = woven;
+            this.transformers = transformers;
+        }
+
+        /**
+         * @return The name of the class
+         */
+        public String getClassName() {
+            return this.className;
+        }
+
+        /**
+         * @return The hash of the input class and the transformers applied to it
+         */
+        public String getHash() {
+            return this.hash;
+        }
+
+        /**
+         * @return If the class has been changed by the transformers
+         */
+        public boolean isWoven() {
+            return this.woven;
+        }
+
+        /**
+         * @return The names of the transformer classes and raw transformers targeting the class
+         */
+        public List<String> getTransformers() {
+            return this.transformers;
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package net.lenni0451.classtransform.weaver;
+
+/**
+ * Statistics about a finished weave.
+ */
+public class WeaveResult {
+
+    private final int classes;
+    private final int woven;
+    private final int reused;
+    private final int resources;
+    private final long durationMillis;
+
+    WeaveResult(final int classes, final int woven, final int reused, final int resources, final long durationMillis) {
+        this.classes = classes;
+        this.woven = woven;
+        this.reused = reused;
+        this.resources = resources;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return The amount of classes written to the output jar
+     */
+    public int getClasses() {
+        return this.classes;
+    }
+
+    /**
+     * @return The amount of classes which have been changed by the transformers
+     */
+    public int getWoven() {
+        return this.woven;
+    }
+
+    /**
+     * @return The amount of classes which have been taken from the previous output without transforming them again
+     */
+    public int getReused() {
+        return this.reused;
+    }
+
+    /**
+     * @return The amount of other files written to the output jar
+     */
+    public int getResources() {
+        return this.resources;
+    }
+
+    /**
+     * @return The time the weave took in milliseconds
+     */
+    public long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Wrote " + this.classes + " classes (" + this.woven + " woven, " + this.reused + " reused) and " + this.resources + " resources in " + this.durationMillis + "ms";
+    }
+
+}
@@ -0,0 +1,351 @@
+package net.lenni0451.classtransform.weaver;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.additionalclassprovider.ClosableFileSystemClassProvider;
+import net.lenni0451.classtransform.additionalclassprovider.PathClassProvider;
+import net.lenni0451.classtransform.transformer.IBytecodeTransformer;
+import net.lenni0451.classtransform.transformer.IRawTransformer;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.FailStrategy;
+import net.lenni0451.classtransform.utils.log.Logger;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.objectweb.asm.tree.ClassNode;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static net.lenni0451.classtransform.utils.ASMUtils.dot;
+import static net.lenni0451.classtransform.utils.ASMUtils.slash;
+
+/**
+ * Apply the transformers of a {@link TransformerManager} to jar files ahead of time.<br>
+ * The classes of the input jars are transformed in parallel and written to an output jar together with all other files and a {@link WeaveManifest}.<br>
+ * At runtime the woven jar can be loaded without transforming it again, only the ClassTransform classes referenced by injected code have to be on the classpath.<br>
+ * <br>
+ * The class provider of the transformer manager has to provide the input classes and their libraries to compute stack map frames.<br>
+ * If the output jar already exists, classes whose content hash did not change are taken from it without transforming them again.<br>
+ * The hash covers the input class, the transformer classes targeting it and the names of the raw and bytecode transformers.
+ * Changes to the code of raw and bytecode transformers, the mappings or the libraries are not detected, use {@link #fingerprint(String)} or disable incremental weaving for them.<br>
+ * The fail strategy of the transformer manager is set to {@link FailStrategy#CANCEL}, a failing transformer cancels the weave and the output is not written.
+ */
+@ParametersAreNonnullByDefault
+public class Weaver {
+
+    private static final String FORMAT_VERSION = "1";
+    private static final long ENTRY_TIME = 946684800000L; //Fixed entry time to make the output reproducible
+
+    private final TransformerManager transformerManager;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean incremental = true;
+    private String fingerprint = "";
+
+    public Weaver(final TransformerManager transformerManager) {
+        this.transformerManager = transformerManager;
+        //Exiting the JVM from a worker thread would leave a partially written output
+        this.transformerManager.setFailStrategy(FailStrategy.CANCEL);
+    }
+
+    /**
+     * Set the amount of threads used to transform classes.
+     *
+     * @param threads The amount of threads (default: available processors)
+     * @return This weaver
+     */
+    public Weaver threads(final int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("The thread count must be positive");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Reuse unchanged classes of an existing output jar.
+     *
+     * @param incremental If incremental weaving is enabled (default: true)
+     * @return This weaver
+     */
+    public Weaver incremental(final boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Set a fingerprint which is included in the hash of all classes.<br>
+     * Changing it causes all classes to be woven again, e.g. when passing the version of the transformers.
+     *
+     * @param fingerprint The fingerprint (default: empty)
+     * @return This weaver
+     */
+    public Weaver fingerprint(final String fingerprint) {
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
+    /**
+     * Weave the input jars or directories into the output jar.<br>
+     * If multiple inputs contain the same file, the first one is used. Jar signatures are removed.
+     *
+     * @param inputs The input jars or directories
+     * @param output The output jar
+     * @return Statistics about the weave
+     * @throws IOException           If an input could not be read or the output could not be written
+     * @throws IllegalStateException If a class could not be transformed
+     */
+    public WeaveResult weave(final List<File> inputs, final File output) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Input> openInputs = new ArrayList<>();
+        ZipFile previous = null;
+        ExecutorService executor = null;
+        try {
+            Map<String, Supplier<byte[]>> classes = new LinkedHashMap<>();
+            Map<String, Path> resources = new LinkedHashMap<>();
+            for (File file : inputs) {
+                Input input = Input.open(file);
+                openInputs.add(input);
+                input.collect(classes, resources);
+            }
+
+            WeaveManifest previousManifest = null;
+            if (this.incremental && output.isFile()) {
+                try {
+                    previous = new ZipFile(output);
+                    ZipEntry manifestEntry = previous.getEntry(WeaveManifest.PATH);
+                    if (manifestEntry != null) {
+                        try (InputStream is = previous.getInputStream(manifestEntry)) {
+                            previousManifest = WeaveManifest.read(is);
+                        }
+                    }
+                } catch (IOException e) {
+                    Logger.warn("Unable to read the previous output '{}', weaving all classes", output, e);
+                }
+            }
+
+            executor = Executors.newFixedThreadPool(this.threads);
+            String globalFingerprint = this.globalFingerprint();
+            Map<ClassNode, String> transformerHashes = Collections.synchronizedMap(new IdentityHashMap<>());
+            Map<String, Future<WovenClass>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Supplier<byte[]>> entry : classes.entrySet()) {
+                ZipFile previousJar = previous;
+                WeaveManifest.Entry previousEntry = previousManifest == null ? null : previousManifest.get(entry.getKey());
+                futures.put(entry.getKey(), executor.submit(() -> this.weaveClass(entry.getKey(), entry.getValue().get(), globalFingerprint, transformerHashes, previousJar, previousEntry)));
+            }
+
+            WeaveManifest manifest = new WeaveManifest();
+            Map<String, byte[]> wovenClasses = new HashMap<>();
+            int woven = 0;
+            int reused = 0;
+            for (Map.Entry<String, Future<WovenClass>> entry : futures.entrySet()) {
+                WovenClass wovenClass;
+                try {
+                    wovenClass = entry.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while weaving");
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to weave class '" + entry.getKey() + "'", e.getCause());
+                }
+                manifest.add(wovenClass.entry);
+                wovenClasses.put(slash(entry.getKey()) + ".class", wovenClass.bytecode);
+                if (wovenClass.entry.isWoven()) woven++;
+                if (wovenClass.reused) reused++;
+            }
+            if (previous != null) {
+                previous.close();
+                previous = null;
+            }
+
+            this.write(output, wovenClasses, resources, manifest);
+            return new WeaveResult(wovenClasses.size(), woven, reused, resources.size(), System.currentTimeMillis() - start);
+        } finally {
+            if (executor != null) executor.shutdownNow();
+            if (previous != null) previous.close();
+            for (Input input : openInputs) input.close();
+        }
+    }
+
+    private WovenClass weaveClass(final String className, final byte[] bytecode, final String globalFingerprint, final Map<ClassNode, String> transformerHashes, @Nullable final ZipFile previousJar, @Nullable final WeaveManifest.Entry previousEntry) throws IOException {
+        List<ClassNode> transformers = this.transformerManager.getTransformers(className);
+        List<IRawTransformer> rawTransformers = this.transformerManager.getRawTransformers(className);
+        List<String> transformerNames = new ArrayList<>();
+        MessageDigest digest = sha256();
+        digest.update(globalFingerprint.getBytes(StandardCharsets.UTF_8));
+        digest.update(bytecode);
+        for (ClassNode transformer : transformers) {
+            digest.update(transformerHashes.computeIfAbsent(transformer, t -> toHex(sha256().digest(ASMUtils.toStacklessBytes(t)))).getBytes(StandardCharsets.UTF_8));
+            transformerNames.add(dot(transformer.name));
+        }
+        for (IRawTransformer rawTransformer : rawTransformers) {
+            String name = getName(rawTransformer);
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            transformerNames.add(name);
+        }
+        String hash = toHex(digest.digest());
+
+        if (previousEntry != null && previousEntry.getHash().equals(hash)) {
+            if (!previousEntry.isWoven()) {
+                return new WovenClass(previousEntry, bytecode, true);
+            } else if (previousJar != null) {
+                ZipEntry entry = previousJar.getEntry(slash(className) + ".class");
+                if (entry != null) {
+                    try (InputStream is = previousJar.getInputStream(entry)) {
+                        return new WovenClass(previousEntry, readAll(is), true);
+                    }
+                }
+            }
+        }
+
+        byte[] transformed = this.transformerManager.transform(className, bytecode);
+        //The transformer manager cancels failed transformations, the class must not be written untransformed
+        if (transformed == null && (!transformers.isEmpty() || !rawTransformers.isEmpty())) throw new IllegalStateException("Failed to transform class '" + className + "'");
+        WeaveManifest.Entry entry = new WeaveManifest.Entry(className, hash, transformed != null, transformerNames);
+        return new WovenClass(entry, transformed == null ? bytecode : transformed, false);
+    }
+
+    private String globalFingerprint() {
+        StringBuilder fingerprint = new StringBuilder(FORMAT_VERSION).append('\n').append(this.fingerprint).append('\n');
+        fingerprint.append(this.transformerManager.getMapper().getClass().getName()).append('\n');
+        for (IBytecodeTransformer bytecodeTransformer : this.transformerManager.getBytecodeTransformers()) {
+            fingerprint.append(getName(bytecodeTransformer)).append('\n');
+        }
+        return fingerprint.toString();
+    }
+
+    private void write(final File output, final Map<String, byte[]> classes, final Map<String, Path> resources, final WeaveManifest manifest) throws IOException {
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null) Files.createDirectories(parent.toPath());
+        File tempFile = File.createTempFile(output.getName(), ".tmp", parent);
+        try {
+            try (JarOutputStream jos = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                //The manifest has to be the first entry to be found by JarInputStream
+                Path jarManifest = resources.get(JarFile.MANIFEST_NAME);
+                if (jarManifest != null) writeEntry(jos, JarFile.MANIFEST_NAME, Files.readAllBytes(jarManifest));
+
+                Map<String, Object> entries = new TreeMap<>();
+                entries.putAll(resources);
+                entries.putAll(classes);
+                for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                    if (entry.getKey().equals(JarFile.MANIFEST_NAME)) continue;
+                    if (entry.getValue() instanceof byte[]) writeEntry(jos, entry.getKey(), (byte[]) entry.getValue());
+                    else writeEntry(jos, entry.getKey(), Files.readAllBytes((Path) entry.getValue()));
+                }
+
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                manifest.write(baos);
+                writeEntry(jos, WeaveManifest.PATH, baos.toByteArray());
+            }
+            Files.move(tempFile.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static void writeEntry(final JarOutputStream jos, final String name, final byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        jos.putNextEntry(entry);
+        jos.write(data);
+        jos.closeEntry();
+    }
+
+    private static byte[] readAll(final InputStream is) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = is.read(buffer)) != -1) baos.write(buffer, 0, len);
+        return baos.toByteArray();
+    }
+
+    private static String getName(final Object transformer) {
+        String name = transformer.getClass().getName();
+        int lambdaIndex = name.indexOf("$$Lambda");
+        if (lambdaIndex != -1) name = name.substring(0, lambdaIndex); //Lambda class names change between runs
+        return name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+
+    private static class WovenClass {
+        private final WeaveManifest.Entry entry;
+        private final byte[] bytecode;
+        private final boolean reused;
+
+        private WovenClass(final WeaveManifest.Entry entry, final byte[] bytecode, final boolean reused) {
+            this.entry = entry;
+            this.bytecode = bytecode;
+            this.reused = reused;
+        }
+    }
+
+    private static class Input implements AutoCloseable {
+        private static Input open(final File file) throws IOException {
+            if (file.isDirectory()) return new Input(null, file.toPath(), new PathClassProvider(file.toPath()));
+            if (!file.isFile()) throw new FileNotFoundException(file.getPath());
+            //Create a new file system for every input to not interfere with file systems opened by class providers
+            FileSystem fileSystem = FileSystems.newFileSystem(file.toPath(), (ClassLoader) null);
+            return new Input(fileSystem, fileSystem.getRootDirectories().iterator().next(), new ClosableFileSystemClassProvider(fileSystem));
+        }
+
+        @Nullable
+        private final FileSystem fileSystem;
+        private final Path root;
+        private final IClassProvider classProvider;
+
+        private Input(@Nullable final FileSystem fileSystem, final Path root, final IClassProvider classProvider) {
+            this.fileSystem = fileSystem;
+            this.root = root;
+            this.classProvider = classProvider;
+        }
+
+        private void collect(final Map<String, Supplier<byte[]>> classes, final Map<String, Path> resources) throws IOException {
+            for (Map.Entry<String, Supplier<byte[]>> entry : this.classProvider.getAllClasses().entrySet()) {
+                //Versioned classes are copied as resources
+                if (!entry.getKey().startsWith("META-INF.")) classes.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            try (Stream<Path> paths = Files.walk(this.root)) {
+                paths.filter(Files::isRegularFile).forEach(path -> {
+                    String name = this.root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                    if (name.endsWith(".class") && !name.startsWith("META-INF/")) return;
+                    if (name.equals(WeaveManifest.PATH) || isSignature(name)) return;
+                    resources.putIfAbsent(name, path);
+                });
+            }
+        }
+
+        private static boolean isSignature(final String name) {
+            if (!name.startsWith("META-INF/") || name.indexOf('/', 9) != -1) return false;
+            String upperName = name.toUpperCase(Locale.ROOT);
+            return upperName.endsWith(".SF") || upperName.endsWith(".RSA") || upperName.endsWith(".DSA") || upperName.endsWith(".EC");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.fileSystem != null) this.fileSystem.close();
+        }
+    }
+
+}
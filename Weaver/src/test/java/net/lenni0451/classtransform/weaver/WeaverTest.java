@@ -0,0 +1,192 @@
+package net.lenni0451.classtransform.weaver;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.annotations.CShadow;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.transformer.IRawTransformer;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.FailStrategy;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.jar.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeaverTest {
+
+    @Test
+    @DisplayName("Weave classes into an output jar")
+    public void weave() throws Exception {
+        File input = this.createInput(false);
+        File output = this.tempFile();
+        output.delete();
+        WeaveResult result = new Weaver(this.createTransformerManager(false)).threads(2).weave(Collections.singletonList(input), output);
+        assertEquals(2, result.getClasses());
+        assertEquals(1, result.getWoven());
+        assertEquals(0, result.getReused());
+        assertEquals(2, result.getResources());
+
+        try (JarInputStream jis = new JarInputStream(new FileInputStream(output))) {
+            assertNotNull(jis.getManifest());
+        }
+        Map<String, byte[]> entries = this.readJar(output);
+        assertFalse(entries.containsKey("META-INF/TEST.SF"));
+        assertEquals("data", new String(entries.get("data.txt"), StandardCharsets.UTF_8));
+        assertTrue(ASMUtils.fromBytes(entries.get("weave/Target.class")).fields.stream().anyMatch(f -> f.name.equals("woven")));
+        assertTrue(ASMUtils.fromBytes(entries.get("weave/Other.class")).fields.isEmpty());
+
+        WeaveManifest manifest = this.readManifest(output);
+        WeaveManifest.Entry target = manifest.get("weave.Target");
+        assertNotNull(target);
+        assertTrue(target.isWoven());
+        assertEquals(Collections.singletonList(AddFieldTransformer.class.getName()), target.getTransformers());
+        assertFalse(manifest.get("weave.Other").isWoven());
+    }
+
+    @Test
+    @DisplayName("Only weave changed classes again")
+    public void incremental() throws Exception {
+        File input = this.createInput(false);
+        File output = this.tempFile();
+        output.delete();
+        new Weaver(this.createTransformerManager(false)).weave(Collections.singletonList(input), output);
+        byte[] firstOutput = this.readJar(output).get("weave/Target.class");
+
+        WeaveResult unchanged = new Weaver(this.createTransformerManager(false)).weave(Collections.singletonList(input), output);
+        assertEquals(2, unchanged.getReused());
+        assertEquals(1, unchanged.getWoven());
+        assertArrayEquals(firstOutput, this.readJar(output).get("weave/Target.class"));
+
+        WeaveResult changedInput = new Weaver(this.createTransformerManager(false)).weave(Collections.singletonList(this.createInput(true)), output);
+        assertEquals(1, changedInput.getReused());
+        assertFalse(this.readManifest(output).get("weave.Other").isWoven());
+
+        WeaveResult changedTransformer = new Weaver(this.createTransformerManager(true)).weave(Collections.singletonList(this.createInput(true)), output);
+        assertEquals(1, changedTransformer.getReused());
+        assertEquals(2, this.readManifest(output).get("weave.Target").getTransformers().size());
+
+        WeaveResult full = new Weaver(this.createTransformerManager(true)).incremental(false).weave(Collections.singletonList(this.createInput(true)), output);
+        assertEquals(0, full.getReused());
+        WeaveResult fingerprint = new Weaver(this.createTransformerManager(true)).fingerprint("2").weave(Collections.singletonList(this.createInput(true)), output);
+        assertEquals(0, fingerprint.getReused());
+    }
+
+    @Test
+    @DisplayName("Cancel the weave if a class fails to transform")
+    public void failedTransformer() throws Exception {
+        File input = this.createInput(false);
+        File output = this.tempFile();
+        output.delete();
+        new Weaver(this.createTransformerManager(false)).weave(Collections.singletonList(input), output);
+        Map<String, byte[]> firstOutput = this.readJar(output);
+
+        TransformerManager transformerManager = this.createTransformerManager(false);
+        ClassNode transformer = ASMUtils.createEmptyClass("weave.FailingTransformer");
+        AnnotationNode annotation = new AnnotationNode(Type.getDescriptor(CTransformer.class));
+        annotation.values = Arrays.asList("name", Collections.singletonList("weave.Target"));
+        transformer.invisibleAnnotations = new ArrayList<>(Collections.singletonList(annotation));
+        FieldNode shadow = new FieldNode(Opcodes.ACC_PUBLIC, "missing", "I", null, null);
+        shadow.invisibleAnnotations = new ArrayList<>(Collections.singletonList(new AnnotationNode(Type.getDescriptor(CShadow.class))));
+        transformer.fields.add(shadow);
+        transformerManager.addTransformer(transformer);
+
+        Weaver weaver = new Weaver(transformerManager);
+        assertEquals(FailStrategy.CANCEL, transformerManager.getFailStrategy());
+        assertThrows(IllegalStateException.class, () -> weaver.weave(Collections.singletonList(input), output));
+        //The previous output and its manifest are kept
+        Map<String, byte[]> secondOutput = this.readJar(output);
+        assertEquals(firstOutput.keySet(), secondOutput.keySet());
+        for (Map.Entry<String, byte[]> entry : firstOutput.entrySet()) assertArrayEquals(entry.getValue(), secondOutput.get(entry.getKey()));
+    }
+
+    private TransformerManager createTransformerManager(final boolean classTransformer) {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        transformerManager.addRawTransformer("weave.Target", new AddFieldTransformer());
+        if (classTransformer) {
+            ClassNode transformer = ASMUtils.createEmptyClass("weave.TargetTransformer");
+            AnnotationNode annotation = new AnnotationNode(Type.getDescriptor(CTransformer.class));
+            annotation.values = Arrays.asList("name", Collections.singletonList("weave.Target"));
+            transformer.invisibleAnnotations = new ArrayList<>(Collections.singletonList(annotation));
+            transformerManager.addTransformer(transformer);
+        }
+        return transformerManager;
+    }
+
+    private File createInput(final boolean changed) throws IOException {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        File file = this.tempFile();
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            ClassNode target = ASMUtils.createEmptyClass("weave.Target");
+            ClassNode other = ASMUtils.createEmptyClass("weave.Other");
+            if (changed) other.methods.clear();
+            for (ClassNode node : Arrays.asList(target, other)) {
+                jos.putNextEntry(new JarEntry(node.name + ".class"));
+                jos.write(ASMUtils.toBytes(node, transformerManager));
+                jos.closeEntry();
+            }
+            jos.putNextEntry(new JarEntry("data.txt"));
+            jos.write("data".getBytes(StandardCharsets.UTF_8));
+            jos.closeEntry();
+            jos.putNextEntry(new JarEntry("META-INF/TEST.SF"));
+            jos.closeEntry();
+        }
+        return file;
+    }
+
+    private File tempFile() throws IOException {
+        File file = File.createTempFile("weave", ".jar");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private Map<String, byte[]> readJar(final File file) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    byte[] data = new byte[(int) entry.getSize()];
+                    int read = 0;
+                    while (read < data.length) read += is.read(data, read, data.length - read);
+                    entries.put(entry.getName(), data);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private WeaveManifest readManifest(final File file) throws IOException {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            return WeaveManifest.read(zipFile.getInputStream(zipFile.getEntry(WeaveManifest.PATH)));
+        }
+    }
+
+
+    private static class AddFieldTransformer implements IRawTransformer {
+        @Override
+        public ClassNode transform(final TransformerManager transformerManager, final ClassNode transformedClass) {
+            transformedClass.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, "woven", "Z", null, null));
+            return transformedClass;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.lenni0451.classtransform;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for retransforming loaded classes in chunks instead of all at once.<br>
+ * Retransforming many classes in a single call pauses the JVM for a long time and deoptimizes all of them at the same time.<br>
+ * The scheduler retransforms a limited amount of classes at a time and pauses between the chunks on a background thread.
+ *
+ * <pre>{@code
+ * RetransformTask task = transformerManager.hookInstrumentation(instrumentation, false, new RetransformScheduler()
+ *         .chunkSize(20)
+ *         .pause(50, TimeUnit.MILLISECONDS)
+ *         .progressListener((retransformed, total) -> System.out.println(retransformed + "/" + total)));
+ * }</pre>
+ *
+ * @see TransformerManager#hookInstrumentation(java.lang.instrument.Instrumentation, boolean, RetransformScheduler)
+ * @see TransformerManager#scheduleRetransform(RetransformScheduler)
+ */
+@ParametersAreNonnullByDefault
+public class RetransformScheduler {
+
+    private int chunkSize = 50;
+    private long pauseMillis = 10;
+    @Nullable
+    private Comparator<Class<?>> priority;
+    @Nullable
+    private ProgressListener progressListener;
+
+    /**
+     * Set the maximum amount of classes retransformed at once.<br>
+     * Default: {@code 50}
+     *
+     * @param chunkSize The amount of classes
+     * @return This scheduler
+     */
+    public RetransformScheduler chunkSize(final int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("The chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Set the pause between two chunks.<br>
+     * Default: {@code 10ms}
+     *
+     * @param pause The length of the pause
+     * @param unit  The unit of the pause
+     * @return This scheduler
+     */
+    public RetransformScheduler pause(final long pause, final TimeUnit unit) {
+        if (pause < 0) throw new IllegalArgumentException("The pause must not be negative");
+        this.pauseMillis = unit.toMillis(pause);
+        return this;
+    }
+
+    /**
+     * Set the order in which classes are retransformed.<br>
+     * Classes which are rarely used should be retransformed first so that hot code is deoptimized last.<br>
+     * Default: The order of the loaded class index
+     *
+     * @param priority The comparator sorting the classes or null to keep the default order
+     * @return This scheduler
+     */
+    public RetransformScheduler priority(@Nullable final Comparator<Class<?>> priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Set the listener which is called after every chunk.<br>
+     * The listener is called on the scheduler thread.
+     *
+     * @param progressListener The listener or null to disable progress reporting
+     * @return This scheduler
+     */
+    public RetransformScheduler progressListener(@Nullable final ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    RetransformTask schedule(final TransformerManager transformerManager, final List<Class<?>> classes) {
+        List<Class<?>> sorted = new ArrayList<>(classes);
+        if (this.priority != null) sorted.sort(this.priority);
+        RetransformTask task = new RetransformTask(transformerManager, sorted, this.chunkSize, this.pauseMillis, this.progressListener);
+        if (sorted.isEmpty()) {
+            task.run();
+        } else {
+            Thread thread = new Thread(task, "ClassTransform Retransform Scheduler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return task;
+    }
+
+
+    /**
+     * A listener for the progress of a scheduled retransformation.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called after a chunk has been retransformed.
+         *
+         * @param retransformed The amount of classes processed so far
+         * @param total         The total amount of classes
+         */
+        void onProgress(final int retransformed, final int total);
+    }
+
+}
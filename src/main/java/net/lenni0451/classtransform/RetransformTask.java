@@ -0,0 +1,139 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.utils.log.Logger;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A retransformation scheduled by a {@link RetransformScheduler}.<br>
+ * The task can be used to track the progress and to cancel the remaining chunks.<br>
+ * Chunks which already started can't be cancelled.
+ */
+@ParametersAreNonnullByDefault
+public class RetransformTask implements Runnable {
+
+    private final TransformerManager transformerManager;
+    private final List<Class<?>> classes;
+    private final int chunkSize;
+    private final long pauseMillis;
+    @Nullable
+    private final RetransformScheduler.ProgressListener progressListener;
+    private final AtomicInteger retransformed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    RetransformTask(final TransformerManager transformerManager, final List<Class<?>> classes, final int chunkSize, final long pauseMillis, @Nullable final RetransformScheduler.ProgressListener progressListener) {
+        this.transformerManager = transformerManager;
+        this.classes = classes;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < this.classes.size(); i += this.chunkSize) {
+                if (i > 0 && this.pauseMillis > 0) {
+                    //The pause is interrupted when the task gets cancelled
+                    if (this.cancelled.await(this.pauseMillis, TimeUnit.MILLISECONDS)) break;
+                }
+                if (this.isCancelled()) break;
+
+                List<Class<?>> chunk = this.classes.subList(i, Math.min(i + this.chunkSize, this.classes.size()));
+                if (!this.transformerManager.retransform(chunk)) this.failed.addAndGet(chunk.size());
+                this.retransformed.addAndGet(chunk.size());
+                if (this.progressListener != null) {
+                    try {
+                        this.progressListener.onProgress(this.retransformed.get(), this.classes.size());
+                    } catch (Throwable t) {
+                        Logger.error("Retransform progress listener threw an exception", t);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            this.cancel();
+        } finally {
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Cancel the remaining chunks.<br>
+     * The chunk which is currently retransformed is finished.
+     */
+    public void cancel() {
+        this.cancelled.countDown();
+    }
+
+    /**
+     * @return If the task has been cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled.getCount() == 0;
+    }
+
+    /**
+     * @return If all chunks have been processed or the task has been cancelled and stopped
+     */
+    public boolean isDone() {
+        return this.done.getCount() == 0;
+    }
+
+    /**
+     * Wait until the task is done.
+     *
+     * @throws InterruptedException If the current thread is interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        this.done.await();
+    }
+
+    /**
+     * Wait until the task is done.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return If the task is done
+     * @throws InterruptedException If the current thread is interrupted while waiting
+     */
+    public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.done.await(timeout, unit);
+    }
+
+    /**
+     * @return The total amount of classes
+     */
+    public int getTotal() {
+        return this.classes.size();
+    }
+
+    /**
+     * @return The amount of classes processed so far, including failed ones
+     */
+    public int getRetransformed() {
+        return this.retransformed.get();
+    }
+
+    /**
+     * @return The amount of classes in failed chunks
+     */
+    public int getFailed() {
+        return this.failed.get();
+    }
+
+    /**
+     * @return The progress between {@code 0} and {@code 1}
+     */
+    public float getProgress() {
+        if (this.classes.isEmpty()) return 1;
+        return (float) this.retransformed.get() / this.classes.size();
+    }
+
+}
@@ -0,0 +1,45 @@
+package net.lenni0451.classtransform;
+
+/**
+ * A batch of transformer registrations.<br>
+ * While a batch is open, loaded classes affected by new transformers are collected instead of being retransformed immediately.<br>
+ * Closing the batch retransforms all collected classes at once. Batches can be nested, the classes are retransformed when the outermost batch is closed.<br>
+ * Batches are bound to the thread which opened them. Registrations of other threads are retransformed immediately and the batch has to be closed by the same thread.
+ *
+ * <pre>{@code
+ * try (TransformerBatch batch = transformerManager.beginBatch()) {
+ *     transformerManager.addTransformer("package.**");
+ *     transformerManager.addRawTransformer("package.Target", rawTransformer);
+ * }
+ * }</pre>
+ *
+ * @see TransformerManager#beginBatch()
+ */
+public class TransformerBatch implements AutoCloseable {
+
+    private final TransformerManager transformerManager;
+    private final Thread thread;
+    private boolean closed;
+
+    TransformerBatch(final TransformerManager transformerManager) {
+        this.transformerManager = transformerManager;
+        this.thread = Thread.currentThread();
+    }
+
+    /**
+     * Close the batch and retransform the collected classes.<br>
+     * Closing a batch multiple times has no effect.
+     *
+     * @throws IllegalStateException If the batch is closed by another thread than the one which opened it
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() != this.thread) throw new IllegalStateException("The batch has to be closed by the thread which opened it");
+        synchronized (this) {
+            if (this.closed) return;
+            this.closed = true;
+        }
+        this.transformerManager.endBatch();
+    }
+
+}
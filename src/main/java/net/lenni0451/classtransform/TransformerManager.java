@@ -8,6 +8,7 @@ import net.lenni0451.classtransform.debugger.TransformerTimings;
 import net.lenni0451.classtransform.debugger.timings.TimedGroup;
 import net.lenni0451.classtransform.exceptions.TransformerLoadException;
 import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MappedTransformerCache;
 import net.lenni0451.classtransform.mappings.impl.VoidMapper;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.targets.impl.*;
@@ -22,10 +23,14 @@ import net.lenni0451.classtransform.transformer.impl.general.SyntheticMethodGene
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.FailStrategy;
 import net.lenni0451.classtransform.utils.HotswapClassLoader;
+import net.lenni0451.classtransform.utils.LoadedClassIndex;
+import net.lenni0451.classtransform.utils.OriginalBytecodeCache;
+import net.lenni0451.classtransform.utils.SymbolTable;
 import net.lenni0451.classtransform.utils.annotations.AnnotationUtils;
 import net.lenni0451.classtransform.utils.log.Logger;
 import net.lenni0451.classtransform.utils.tree.ClassTree;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import net.lenni0451.classtransform.utils.tree.SharedClassTree;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AnnotationNode;
@@ -43,6 +48,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -58,25 +66,36 @@ import static net.lenni0451.classtransform.utils.ASMUtils.dot;
 @ParametersAreNonnullByDefault
 public class TransformerManager implements ClassFileTransformer {
 
-    private final ClassTree classTree = new ClassTree(this);
+    private final ClassTree classTree;
     private final IClassProvider classProvider;
     private final AMapper mapper;
-    private final List<AnnotationHandler> annotationHandler = new ArrayList<>();
+    private final List<AnnotationHandler> annotationHandler = new CopyOnWriteArrayList<>();
     private final AnnotationCoprocessorList coprocessors = new AnnotationCoprocessorList();
-    private final Map<String, IInjectionTarget> injectionTargets = new HashMap<>();
+    private final Map<String, IInjectionTarget> injectionTargets = new ConcurrentHashMap<>();
     private final TransformerDebugger debugger = new TransformerDebugger(this);
+    private final MappedTransformerCache mappedTransformerCache = new MappedTransformerCache(this);
     private FailStrategy failStrategy = FailStrategy.EXIT;
     private Instrumentation instrumentation;
     private HotswapClassLoader hotswapClassLoader;
-
-    private final List<IAnnotationHandlerPreprocessor> annotationHandlerPreprocessor = new ArrayList<>();
-    private final List<IBytecodeTransformer> bytecodeTransformer = new ArrayList<>();
-    private final Map<String, List<IRawTransformer>> rawTransformer = new HashMap<>();
-    private final Map<String, List<ClassNode>> transformer = new HashMap<>();
-    private final List<IPostTransformer> postTransformer = new ArrayList<>();
-
-    private final Set<String> registeredTransformer = new HashSet<>();
-    private final Set<String> transformedClasses = new HashSet<>();
+    @Nullable
+    private OriginalBytecodeCache originalBytecodeCache;
+    private final ThreadLocal<Boolean> redefining = new ThreadLocal<>();
+    private final Map<Class<?>, Boolean> redefinedClasses = Collections.synchronizedMap(new WeakHashMap<>());
+
+    //Classes may be transformed by multiple threads at the same time, e.g. by a parallel class loader
+    private final List<IAnnotationHandlerPreprocessor> annotationHandlerPreprocessor = new CopyOnWriteArrayList<>();
+    private final List<IBytecodeTransformer> bytecodeTransformer = new CopyOnWriteArrayList<>();
+    private final Map<String, List<IRawTransformer>> rawTransformer = new ConcurrentHashMap<>();
+    private final Map<String, List<ClassNode>> transformer = new ConcurrentHashMap<>();
+    private final List<IPostTransformer> postTransformer = new CopyOnWriteArrayList<>();
+
+    private final Set<String> registeredTransformer = ConcurrentHashMap.newKeySet();
+    private final Set<String> transformedClasses = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger modifications = new AtomicInteger();
+    private final LoadedClassIndex loadedClasses = new LoadedClassIndex();
+    //Batches only collect the registrations of the thread which opened them
+    private final ThreadLocal<Set<String>> pendingRetransform = new ThreadLocal<>();
+    private final ThreadLocal<Integer> batchDepth = new ThreadLocal<>();
 
     /**
      * @param classProvider The class provider used to get the class bytecode
@@ -90,9 +109,19 @@ public class TransformerManager implements ClassFileTransformer {
      * @param mapper        The mapper used to remap ClassTransform annotation targets and transformers if enabled
      */
     public TransformerManager(final IClassProvider classProvider, final AMapper mapper) {
+        this(classProvider, mapper, null);
+    }
+
+    /**
+     * @param classProvider The class provider used to get the class bytecode
+     * @param mapper        The mapper used to remap ClassTransform annotation targets and transformers if enabled
+     * @param sharedTree    The shared class tree used as base layer of the class tree (can be shared between multiple transformer managers)
+     */
+    public TransformerManager(final IClassProvider classProvider, final AMapper mapper, @Nullable final SharedClassTree sharedTree) {
+        this.classTree = new ClassTree(this, sharedTree);
         this.classProvider = classProvider;
         this.mapper = mapper;
-        this.mapper.load();
+        this.mapper.loadAsync();
 
         //Annotation handler
         this.annotationHandler.add(new CASMAnnotationHandler(CASM.Shift.TOP));
@@ -154,6 +183,16 @@ public class TransformerManager implements ClassFileTransformer {
         return this.mapper;
     }
 
+    /**
+     * Get the cache of remapped transformers.<br>
+     * Use {@link MappedTransformerCache#invalidateAll()} if something the remapping depends on changed outside the transformer manager.
+     *
+     * @return The mapped transformer cache
+     */
+    public MappedTransformerCache getMappedTransformerCache() {
+        return this.mappedTransformerCache;
+    }
+
     /**
      * @return The names of all registered transformers
      */
@@ -168,6 +207,57 @@ public class TransformerManager implements ClassFileTransformer {
         return Collections.unmodifiableSet(this.transformedClasses);
     }
 
+    /**
+     * Check if any transformer could change the given class.<br>
+     * Bytecode transformers are called for every class.
+     *
+     * @param className The name of the class
+     * @return If the class could be changed by {@link #transform(String, byte[])}
+     */
+    public boolean hasTransformers(final String className) {
+        return !this.bytecodeTransformer.isEmpty() || this.rawTransformer.containsKey(className) || this.transformer.containsKey(className);
+    }
+
+    /**
+     * @return All registered bytecode transformers
+     */
+    public List<IBytecodeTransformer> getBytecodeTransformers() {
+        return Collections.unmodifiableList(this.bytecodeTransformer);
+    }
+
+    /**
+     * @param className The name of the transformed class
+     * @return All raw transformers registered for the class
+     */
+    public List<IRawTransformer> getRawTransformers(final String className) {
+        List<IRawTransformer> rawTransformer = this.rawTransformer.get(className);
+        if (rawTransformer == null) return Collections.emptyList();
+        return Collections.unmodifiableList(rawTransformer);
+    }
+
+    /**
+     * Get all transformer classes registered for a class.<br>
+     * The returned class nodes are not remapped and must not be modified.
+     *
+     * @param className The name of the transformed class
+     * @return All transformers registered for the class
+     */
+    public List<ClassNode> getTransformers(final String className) {
+        List<ClassNode> transformer = this.transformer.get(className);
+        if (transformer == null) return Collections.emptyList();
+        return Collections.unmodifiableList(transformer);
+    }
+
+    /**
+     * Get the amount of changes made to the registered transformers, handlers and injection targets.<br>
+     * This can be used to detect if classes transformed before are outdated.
+     *
+     * @return The modification count
+     */
+    public int getModificationCount() {
+        return this.modifications.get();
+    }
+
     /**
      * Add a new annotation handler coprocessor.<br>
      * A new coprocessor instance will be created for each annotation handler.
@@ -176,6 +266,7 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addCoprocessor(final Supplier<? extends IAnnotationCoprocessor> coprocessorSupplier) {
         this.coprocessors.add(coprocessorSupplier);
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -228,6 +319,25 @@ public class TransformerManager implements ClassFileTransformer {
         return this.failStrategy;
     }
 
+    /**
+     * Set the cache used to store the original bytecode of transformed classes.<br>
+     * The bytecode is captured by the instrumentation callback and used when classes are redefined (e.g. when hotswapping transformers).<br>
+     * Classes missing in the cache are requested from the class provider.
+     *
+     * @param originalBytecodeCache The cache to use or null to disable caching
+     */
+    public void setOriginalBytecodeCache(@Nullable final OriginalBytecodeCache originalBytecodeCache) {
+        this.originalBytecodeCache = originalBytecodeCache;
+    }
+
+    /**
+     * @return The cache used to store the original bytecode of transformed classes or null if caching is disabled
+     */
+    @Nullable
+    public OriginalBytecodeCache getOriginalBytecodeCache() {
+        return this.originalBytecodeCache;
+    }
+
     /**
      * Add an annotation handler preprocessor to the preprocessor list.<br>
      * You can modify class transform annotations before they get parsed.
@@ -236,6 +346,7 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addTransformerPreprocessor(final IAnnotationHandlerPreprocessor annotationHandlerPreprocessor) {
         this.annotationHandlerPreprocessor.add(annotationHandlerPreprocessor);
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -246,19 +357,22 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addBytecodeTransformer(final IBytecodeTransformer bytecodeTransformer) {
         this.bytecodeTransformer.add(bytecodeTransformer);
+        this.modifications.incrementAndGet();
     }
 
     /**
      * Add a raw class transformer to the transformer list.<br>
      * Raw class transformer are similar to bytecode transformer but only for the specified class.<br>
-     * A {@link ClassNode} is passed to the transformer instead of the bytecode array.
+     * A {@link ClassNode} is passed to the transformer instead of the bytecode array.<br>
+     * If the class is already loaded it is retransformed immediately or when the current {@link #beginBatch() batch} is closed.
      *
      * @param className      The name of the class to transform
      * @param rawTransformer The raw transformer to add
      */
     public void addRawTransformer(final String className, final IRawTransformer rawTransformer) {
-        this.rawTransformer.computeIfAbsent(className, n -> new ArrayList<>()).add(rawTransformer);
+        this.rawTransformer.computeIfAbsent(className, n -> new CopyOnWriteArrayList<>()).add(rawTransformer);
         this.transformedClasses.add(className);
+        this.modifications.incrementAndGet();
         this.retransformClasses(Collections.singleton(className));
     }
 
@@ -267,7 +381,8 @@ public class TransformerManager implements ClassFileTransformer {
      * Use the direct class name for a single transformer <i>(e.g. <b>package.Transformer</b>)</i><br>
      * Use the package ending with '*' for all transformer in the packet (not sub packages) <i>(e.g. <b>package.*</b>)</i><br>
      * Use the package ending with '**' for all transformer in the package and sub packages <i>(e.g. <b>package.**</b>)</i><br>
-     * If the class is specified directly an exception will be thrown if the class is missing the {@link CTransformer} annotation.
+     * If the class is specified directly an exception will be thrown if the class is missing the {@link CTransformer} annotation.<br>
+     * All loaded classes affected by the added transformers are retransformed at once.
      *
      * @param transformer The name of transformer class to add
      * @throws IllegalStateException    If the class is specified directly and is missing the {@link CTransformer} annotation
@@ -307,17 +422,25 @@ public class TransformerManager implements ClassFileTransformer {
                 throw new TransformerLoadException(transformer, e);
             }
         }
+        //Parse all transformers first, the mappings may still be loading in the background
+        List<ClassNode> classNodes = new ArrayList<>(classes.size());
         for (byte[] bytecode : classes) {
-            String name = null;
             try {
-                ClassNode classNode = ASMUtils.fromBytes(bytecode);
-                name = classNode.name;
-                Set<String> transformedClasses = this.addTransformer(classNode, !wildcard);
-                if (!transformedClasses.isEmpty()) this.retransformClasses(transformedClasses);
-                else if (!wildcard) Logger.warn("Transformer '{}' does not transform any classes", name);
+                classNodes.add(ASMUtils.fromBytes(bytecode));
             } catch (Throwable e) {
-                if (name == null) throw new RuntimeException("Unable to parse transformer bytecode", e);
-                else throw new TransformerLoadException(name, e);
+                throw new RuntimeException("Unable to parse transformer bytecode", e);
+            }
+        }
+        try (TransformerBatch batch = this.beginBatch()) {
+            for (ClassNode classNode : classNodes) {
+                String name = classNode.name;
+                try {
+                    Set<String> transformedClasses = this.addTransformer(classNode, !wildcard);
+                    if (!transformedClasses.isEmpty()) this.retransformClasses(transformedClasses);
+                    else if (!wildcard) Logger.warn("Transformer '{}' does not transform any classes", name);
+                } catch (Throwable e) {
+                    throw new TransformerLoadException(name, e);
+                }
             }
         }
     }
@@ -353,6 +476,7 @@ public class TransformerManager implements ClassFileTransformer {
             if (requireAnnotation) throw new IllegalStateException("Transformer does not have CTransformer annotation");
             else return Collections.emptySet();
         }
+        SymbolTable.intern(classNode); //Transformers are kept for the lifetime of the transformer manager
         List<Object> annotation = opt.map(a -> a.values).orElseGet(Collections::emptyList);
         Set<String> transformedClasses = new HashSet<>();
         for (int i = 0; i < annotation.size(); i += 2) {
@@ -368,6 +492,8 @@ public class TransformerManager implements ClassFileTransformer {
             }
         }
         this.transformedClasses.addAll(transformedClasses);
+        this.mappedTransformerCache.invalidate(classNode.name);
+        this.modifications.incrementAndGet();
 
         String name = dot(classNode.name);
         this.registeredTransformer.add(name);
@@ -376,13 +502,45 @@ public class TransformerManager implements ClassFileTransformer {
     }
 
     private void addTransformer(final Set<String> transformedClasses, final String className, final ClassNode transformer) {
-        List<ClassNode> transformerList = this.transformer.computeIfAbsent(className, n -> new ArrayList<>());
-        transformerList.removeIf(cn -> cn.name.equals(transformer.name));
-        transformerList.add(transformer);
+        List<ClassNode> transformerList = this.transformer.computeIfAbsent(className, n -> new CopyOnWriteArrayList<>());
+        synchronized (transformerList) {
+            transformerList.removeIf(cn -> cn.name.equals(transformer.name));
+            transformerList.add(transformer);
+        }
 
         transformedClasses.add(className);
     }
 
+    /**
+     * Begin a batch of transformer registrations.<br>
+     * Loaded classes affected by transformers added by the current thread while the batch is open are retransformed once when it is closed.<br>
+     * Transformers added by other threads are not affected by the batch.
+     *
+     * @return The batch which has to be closed by the current thread to retransform the classes
+     * @see TransformerBatch
+     */
+    public TransformerBatch beginBatch() {
+        Integer depth = this.batchDepth.get();
+        if (depth == null) {
+            this.pendingRetransform.set(new HashSet<>());
+            depth = 0;
+        }
+        this.batchDepth.set(depth + 1);
+        return new TransformerBatch(this);
+    }
+
+    void endBatch() {
+        int depth = this.batchDepth.get() - 1;
+        if (depth > 0) {
+            this.batchDepth.set(depth);
+            return;
+        }
+        Set<String> classes = this.pendingRetransform.get();
+        this.batchDepth.remove();
+        this.pendingRetransform.remove();
+        if (!classes.isEmpty()) this.retransformClasses(classes);
+    }
+
     /**
      * Add a post transformer to handle the raw bytecode after all transformer have been applied.<br>
      * Useful for dumping transformed classes to disk.
@@ -391,6 +549,7 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addPostTransformConsumer(final IPostTransformer postTransformer) {
         this.postTransformer.add(postTransformer);
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -401,6 +560,7 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addCustomAnnotationHandler(final AnnotationHandler transformer, final HandlerPosition handlerPosition) {
         handlerPosition.add(this.annotationHandler, transformer);
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -411,6 +571,8 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addInjectionTarget(final String name, final IInjectionTarget target) {
         this.injectionTargets.put(name.toUpperCase(Locale.ROOT), target);
+        this.mappedTransformerCache.invalidateAll();
+        this.modifications.incrementAndGet();
     }
 
     /**
@@ -468,8 +630,7 @@ public class TransformerManager implements ClassFileTransformer {
                 for (ClassNode classNode : transformer) {
                     timings.start(TimedGroup.REMAPPER, classNode.name);
                     try {
-                        classNode = ASMUtils.cloneClass(classNode);
-                        classNode = this.mapper.mapClass(this.classTree, this.classProvider, clazz, classNode);
+                        classNode = this.mappedTransformerCache.get(clazz, classNode);
                     } catch (Throwable t) {
                         Logger.error("Failed to remap and fill annotation details of transformer '{}'", classNode.name, t);
                         if (FailStrategy.CANCEL.equals(this.failStrategy)) return null;
@@ -544,45 +705,113 @@ public class TransformerManager implements ClassFileTransformer {
      * @param hotswappable    Whether to enable transformer hotswapping
      */
     public void hookInstrumentation(final Instrumentation instrumentation, final boolean hotswappable) {
+        this.hook(instrumentation, hotswappable);
+        this.retransformClasses(null);
+    }
+
+    /**
+     * Hook an {@link Instrumentation} instance to allow for transformation using it.<br>
+     * This allows to transform classes already loaded by the JVM.<br>
+     * You have to be careful with re-transforming classes since you can't modify the class structure (e.g. adding a new method or modifying the signature of an existing one). You can use the {@link CInline} annotation to prevent adding methods to a loaded class.<br>
+     * Loaded classes with a transformer are re-transformed in the background using the given scheduler.
+     *
+     * @param instrumentation The instrumentation instance to hook
+     * @param hotswappable    Whether to enable transformer hotswapping
+     * @param scheduler       The scheduler used to re-transform the loaded classes
+     * @return The task re-transforming the loaded classes
+     */
+    public RetransformTask hookInstrumentation(final Instrumentation instrumentation, final boolean hotswappable, final RetransformScheduler scheduler) {
+        this.hook(instrumentation, hotswappable);
+        return this.scheduleRetransform(scheduler);
+    }
+
+    /**
+     * Re-transform all loaded classes with a transformer in the background using the given scheduler.<br>
+     * If retransformation is not supported or no instrumentation is hooked, the returned task is already done.
+     *
+     * @param scheduler The scheduler used to re-transform the loaded classes
+     * @return The task re-transforming the loaded classes
+     */
+    public RetransformTask scheduleRetransform(final RetransformScheduler scheduler) {
+        List<Class<?>> classes;
+        if (this.instrumentation != null && this.instrumentation.isRetransformClassesSupported()) classes = this.loadedClasses.getClasses(this.transformedClasses, this.instrumentation);
+        else classes = Collections.emptyList();
+        return scheduler.schedule(this, classes);
+    }
+
+    private void hook(final Instrumentation instrumentation, final boolean hotswappable) {
         this.instrumentation = instrumentation;
         if (hotswappable) {
             this.hotswapClassLoader = new HotswapClassLoader();
             for (String transformerClass : this.registeredTransformer) this.hotswapClassLoader.defineHotswapClass(transformerClass);
         }
+        //Load the classes used by the transformer callback before it is registered, they can't be loaded while it is running
+        this.loadedClasses.record(TransformerManager.class.getClassLoader(), TransformerManager.class.getName(), null);
+        this.loadedClasses.getClasses(Collections.singleton(TransformerManager.class.getName()), instrumentation);
+        this.loadedClasses.record(TransformerManager.class);
+        this.redefinedClasses.put(TransformerManager.class, Boolean.TRUE);
+        this.redefinedClasses.remove(TransformerManager.class);
         instrumentation.addTransformer(this, instrumentation.isRetransformClassesSupported());
-
-        this.retransformClasses(null);
+        //Classes loaded from now on are recorded by the transformer callback
+        for (Class<?> loadedClass : instrumentation.getAllLoadedClasses()) {
+            if (loadedClass != null) this.loadedClasses.record(loadedClass);
+        }
     }
 
     private void retransformClasses(@Nullable final Set<String> classesToRetransform) {
         if (this.instrumentation != null && this.instrumentation.isRetransformClassesSupported()) {
-            List<Class<?>> classes = new ArrayList<>();
+            if (classesToRetransform != null) {
+                Set<String> pendingRetransform = this.pendingRetransform.get();
+                if (pendingRetransform != null) {
+                    pendingRetransform.addAll(classesToRetransform);
+                    return;
+                }
+            }
             Set<String> classSet;
             if (classesToRetransform != null) classSet = classesToRetransform;
             else classSet = this.transformedClasses;
-            for (Class<?> loadedClass : this.instrumentation.getAllLoadedClasses()) {
-                if (loadedClass != null && classSet.contains(loadedClass.getName())) classes.add(loadedClass);
-            }
-            if (!classes.isEmpty()) {
-                try {
-                    this.instrumentation.retransformClasses(classes.toArray(new Class[0]));
-                } catch (Throwable t) {
-                    Logger.error("Failed to retransform classes '{}'", classes.stream().map(Class::getName).collect(Collectors.joining(", ")), t);
-                    if (FailStrategy.EXIT.equals(this.failStrategy)) System.exit(-1);
-                }
-            }
+            List<Class<?>> classes = this.loadedClasses.getClasses(classSet, this.instrumentation);
+            if (!classes.isEmpty()) this.retransform(classes);
+        }
+    }
+
+    boolean retransform(final List<Class<?>> classes) {
+        try {
+            this.instrumentation.retransformClasses(classes.toArray(new Class[0]));
+            return true;
+        } catch (Throwable t) {
+            Logger.error("Failed to retransform classes '{}'", classes.stream().map(Class::getName).collect(Collectors.joining(", ")), t);
+            if (FailStrategy.EXIT.equals(this.failStrategy)) System.exit(-1);
+            return false;
         }
     }
 
     private void redefineClasses(final Set<String> classesToRedefine) throws UnmodifiableClassException, ClassNotFoundException {
         List<ClassDefinition> classDefinitions = new ArrayList<>();
-        for (Class<?> loadedClass : this.instrumentation.getAllLoadedClasses()) {
-            if (loadedClass != null && classesToRedefine.contains(loadedClass.getName())) {
-                byte[] transformedBytecode = this.transform(loadedClass.getName(), this.classProvider.getClass(loadedClass.getName()));
-                if (transformedBytecode != null) classDefinitions.add(new ClassDefinition(loadedClass, transformedBytecode));
-            }
+        for (Class<?> loadedClass : this.loadedClasses.getClasses(classesToRedefine, this.instrumentation)) {
+            byte[] transformedBytecode = this.transform(loadedClass.getName(), this.getOriginalBytecode(loadedClass));
+            if (transformedBytecode != null) classDefinitions.add(new ClassDefinition(loadedClass, transformedBytecode));
         }
-        if (!classDefinitions.isEmpty()) this.instrumentation.redefineClasses(classDefinitions.toArray(new ClassDefinition[0]));
+        if (classDefinitions.isEmpty()) return;
+        //The bytecode passed to the callback while redefining is already transformed and must not be cached
+        //Retransforming a redefined class passes the redefined bytecode, so the classes are remembered
+        for (ClassDefinition classDefinition : classDefinitions) this.redefinedClasses.put(classDefinition.getDefinitionClass(), Boolean.TRUE);
+        Boolean wasRedefining = this.redefining.get();
+        this.redefining.set(Boolean.TRUE);
+        try {
+            this.instrumentation.redefineClasses(classDefinitions.toArray(new ClassDefinition[0]));
+        } finally {
+            this.redefining.set(wasRedefining);
+        }
+    }
+
+    private byte[] getOriginalBytecode(final Class<?> loadedClass) throws ClassNotFoundException {
+        OriginalBytecodeCache cache = this.originalBytecodeCache;
+        if (cache != null) {
+            byte[] bytecode = cache.get(loadedClass.getClassLoader(), loadedClass.getName());
+            if (bytecode != null) return bytecode;
+        }
+        return this.classProvider.getClass(loadedClass.getName());
     }
 
     /**
@@ -595,6 +824,17 @@ public class TransformerManager implements ClassFileTransformer {
         if (className == null) return null;
         try {
             className = dot(className);
+            if (this.instrumentation != null) {
+                if (classBeingRedefined != null) this.loadedClasses.record(classBeingRedefined);
+                else this.loadedClasses.record(loader, className, null);
+
+                OriginalBytecodeCache cache = this.originalBytecodeCache;
+                if (cache != null && this.transformedClasses.contains(className)) {
+                    //The JVM passes the original bytecode when a class is loaded or retransformed without being redefined before
+                    if (classBeingRedefined == null) cache.put(loader, className, classfileBuffer);
+                    else if (this.redefining.get() == null && !this.redefinedClasses.containsKey(classBeingRedefined)) cache.put(loader, className, classfileBuffer);
+                }
+            }
             if (this.hotswapClassLoader != null && this.registeredTransformer.contains(className)) {
                 try {
                     ClassNode transformer = ASMUtils.fromBytes(classfileBuffer);
@@ -4,7 +4,6 @@ import lombok.SneakyThrows;
 import net.lenni0451.classtransform.TransformerManager;
 import net.lenni0451.classtransform.mappings.annotation.AnnotationRemap;
 import net.lenni0451.classtransform.mappings.annotation.RemapType;
-import net.lenni0451.classtransform.mappings.dynamic.IDynamicRemapper;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.FailStrategy;
 import net.lenni0451.classtransform.utils.MemberDeclaration;
@@ -12,6 +11,7 @@ import net.lenni0451.classtransform.utils.annotations.AnnotationUtils;
 import net.lenni0451.classtransform.utils.log.Logger;
 import net.lenni0451.classtransform.utils.mappings.MapRemapper;
 import net.lenni0451.classtransform.utils.mappings.Remapper;
+import net.lenni0451.classtransform.utils.mappings.SuperMappingClosure;
 import net.lenni0451.classtransform.utils.mappings.SuperMappingFiller;
 import net.lenni0451.classtransform.utils.tree.ClassTree;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
@@ -29,6 +29,10 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import static net.lenni0451.classtransform.utils.ASMUtils.dot;
@@ -43,12 +47,28 @@ public abstract class AMapper {
 
     private final MapperConfig config;
     protected final MapRemapper remapper;
-    private boolean initialized = false;
-    private ClassTree superMappingsTree = null;
+    private volatile boolean initialized = false;
+    @Nullable
+    private volatile CompletableFuture<Void> loadFuture;
+    @Nullable
+    private volatile Thread loadThread;
+    @Nullable
+    private volatile SuperMappingClosure superMappingClosure = null;
+    private volatile int fillModifications;
+    //Filling super mappings modifies the remapper, remapping only reads it
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public AMapper(final MapperConfig config) {
+        this(config, new MapRemapper());
+    }
+
+    /**
+     * @param config   The config of this mapper
+     * @param remapper The remapper which is filled by the {@link #init()} method
+     */
+    protected AMapper(final MapperConfig config, final MapRemapper remapper) {
         this.config = config;
-        this.remapper = new MapRemapper();
+        this.remapper = remapper;
     }
 
     /**
@@ -57,13 +77,81 @@ public abstract class AMapper {
      *
      * @throws RuntimeException If the {@link #init()} method throws an exception
      */
-    public synchronized final void load() {
+    public final void load() {
         if (this.initialized) return;
+        CompletableFuture<Void> loadFuture;
+        synchronized (this) {
+            if (this.initialized) return;
+            loadFuture = this.loadFuture;
+            if (loadFuture == null) {
+                this.initialize();
+                return;
+            }
+        }
+        this.await(loadFuture);
+    }
+
+    /**
+     * Start loading the mappings on a background thread.<br>
+     * The mappings are loaded synchronously if async loading is disabled in the {@link MapperConfig}.<br>
+     * All methods which need the mappings wait for the loading to complete.
+     *
+     * @return A future which completes when the mappings are loaded
+     */
+    public final CompletableFuture<Void> loadAsync() {
+        CompletableFuture<Void> loadFuture;
+        synchronized (this) {
+            if (this.initialized) return CompletableFuture.completedFuture(null);
+            if (this.loadFuture != null) return this.loadFuture;
+            if (!this.config.loadAsync) {
+                this.initialize();
+                return CompletableFuture.completedFuture(null);
+            }
+            loadFuture = this.loadFuture = new CompletableFuture<>();
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                this.initialize();
+                loadFuture.complete(null);
+            } catch (Throwable t) {
+                loadFuture.completeExceptionally(t);
+            }
+        }, "ClassTransform Mappings Loader");
+        thread.setDaemon(true);
+        thread.start();
+        return loadFuture;
+    }
+
+    /**
+     * Wait until the mappings are loaded.<br>
+     * Loads the mappings on the calling thread if loading has not been started yet.
+     *
+     * @throws RuntimeException If the {@link #init()} method throws an exception
+     */
+    protected final void awaitLoad() {
+        if (this.initialized || Thread.currentThread() == this.loadThread) return;
+        this.load();
+    }
+
+    private void initialize() {
+        if (this.initialized) return;
+        this.loadThread = Thread.currentThread();
         try {
             this.init();
             this.initialized = true;
         } catch (Throwable t) {
             throw new RuntimeException("Unable to initialize mappings", t);
+        } finally {
+            this.loadThread = null;
+        }
+    }
+
+    private void await(final CompletableFuture<Void> loadFuture) {
+        try {
+            loadFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
         }
     }
 
@@ -75,7 +163,14 @@ public abstract class AMapper {
      * @return The remapped class name
      */
     public final String mapClassName(final String className) {
-        return dot(this.remapper.mapType(slash(className)));
+        this.awaitLoad();
+        if (!this.config.fillSuperMappings) return dot(this.remapper.mapType(slash(className)));
+        this.lock.readLock().lock();
+        try {
+            return dot(this.remapper.mapType(slash(className)));
+        } finally {
+            this.lock.readLock().unlock();
+        }
     }
 
     /**
@@ -100,7 +195,9 @@ public abstract class AMapper {
     }
 
     /**
-     * Remap the given transformer for the given target class.
+     * Remap the given transformer for the given target class.<br>
+     * This method is thread-safe, transformers are remapped in parallel.<br>
+     * If super mappings are filled, only filling them is exclusive since it modifies the remapper.
      *
      * @param transformerManager The transformer manager
      * @param target             The target class node
@@ -108,7 +205,25 @@ public abstract class AMapper {
      * @return The remapped transformer class node
      */
     public final ClassNode mapClass(final TransformerManager transformerManager, final ClassNode target, final ClassNode transformer) {
-        this.fillTransformerSuperMappings(transformerManager, transformer);
+        this.awaitLoad();
+        if (!this.config.fillSuperMappings) return this.remapTransformer(transformerManager, target, transformer);
+
+        this.lock.writeLock().lock();
+        try {
+            this.fillTransformerSuperMappings(transformerManager, transformer);
+            //Downgrade to the read lock, other transformers can be remapped at the same time
+            this.lock.readLock().lock();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        try {
+            return this.remapTransformer(transformerManager, target, transformer);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private ClassNode remapTransformer(final TransformerManager transformerManager, final ClassNode target, final ClassNode transformer) {
         List<AnnotationHolder> annotationsToRemap = new ArrayList<>();
         this.checkAnnotations(transformer, transformer.visibleAnnotations, annotationsToRemap);
         this.checkAnnotations(transformer, transformer.invisibleAnnotations, annotationsToRemap);
@@ -121,17 +236,19 @@ public abstract class AMapper {
             this.checkAnnotations(method, method.invisibleAnnotations, annotationsToRemap);
         }
         for (AnnotationHolder annotation : annotationsToRemap) {
-            Class<?> annotationClass;
+            CompiledAnnotation compiledAnnotation;
             try {
-                annotationClass = Class.forName(type(annotation.annotation.desc).getClassName());
-            } catch (ClassNotFoundException e) {
-                //In bytecode it is possible to add annotations that are not in the classpath
-                //If this is the case it can't be a ClassTransform annotation, so we can ignore it
-                continue;
+                compiledAnnotation = CompiledAnnotation.get(annotation.annotation.desc);
+            } catch (Throwable t) {
+                throw new RuntimeException("Unable to remap annotation '" + annotation.annotation.desc + "' from transformer '" + transformer.name + "'", t);
             }
+            //In bytecode it is possible to add annotations that are not in the classpath
+            //If this is the case it can't be a ClassTransform annotation, so we can ignore it
+            if (compiledAnnotation == null) continue;
+            if (compiledAnnotation.getAttributes().length == 0) continue;
             try {
                 Map<String, Object> annotationMap = AnnotationUtils.listToMap(annotation.annotation.values);
-                this.mapAnnotation(annotation.holder, annotationClass, annotationMap, transformerManager, target, transformer);
+                this.mapAnnotation(annotation.holder, compiledAnnotation, annotationMap, transformerManager, target, transformer);
                 annotation.annotation.values = AnnotationUtils.mapToList(annotationMap);
             } catch (ClassNotFoundException e) {
                 throw new RuntimeException("Unable to remap annotation '" + annotation.annotation.desc + "' from transformer '" + transformer.name + "'", e);
@@ -142,11 +259,33 @@ public abstract class AMapper {
     }
 
     /**
-     * Get the remapper used by this mapper.
+     * @return The config of this mapper
+     */
+    MapperConfig getConfig() {
+        return this.config;
+    }
+
+    /**
+     * Get the modification count of the remapper without the modifications made by filling super mappings.<br>
+     * Filling super mappings only adds missing mappings, the mappings a transformer needs are filled while it is remapped.
+     *
+     * @return The version of the mappings
+     */
+    int getMappingsVersion() {
+        //The fill count is read first, a fill in between only makes the version newer
+        int fillModifications = this.fillModifications;
+        return this.remapper.getModificationCount() - fillModifications;
+    }
+
+    /**
+     * Get the remapper used by this mapper.<br>
+     * Waits for the mappings to be loaded if they are loaded asynchronously.<br>
+     * The remapper is not thread-safe, don't modify it while transformers may be remapped by other threads.
      *
      * @return The remapper
      */
     public MapRemapper getRemapper() {
+        this.awaitLoad();
         return this.remapper;
     }
 
@@ -159,22 +298,49 @@ public abstract class AMapper {
     }
 
     protected List<String> readLines(final InputStream is) throws IOException {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
+        try (BufferedReader br = this.openReader(is)) {
             return br.lines().collect(Collectors.toList());
         }
     }
 
+    protected BufferedReader openReader(final InputStream is) {
+        return new BufferedReader(new InputStreamReader(is));
+    }
+
 
     private ClassTree getSuperMappingsTree(final TransformerManager transformerManager) {
-        if (!transformerManager.getClassTree().canTransform()) return transformerManager.getClassTree();
-        if (this.superMappingsTree == null) this.superMappingsTree = new ClassTree();
-        return this.superMappingsTree;
+        //Super mappings have to be filled using the original classes
+        return transformerManager.getClassTree().getUntransformedView();
+    }
+
+    @Nullable
+    private SuperMappingClosure getSuperMappingClosure(final TransformerManager transformerManager) {
+        if (!this.config.precomputeSuperMappings) return null;
+        SuperMappingClosure closure = this.superMappingClosure;
+        if (closure != null) return closure;
+        synchronized (this) {
+            if (this.superMappingClosure == null) {
+                if (this.config.superMappingsCache == null) closure = SuperMappingClosure.compute(this.remapper, transformerManager.getClassProvider());
+                else closure = SuperMappingClosure.load(this.config.superMappingsCache, this.remapper, transformerManager.getClassProvider());
+                closure.apply(this.remapper);
+                this.superMappingClosure = closure;
+            }
+            return this.superMappingClosure;
+        }
     }
 
     private void fillTransformerSuperMappings(final TransformerManager transformerManager, final ClassNode transformer) {
         if (!this.config.fillSuperMappings) return;
+        int modifications = this.remapper.getModificationCount();
         try {
-            SuperMappingFiller.fillTransformerSuperMembers(transformer, this.remapper, this.getSuperMappingsTree(transformerManager), transformerManager.getClassProvider());
+            SuperMappingClosure closure = this.getSuperMappingClosure(transformerManager);
+            if (closure == null) {
+                SuperMappingFiller.fillTransformerSuperMembers(transformer, this.remapper, this.getSuperMappingsTree(transformerManager), transformerManager.getClassProvider());
+            } else {
+                //Mapped classes already got their super mappings from the closure
+                SuperMappingFiller.fillTransformerSuperMembers(transformer, this.remapper, this.getSuperMappingsTree(transformerManager), transformerManager.getClassProvider(),
+                        className -> !closure.contains(this.remapper.mapSafe(className)));
+            }
         } catch (Throwable t) {
             if (FailStrategy.CONTINUE.equals(this.config.superMappingsFailStrategy)) {
                 Logger.warn("Unable to fill super mappings for class '{}'. Trying without", transformer.name, t);
@@ -183,12 +349,20 @@ public abstract class AMapper {
             } else if (FailStrategy.EXIT.equals(this.config.superMappingsFailStrategy)) {
                 System.exit(-1);
             }
+        } finally {
+            this.fillModifications += this.remapper.getModificationCount() - modifications;
         }
     }
 
     private void fillSuperMembers(final String className, final TransformerManager transformerManager) {
         if (!this.config.fillSuperMappings) return;
+        //Members are remapped under the read lock which can't be upgraded, it is released while filling
+        this.lock.readLock().unlock();
+        this.lock.writeLock().lock();
+        int modifications = this.remapper.getModificationCount();
         try {
+            SuperMappingClosure closure = this.getSuperMappingClosure(transformerManager);
+            if (closure != null && closure.contains(this.remapper.mapSafe(className))) return;
             SuperMappingFiller.fillSuperMembers(className, this.remapper, this.getSuperMappingsTree(transformerManager), transformerManager.getClassProvider());
         } catch (Throwable t) {
             if (FailStrategy.CONTINUE.equals(this.config.superMappingsFailStrategy)) {
@@ -198,59 +372,45 @@ public abstract class AMapper {
             } else if (FailStrategy.EXIT.equals(this.config.superMappingsFailStrategy)) {
                 System.exit(-1);
             }
+        } finally {
+            this.fillModifications += this.remapper.getModificationCount() - modifications;
+            this.lock.readLock().lock();
+            this.lock.writeLock().unlock();
         }
     }
 
-    private void mapAnnotation(final Object holder, final Class<?> annotation, final Map<String, Object> values, final TransformerManager transformerManager, final ClassNode target, final ClassNode transformer) throws ClassNotFoundException {
-        for (Method method : annotation.getDeclaredMethods()) {
-            AnnotationRemap remap = method.getDeclaredAnnotation(AnnotationRemap.class);
-            if (remap == null) continue;
+    private void mapAnnotation(final Object holder, final CompiledAnnotation compiledAnnotation, final Map<String, Object> values, final TransformerManager transformerManager, final ClassNode target, final ClassNode transformer) throws ClassNotFoundException {
+        Class<?> annotation = compiledAnnotation.getAnnotationClass();
+        for (CompiledAnnotation.Attribute attribute : compiledAnnotation.getAttributes()) {
+            Method method = attribute.getMethod();
+            AnnotationRemap remap = attribute.getRemap();
             RemapType remapType = remap.value();
-            if (remapType.equals(RemapType.DYNAMIC)) {
-                try {
-                    IDynamicRemapper dynamicRemapper = remap.dynamicRemapper().getDeclaredConstructor().newInstance();
-                    remapType = dynamicRemapper.dynamicRemap(this, annotation, values, method, transformerManager, target, transformer);
-                    if (remapType == null || remapType.equals(RemapType.DYNAMIC)) continue;
-                } catch (Throwable t) {
-                    throw new RuntimeException("Unable to create instance of dynamic remapper '" + remap.dynamicRemapper().getName() + "'", t);
-                }
+            if (attribute.getDynamicRemapper() != null) {
+                remapType = attribute.getDynamicRemapper().dynamicRemap(this, annotation, values, method, transformerManager, target, transformer);
+                if (remapType == null || remapType.equals(RemapType.DYNAMIC)) continue;
             }
             if (remapType.equals(RemapType.SHORT_MEMBER)) InfoFiller.fillInfo(this.remapper, holder, remap, method, values, target, transformer);
             if (this.remapper.isEmpty()) continue;
 
-            Object value = values.get(method.getName());
+            Object value = values.get(attribute.getName());
             if (value == null) continue;
 
             if (remapType.equals(RemapType.ANNOTATION)) {
                 if (value instanceof AnnotationNode) {
-                    AnnotationNode node = (AnnotationNode) value;
-                    Type type = Type.getType(node.desc);
-                    Map<String, Object> nodeMap = AnnotationUtils.listToMap(node.values);
-                    this.mapAnnotation(holder, Class.forName(type.getClassName()), nodeMap, transformerManager, target, transformer);
-                    node.values = AnnotationUtils.mapToList(nodeMap);
+                    this.mapAnnotationNode(holder, (AnnotationNode) value, transformerManager, target, transformer);
                 } else if (value instanceof AnnotationNode[]) {
                     AnnotationNode[] nodes = (AnnotationNode[]) value;
-                    for (AnnotationNode node : nodes) {
-                        Type type = Type.getType(node.desc);
-                        Map<String, Object> nodeMap = AnnotationUtils.listToMap(node.values);
-                        this.mapAnnotation(holder, Class.forName(type.getClassName()), nodeMap, transformerManager, target, transformer);
-                        node.values = AnnotationUtils.mapToList(nodeMap);
-                    }
+                    for (AnnotationNode node : nodes) this.mapAnnotationNode(holder, node, transformerManager, target, transformer);
                 } else if (value instanceof List) {
                     List<AnnotationNode> nodes = (List<AnnotationNode>) value;
-                    for (AnnotationNode node : nodes) {
-                        Type type = Type.getType(node.desc);
-                        Map<String, Object> nodeMap = AnnotationUtils.listToMap(node.values);
-                        this.mapAnnotation(holder, Class.forName(type.getClassName()), nodeMap, transformerManager, target, transformer);
-                        node.values = AnnotationUtils.mapToList(nodeMap);
-                    }
+                    for (AnnotationNode node : nodes) this.mapAnnotationNode(holder, node, transformerManager, target, transformer);
                 } else {
                     throw new IllegalStateException("Unexpected value type '" + value.getClass().getName() + "' for annotation '" + annotation.getName() + "' value '" + annotation.getName() + "'");
                 }
             } else {
                 if (value instanceof String) {
                     String s = (String) value;
-                    values.put(method.getName(), this.remap(remapType, s, transformerManager));
+                    values.put(attribute.getName(), this.remap(remapType, s, transformerManager));
                 } else if (value instanceof String[]) {
                     String[] strings = (String[]) value;
                     for (int i = 0; i < strings.length; i++) strings[i] = this.remap(remapType, strings[i], transformerManager);
@@ -265,6 +425,14 @@ public abstract class AMapper {
         }
     }
 
+    private void mapAnnotationNode(final Object holder, final AnnotationNode node, final TransformerManager transformerManager, final ClassNode target, final ClassNode transformer) throws ClassNotFoundException {
+        CompiledAnnotation compiledAnnotation = CompiledAnnotation.get(node.desc);
+        if (compiledAnnotation == null) throw new ClassNotFoundException(type(node.desc).getClassName());
+        Map<String, Object> nodeMap = AnnotationUtils.listToMap(node.values);
+        this.mapAnnotation(holder, compiledAnnotation, nodeMap, transformerManager, target, transformer);
+        node.values = AnnotationUtils.mapToList(nodeMap);
+    }
+
     private String remap(final RemapType type, String s, final TransformerManager transformerManager) {
         switch (type) {
             case SHORT_MEMBER:
@@ -0,0 +1,135 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.mappings.annotation.AnnotationRemap;
+import net.lenni0451.classtransform.mappings.annotation.RemapType;
+import net.lenni0451.classtransform.mappings.dynamic.IDynamicRemapper;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.lenni0451.classtransform.utils.Types.type;
+
+/**
+ * The remappable attributes of an annotation class.<br>
+ * Annotation classes are only resolved once. The reflection lookups and dynamic remapper instances are shared between all remapped transformers.
+ */
+@ParametersAreNonnullByDefault
+class CompiledAnnotation {
+
+    private static final CompiledAnnotation MISSING = new CompiledAnnotation(Object.class, new Attribute[0]);
+    private static final Map<String, CompiledAnnotation> CACHE = new ConcurrentHashMap<>();
+    private static final Map<Class<? extends IDynamicRemapper>, IDynamicRemapper> DYNAMIC_REMAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled annotation for the given descriptor.
+     *
+     * @param descriptor The descriptor of the annotation
+     * @return The compiled annotation or null if the annotation class could not be found
+     */
+    @Nullable
+    static CompiledAnnotation get(final String descriptor) {
+        CompiledAnnotation annotation = CACHE.get(descriptor);
+        if (annotation == null) {
+            annotation = compile(descriptor);
+            CompiledAnnotation current = CACHE.putIfAbsent(descriptor, annotation);
+            if (current != null) annotation = current;
+        }
+        return annotation == MISSING ? null : annotation;
+    }
+
+    private static CompiledAnnotation compile(final String descriptor) {
+        Class<?> annotationClass;
+        try {
+            annotationClass = Class.forName(type(descriptor).getClassName());
+        } catch (ClassNotFoundException e) {
+            return MISSING;
+        }
+
+        List<Attribute> attributes = new ArrayList<>();
+        for (Method method : annotationClass.getDeclaredMethods()) {
+            AnnotationRemap remap = method.getDeclaredAnnotation(AnnotationRemap.class);
+            if (remap == null) continue;
+            IDynamicRemapper dynamicRemapper = null;
+            if (remap.value().equals(RemapType.DYNAMIC)) dynamicRemapper = getDynamicRemapper(remap.dynamicRemapper());
+            attributes.add(new Attribute(method, remap, dynamicRemapper));
+        }
+        return new CompiledAnnotation(annotationClass, attributes.toArray(new Attribute[0]));
+    }
+
+    private static IDynamicRemapper getDynamicRemapper(final Class<? extends IDynamicRemapper> dynamicRemapperClass) {
+        IDynamicRemapper dynamicRemapper = DYNAMIC_REMAPPERS.get(dynamicRemapperClass);
+        if (dynamicRemapper != null) return dynamicRemapper;
+        try {
+            dynamicRemapper = dynamicRemapperClass.getDeclaredConstructor().newInstance();
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to create instance of dynamic remapper '" + dynamicRemapperClass.getName() + "'", t);
+        }
+        IDynamicRemapper current = DYNAMIC_REMAPPERS.putIfAbsent(dynamicRemapperClass, dynamicRemapper);
+        return current == null ? dynamicRemapper : current;
+    }
+
+
+    private final Class<?> annotationClass;
+    private final Attribute[] attributes;
+
+    private CompiledAnnotation(final Class<?> annotationClass, final Attribute[] attributes) {
+        this.annotationClass = annotationClass;
+        this.attributes = attributes;
+    }
+
+    /**
+     * @return The annotation class
+     */
+    Class<?> getAnnotationClass() {
+        return this.annotationClass;
+    }
+
+    /**
+     * @return The attributes marked with {@link AnnotationRemap}
+     */
+    Attribute[] getAttributes() {
+        return this.attributes;
+    }
+
+
+    static class Attribute {
+        private final Method method;
+        private final String name;
+        private final AnnotationRemap remap;
+        @Nullable
+        private final IDynamicRemapper dynamicRemapper;
+
+        private Attribute(final Method method, final AnnotationRemap remap, @Nullable final IDynamicRemapper dynamicRemapper) {
+            this.method = method;
+            this.name = method.getName();
+            this.remap = remap;
+            this.dynamicRemapper = dynamicRemapper;
+        }
+
+        Method getMethod() {
+            return this.method;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        AnnotationRemap getRemap() {
+            return this.remap;
+        }
+
+        /**
+         * @return The shared dynamic remapper instance if the remap type is {@link RemapType#DYNAMIC}
+         */
+        @Nullable
+        IDynamicRemapper getDynamicRemapper() {
+            return this.dynamicRemapper;
+        }
+    }
+
+}
@@ -84,12 +84,9 @@ class InfoFiller {
                 if (methodNode == null) throw new MethodNotFoundException(target, transformer, mappedMethodName + mappedMethodDesc);
                 names.add(methodNode.name + methodNode.desc);
             } else { //If no descriptor is available, remap the method name and get all available mappings for that name
-                String partialMapping = originalTarget + "." + current + "("; //The start of a method mapping
-                List<String> partialMappings = remapper.getStartingMappings(partialMapping);
-                for (String mapping : partialMappings) {
-                    String unmappedMethodDesc = mapping.substring(partialMapping.length() - 1);
-                    String mappedMethodName = remapper.map(mapping);
-                    String mappedMethodDesc = remapper.mapMethodDesc(unmappedMethodDesc);
+                for (Map.Entry<String, String> mapping : remapper.getMethodMappings(originalTarget, current).entrySet()) {
+                    String mappedMethodName = mapping.getValue();
+                    String mappedMethodDesc = remapper.mapMethodDesc(mapping.getKey());
 
                     //Verify that the remapped method actually exists
                     MethodNode methodNode = ASMUtils.getMethod(target, mappedMethodName, mappedMethodDesc);
@@ -139,11 +136,9 @@ class InfoFiller {
                 if (fieldNode == null) throw new FieldNotFoundException(target, transformer, mappedFieldName + ":" + mappedDescriptor);
                 names.add(fieldNode.name + ":" + fieldNode.desc);
             } else { //If no descriptor is available, remap the field name and get all available mappings for that name
-                String partialMapping = originalTarget + "." + current + ":";
-                List<String> partialMappings = remapper.getStartingMappings(partialMapping);
-                for (String mapping : partialMappings) {
-                    String unmappedDescriptor = mapping.substring(partialMapping.length());
-                    String mappedFieldName = remapper.map(mapping);
+                for (Map.Entry<String, String> mapping : remapper.getFieldMappings(originalTarget, current).entrySet()) {
+                    String unmappedDescriptor = mapping.getKey();
+                    String mappedFieldName = mapping.getValue();
                     String mappedDescriptor = null;
                     if (!unmappedDescriptor.isEmpty()) mappedDescriptor = remapper.mapDesc(unmappedDescriptor);
 
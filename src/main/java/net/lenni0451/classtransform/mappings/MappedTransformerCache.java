@@ -0,0 +1,131 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.SymbolTable;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+
+/**
+ * A cache for transformers remapped and filled by {@link AMapper#mapClass(TransformerManager, ClassNode, ClassNode)}.<br>
+ * Entries are keyed by the identity of the transformer node and the name of the target class.<br>
+ * Transformer nodes are referenced weakly and only the {@value #MAX_TARGETS} most recently used targets are cached per transformer.<br>
+ * <br>
+ * A cached entry is only reused if:
+ * <ul>
+ *     <li>the mappings were not modified since the entry was created (see {@link net.lenni0451.classtransform.utils.mappings.MapRemapper#getModificationCount()}), super mappings filled while remapping other transformers are ignored</li>
+ *     <li>the target class still has the same methods and fields (name and descriptor)</li>
+ * </ul>
+ * Everything else the remapping depends on has to be invalidated manually using {@link #invalidate(String)} or {@link #invalidateAll()}.<br>
+ * The {@link TransformerManager} does this when a transformer is added or hotswapped and when an injection target is added.<br>
+ * The returned transformer is always a copy which can be modified freely.
+ */
+@ParametersAreNonnullByDefault
+public class MappedTransformerCache {
+
+    private static final int MAX_TARGETS = 256;
+
+    private final TransformerManager transformerManager;
+    private final Map<ClassNode, Map<String, Entry>> entries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public MappedTransformerCache(final TransformerManager transformerManager) {
+        this.transformerManager = transformerManager;
+    }
+
+    /**
+     * Get the remapped and filled copy of the transformer for the given target.<br>
+     * The transformer is remapped if there is no valid cached entry.
+     *
+     * @param target      The target class node
+     * @param transformer The transformer class node
+     * @return A copy of the remapped transformer
+     */
+    public ClassNode get(final ClassNode target, final ClassNode transformer) {
+        AMapper mapper = this.transformerManager.getMapper();
+        if (!mapper.getConfig().cacheTransformers) return mapper.mapClass(this.transformerManager, target, ASMUtils.cloneClass(transformer));
+
+        Map<String, Entry> targets = this.entries.computeIfAbsent(transformer, t -> Collections.synchronizedMap(new TargetMap()));
+        Entry entry = targets.get(target.name);
+        int version = mapper.getMappingsVersion();
+        if (entry == null || entry.version != version || !entry.matches(target)) {
+            //The version is read before remapping, changes made in the meantime invalidate the entry
+            ClassNode mappedTransformer = SymbolTable.intern(mapper.mapClass(this.transformerManager, target, ASMUtils.cloneClass(transformer)));
+            entry = new Entry(mappedTransformer, target, version);
+            targets.put(target.name, entry);
+        }
+        return ASMUtils.cloneClass(entry.mappedTransformer);
+    }
+
+    /**
+     * Remove all cached entries of transformers with the given name.<br>
+     * The name must be separated by slashes.
+     *
+     * @param transformerName The name of the transformer
+     */
+    public void invalidate(final String transformerName) {
+        this.entries.keySet().removeIf(transformer -> transformer.name.equals(transformerName));
+    }
+
+    /**
+     * Remove all cached entries.
+     */
+    public void invalidateAll() {
+        this.entries.clear();
+    }
+
+
+    private static class TargetMap extends LinkedHashMap<String, Entry> {
+        private TargetMap() {
+            super(16, 0.75F, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+            return this.size() > MAX_TARGETS;
+        }
+    }
+
+    private static class Entry {
+        private final ClassNode mappedTransformer;
+        private final String[] methods;
+        private final String[] fields;
+        private final int version;
+
+        private Entry(final ClassNode mappedTransformer, final ClassNode target, final int version) {
+            this.mappedTransformer = mappedTransformer;
+            this.methods = new String[target.methods.size() * 2];
+            this.fields = new String[target.fields.size() * 2];
+            this.version = version;
+            for (int i = 0; i < target.methods.size(); i++) {
+                MethodNode method = target.methods.get(i);
+                this.methods[i * 2] = method.name;
+                this.methods[i * 2 + 1] = method.desc;
+            }
+            for (int i = 0; i < target.fields.size(); i++) {
+                FieldNode field = target.fields.get(i);
+                this.fields[i * 2] = field.name;
+                this.fields[i * 2 + 1] = field.desc;
+            }
+        }
+
+        private boolean matches(final ClassNode target) {
+            List<MethodNode> methods = target.methods;
+            List<FieldNode> fields = target.fields;
+            if (methods.size() * 2 != this.methods.length || fields.size() * 2 != this.fields.length) return false;
+            for (int i = 0; i < methods.size(); i++) {
+                MethodNode method = methods.get(i);
+                if (!method.name.equals(this.methods[i * 2]) || !method.desc.equals(this.methods[i * 2 + 1])) return false;
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                FieldNode field = fields.get(i);
+                if (!field.name.equals(this.fields[i * 2]) || !field.desc.equals(this.fields[i * 2 + 1])) return false;
+            }
+            return true;
+        }
+    }
+
+}
@@ -3,6 +3,8 @@ package net.lenni0451.classtransform.mappings;
 import net.lenni0451.classtransform.utils.FailStrategy;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
 
 /**
  * A config to modify the behavior of an {@link AMapper}.
@@ -16,7 +18,12 @@ public class MapperConfig {
 
     protected boolean fillSuperMappings = false;
     protected FailStrategy superMappingsFailStrategy;
+    protected boolean precomputeSuperMappings = false;
+    @Nullable
+    protected File superMappingsCache;
     protected boolean remapTransformer = false;
+    protected boolean cacheTransformers = false;
+    protected boolean loadAsync = true;
 
     private MapperConfig() {
     }
@@ -46,6 +53,35 @@ public class MapperConfig {
         return this;
     }
 
+    /**
+     * Compute the super mappings of all mapped classes at once before the first transformer is remapped.<br>
+     * The class hierarchy is walked in parallel. Only has an effect if {@link #fillSuperMappings(boolean)} is enabled.
+     *
+     * @param precomputeSuperMappings If all super mappings should be computed at once (default: false)
+     * @return This config
+     * @see net.lenni0451.classtransform.utils.mappings.SuperMappingClosure
+     */
+    public MapperConfig precomputeSuperMappings(final boolean precomputeSuperMappings) {
+        this.precomputeSuperMappings = precomputeSuperMappings;
+        this.superMappingsCache = null;
+        return this;
+    }
+
+    /**
+     * Compute the super mappings of all mapped classes at once and store them in the given cache file.<br>
+     * The cache file is reused as long as the mappings and the hierarchy classes provided by the class provider do not change.<br>
+     * Only has an effect if {@link #fillSuperMappings(boolean)} is enabled.
+     *
+     * @param superMappingsCache The cache file for the super mappings
+     * @return This config
+     * @see net.lenni0451.classtransform.utils.mappings.SuperMappingClosure
+     */
+    public MapperConfig precomputeSuperMappings(final File superMappingsCache) {
+        this.precomputeSuperMappings = true;
+        this.superMappingsCache = superMappingsCache;
+        return this;
+    }
+
     /**
      * Remap the transformer class to match the transformed class.<br>
      * This can be used if the transformer is made using a remapped class which is still obfuscated during runtime.
@@ -58,4 +94,31 @@ public class MapperConfig {
         return this;
     }
 
+    /**
+     * Cache the remapped and filled transformer for every target class.<br>
+     * A cached transformer is reused as long as the mappings and the members of the target class did not change.<br>
+     * This is useful if classes are retransformed often, e.g. when hotswapping transformers while remapping them.<br>
+     * Don't enable this if a custom dynamic remapper or injection target depends on more than the members of the target class.
+     *
+     * @param cacheTransformers If remapped transformers should be cached (default: false)
+     * @return This config
+     * @see MappedTransformerCache
+     */
+    public MapperConfig cacheTransformers(final boolean cacheTransformers) {
+        this.cacheTransformers = cacheTransformers;
+        return this;
+    }
+
+    /**
+     * Load the mappings on a background thread when the {@link net.lenni0451.classtransform.TransformerManager} is created.<br>
+     * The mappings are awaited when they are needed for the first time (e.g. when a transformer is added).
+     *
+     * @param loadAsync If the mappings should be loaded asynchronously (default: true)
+     * @return This config
+     */
+    public MapperConfig loadAsync(final boolean loadAsync) {
+        this.loadAsync = loadAsync;
+        return this;
+    }
+
 }
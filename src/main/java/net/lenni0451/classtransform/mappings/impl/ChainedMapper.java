@@ -0,0 +1,136 @@
+package net.lenni0451.classtransform.mappings.impl;
+
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.utils.Sneaky;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A remapper that chains multiple mappers (e.g. obfuscated -> intermediary -> named).<br>
+ * The output names of every mapper have to be the input names of the next mapper.<br>
+ * All mappers are loaded in parallel and flattened into a single remapper, so a lookup only has to check one table.
+ */
+@ParametersAreNonnullByDefault
+public class ChainedMapper extends AMapper {
+
+    private final List<AMapper> mappers;
+
+    public ChainedMapper(final MapperConfig config, final AMapper... mappers) {
+        this(config, Arrays.asList(mappers));
+    }
+
+    /**
+     * @param config  The config of this mapper
+     * @param mappers The mappers to chain in the order they should be applied
+     * @throws IllegalArgumentException If no mappers are given
+     */
+    public ChainedMapper(final MapperConfig config, final List<AMapper> mappers) {
+        super(config);
+        if (mappers.isEmpty()) throw new IllegalArgumentException("At least one mapper is required");
+        this.mappers = new ArrayList<>(mappers);
+    }
+
+    @Override
+    protected void init() throws Throwable {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (AMapper mapper : this.mappers) futures.add(CompletableFuture.runAsync(mapper::load));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() != null) Sneaky.sneakyThrow(e.getCause());
+            throw e;
+        }
+
+        MapRemapper chained = this.mappers.get(0).getRemapper();
+        for (int i = 1; i < this.mappers.size(); i++) chained = chain(chained, this.mappers.get(i).getRemapper());
+        this.remapper.copy(chained);
+    }
+
+    /**
+     * Combine two remappers into one.<br>
+     * The keys of the combined remapper use the input names of the first remapper and the targets use the output names of the second remapper.
+     *
+     * @param first  The first remapper
+     * @param second The second remapper
+     * @return The combined remapper
+     */
+    public static MapRemapper chain(final MapRemapper first, final MapRemapper second) {
+        MapRemapper chained = new MapRemapper();
+        Map<String, String> others = new HashMap<>();
+        //Follow all mappings of the first remapper through the second one
+        for (Map.Entry<String, String> entry : first.getMappings().entrySet()) {
+            String key = entry.getKey();
+            String target = entry.getValue();
+            int dot = key.indexOf('.');
+            if (dot == -1) {
+                chained.addClassMapping(key, second.mapType(target));
+                continue;
+            }
+
+            String owner = key.substring(0, dot);
+            int colon = key.indexOf(':', dot + 1);
+            int bracket = key.indexOf('(', dot + 1);
+            if (colon != -1 && (bracket == -1 || colon < bracket)) {
+                String desc = key.substring(colon + 1);
+                String mappedDesc = desc.isEmpty() ? desc : first.mapDesc(desc);
+                chained.addFieldMapping(owner, key.substring(dot + 1, colon), desc, second.mapFieldName(first.mapType(owner), target, mappedDesc));
+            } else if (bracket != -1) {
+                String desc = key.substring(bracket);
+                chained.addMethodMapping(owner, key.substring(dot + 1, bracket), desc, second.mapMethodName(first.mapType(owner), target, first.mapMethodDesc(desc)));
+            } else {
+                //Annotation attribute names use the annotation descriptor as owner
+                others.put(key, second.mapAnnotationAttributeName(first.mapDesc(owner), target));
+            }
+        }
+
+        //Add the mappings which only exist in the second remapper
+        MapRemapper reverse = first.reverse();
+        for (Map.Entry<String, String> entry : second.getMappings().entrySet()) {
+            String key = entry.getKey();
+            String target = entry.getValue();
+            int dot = key.indexOf('.');
+            if (dot == -1) {
+                String source = reverse.mapType(key);
+                //The name is not reachable if the first remapper maps it to a different name
+                if (first.mapType(source).equals(key)) chained.addClassMapping(source, target, true);
+                continue;
+            }
+
+            String owner = key.substring(0, dot);
+            int colon = key.indexOf(':', dot + 1);
+            int bracket = key.indexOf('(', dot + 1);
+            if (colon == -1 && bracket == -1) {
+                others.putIfAbsent(reverse.mapDesc(owner) + key.substring(dot), target);
+                continue;
+            }
+            String sourceOwner = reverse.mapType(owner);
+            if (!first.mapType(sourceOwner).equals(owner)) continue;
+            if (colon != -1 && (bracket == -1 || colon < bracket)) {
+                String name = key.substring(dot + 1, colon);
+                String desc = key.substring(colon + 1);
+                String sourceDesc = desc.isEmpty() ? desc : reverse.mapDesc(desc);
+                //The descriptor is not reachable if the first remapper maps one of its classes to a different name
+                if (!desc.isEmpty() && !first.mapDesc(sourceDesc).equals(desc)) continue;
+                chained.addFieldMapping(sourceOwner, reverse.mapFieldName(owner, name, desc), sourceDesc, target, true);
+            } else {
+                String name = key.substring(dot + 1, bracket);
+                String desc = key.substring(bracket);
+                String sourceDesc = reverse.mapMethodDesc(desc);
+                if (!first.mapMethodDesc(sourceDesc).equals(desc)) continue;
+                chained.addMethodMapping(sourceOwner, reverse.mapMethodName(owner, name, desc), sourceDesc, target, true);
+            }
+        }
+        if (!others.isEmpty()) chained.copy(new MapRemapper(others));
+        return chained;
+    }
+
+}
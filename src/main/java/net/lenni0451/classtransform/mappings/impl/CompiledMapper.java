@@ -0,0 +1,67 @@
+package net.lenni0451.classtransform.mappings.impl;
+
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.utils.mappings.CompiledMapRemapper;
+import net.lenni0451.classtransform.utils.mappings.CompiledMappings;
+import net.lenni0451.classtransform.utils.mappings.MappingsCompiler;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+
+/**
+ * A remapper that uses a compiled mappings file created by the {@link MappingsCompiler} for remapping.<br>
+ * The file is memory mapped and mappings are resolved lazily, so loading time and heap usage do not depend on the size of the mappings.
+ */
+@ParametersAreNonnullByDefault
+public class CompiledMapper extends AMapper {
+
+    private final File mappingsFile;
+    @Nullable
+    private final String from;
+    @Nullable
+    private final String to;
+
+    /**
+     * Use the {@link MappingsCompiler#DEFAULT_TABLE} or the only table of the file.
+     *
+     * @param config       The config of this mapper
+     * @param mappingsFile The compiled mappings file
+     */
+    public CompiledMapper(final MapperConfig config, final File mappingsFile) {
+        this(config, mappingsFile, null, null);
+    }
+
+    /**
+     * Use the table mapping from one namespace to another.<br>
+     * See {@link MappingsCompiler#compileTinyV2(File, File)} for compiling all namespaces of tiny v2 mappings.
+     *
+     * @param config       The config of this mapper
+     * @param mappingsFile The compiled mappings file
+     * @param from         The namespace to map from
+     * @param to           The namespace to map to
+     */
+    public CompiledMapper(final MapperConfig config, final File mappingsFile, @Nullable final String from, @Nullable final String to) {
+        super(config, new CompiledMapRemapper());
+        this.mappingsFile = mappingsFile;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void init() throws Throwable {
+        CompiledMappings mappings = CompiledMappings.open(this.mappingsFile);
+        CompiledMappings.Table table;
+        if (this.from != null && this.to != null) {
+            table = mappings.getTable(this.from, this.to);
+            if (table == null) throw new IllegalArgumentException("Unable to find mappings from '" + this.from + "' to '" + this.to + "'");
+        } else {
+            table = mappings.getTable(MappingsCompiler.DEFAULT_TABLE);
+            if (table == null && mappings.getTableNames().size() == 1) table = mappings.getTable(mappings.getTableNames().iterator().next());
+            if (table == null) throw new IllegalArgumentException("Unable to find default mappings table");
+        }
+        ((CompiledMapRemapper) this.remapper).setTable(table);
+    }
+
+}
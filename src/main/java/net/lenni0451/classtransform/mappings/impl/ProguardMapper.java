@@ -3,14 +3,16 @@ package net.lenni0451.classtransform.mappings.impl;
 import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.MapperConfig;
 import net.lenni0451.classtransform.utils.IOSupplier;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.mappings.MappingsReader;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.annotation.WillClose;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static net.lenni0451.classtransform.utils.ASMUtils.slash;
 
@@ -20,10 +22,6 @@ import static net.lenni0451.classtransform.utils.ASMUtils.slash;
 @ParametersAreNonnullByDefault
 public class ProguardMapper extends AMapper {
 
-    private static final String CLASS_LINE = "^([^ ]+) ?-> ?([^ ]+):$";
-    private static final String METHOD_LINE = "^ {4}(\\d+:|)+([^ ]+) ([^ ()]+)(\\([^ ()]*\\))(:\\d+|)+ ?-> ?(.+)$";
-    private static final String FIELD_LINE = "^ {4}([^ ]+) ([^ (]+) ?-> ?(.+)$";
-
     private final IOSupplier<InputStream> mappingsSupplier;
 
     public ProguardMapper(final MapperConfig config, @WillClose final InputStream mappingsStream) {
@@ -38,108 +36,176 @@ public class ProguardMapper extends AMapper {
 
     @Override
     protected void init() throws Throwable {
-        String currentClass = null;
-        for (String line : this.readLines(this.mappingsSupplier.get())) {
-            if (line.trim().isEmpty() || line.startsWith("#")) continue;
-
-            String error = null;
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    currentClass = slash(m.group(1));
-                    String newName = slash(m.group(2));
-
-                    if (currentClass.equals(newName)) continue;
-                    this.remapper.addClassMapping(currentClass, newName);
-                } else {
-                    error = "Could not parse class line: " + line;
-                }
-            } else if (line.matches(METHOD_LINE)) {
-                if (currentClass == null) {
-                    error = "Method line without class: " + line;
-                } else {
-                    Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
-                    if (m.find()) {
-                        String returnType = this.typeToInternal(m.group(2));
-                        String name = m.group(3);
-                        String descriptor = this.descriptorToInternal(m.group(4));
-                        String newName = m.group(6);
-
-                        if (name.equals(newName)) continue;
-                        this.remapper.addMethodMapping(currentClass, name, descriptor + returnType, newName);
-                    } else {
-                        error = "Could not parse method line: " + line;
-                    }
-                }
-            } else if (line.matches(FIELD_LINE)) {
-                if (currentClass == null) {
-                    error = "Field line without class: " + line;
-                } else {
-                    Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
-                    if (m.find()) {
-                        String descriptor = this.typeToInternal(m.group(1));
-                        String name = m.group(2);
-                        String newName = m.group(3);
-
-                        if (name.equals(newName)) continue;
-                        this.remapper.addFieldMapping(currentClass, name, descriptor, newName);
-                    } else {
-                        error = "Could not parse field line: " + line;
-                    }
-                }
+        try (BufferedReader reader = this.openReader(this.mappingsSupplier.get())) {
+            new MappingsReader<>(ParseContext::new, this::parseLine, (main, chunk) -> main.remapper.copy(chunk.remapper))
+                    .chunkStart(line -> !line.isEmpty() && line.charAt(0) != ' ' && line.charAt(0) != '#')
+                    .read(reader, new ParseContext(this.remapper));
+        }
+    }
+
+    private void parseLine(final ParseContext context, final String line) {
+        if (line.startsWith("#") || line.trim().isEmpty()) return;
+
+        if (line.charAt(0) != ' ') {
+            int arrow = line.indexOf("->");
+            if (arrow == -1 || !line.endsWith(":")) throw new IllegalStateException("Unknown line: " + line);
+            String name = token(line, 0, arrow, true);
+            String newName = token(line, arrow + 2, line.length() - 1, false);
+            if (name == null || newName == null) throw new IllegalStateException("Could not parse class line: " + line);
+
+            context.currentClass = slash(name);
+            newName = slash(newName);
+            if (!context.currentClass.equals(newName)) context.remapper.addClassMapping(context.currentClass, newName);
+        } else if (line.startsWith("    ")) {
+            int arrow = line.indexOf("->");
+            if (arrow == -1) throw new IllegalStateException("Unknown line: " + line);
+            int end = arrow > 4 && line.charAt(arrow - 1) == ' ' ? arrow - 1 : arrow;
+            int newNameStart = arrow + 2 < line.length() && line.charAt(arrow + 2) == ' ' ? arrow + 3 : arrow + 2;
+            if (newNameStart >= line.length()) throw new IllegalStateException("Unknown line: " + line);
+            String newName = line.substring(newNameStart);
+
+            int descriptorStart = line.indexOf('(', 4);
+            if (descriptorStart != -1 && descriptorStart < end) {
+                if (context.currentClass == null) throw new IllegalStateException("Method line without class: " + line);
+                this.parseMethod(context, line, end, descriptorStart, newName);
             } else {
-                error = "Unknown line: " + line;
+                if (context.currentClass == null) throw new IllegalStateException("Field line without class: " + line);
+                this.parseField(context, line, end, newName);
             }
+        } else {
+            throw new IllegalStateException("Unknown line: " + line);
+        }
+    }
 
-            if (error != null) throw new IllegalStateException(error);
+    private void parseMethod(final ParseContext context, final String line, final int end, final int descriptorStart, final String newName) {
+        //Skip the optional line numbers in front of the return type
+        int start = 4;
+        while (true) {
+            int i = start;
+            while (i < end && line.charAt(i) >= '0' && line.charAt(i) <= '9') i++;
+            if (i == start || i >= end || line.charAt(i) != ':') break;
+            start = i + 1;
+        }
+        int space = line.indexOf(' ', start);
+        int descriptorEnd = line.indexOf(')', descriptorStart);
+        if (space == -1 || space == start || space + 1 >= descriptorStart || descriptorEnd == -1 || descriptorEnd >= end) {
+            throw new IllegalStateException("Could not parse method line: " + line);
         }
+        for (int i = space + 1; i < descriptorEnd; i++) {
+            if (line.charAt(i) == ' ') throw new IllegalStateException("Could not parse method line: " + line);
+        }
+        //Skip the optional original line numbers after the descriptor
+        for (int i = descriptorEnd + 1; i < end; i++) {
+            char c = line.charAt(i);
+            if (c != ':' && (c < '0' || c > '9')) throw new IllegalStateException("Could not parse method line: " + line);
+        }
+
+        String name = line.substring(space + 1, descriptorStart);
+        if (name.equals(newName)) return;
+        String returnType = this.typeToInternal(line, start, space);
+        String descriptor = this.descriptorToInternal(line, descriptorStart + 1, descriptorEnd);
+        context.remapper.addMethodMapping(context.currentClass, name, descriptor + returnType, newName);
     }
 
-    private String typeToInternal(String type) {
-        String arrayCount = "";
-        while (type.endsWith("[]")) {
-            arrayCount += "[";
-            type = type.substring(0, type.length() - 2);
+    private void parseField(final ParseContext context, final String line, final int end, final String newName) {
+        int space = line.indexOf(' ', 4);
+        if (space == -1 || space == 4 || space + 1 >= end) throw new IllegalStateException("Could not parse field line: " + line);
+        for (int i = space + 1; i < end; i++) {
+            if (line.charAt(i) == ' ') throw new IllegalStateException("Could not parse field line: " + line);
         }
 
+        String name = line.substring(space + 1, end);
+        if (name.equals(newName)) return;
+        String descriptor = this.typeToInternal(line, 4, space);
+        context.remapper.addFieldMapping(context.currentClass, name, descriptor, newName);
+    }
+
+    private String typeToInternal(final String line, final int start, int end) {
+        StringBuilder out = new StringBuilder();
+        while (end - start >= 2 && line.charAt(end - 2) == '[' && line.charAt(end - 1) == ']') {
+            out.append('[');
+            end -= 2;
+        }
+
+        String type = line.substring(start, end);
         switch (type) {
             case "int":
-                return arrayCount + "I";
+                return out.append('I').toString();
 
             case "float":
-                return arrayCount + "F";
+                return out.append('F').toString();
 
             case "double":
-                return arrayCount + "D";
+                return out.append('D').toString();
 
             case "long":
-                return arrayCount + "J";
+                return out.append('J').toString();
 
             case "boolean":
-                return arrayCount + "Z";
+                return out.append('Z').toString();
 
             case "short":
-                return arrayCount + "S";
+                return out.append('S').toString();
 
             case "byte":
-                return arrayCount + "B";
+                return out.append('B').toString();
+
+            case "char":
+                return out.append('C').toString();
 
             case "void":
-                return arrayCount + "V";
+                return out.append('V').toString();
 
             default:
-                return arrayCount + "L" + slash(type) + ";";
+                return out.append('L').append(slash(type)).append(';').toString();
+        }
+    }
+
+    private String descriptorToInternal(final String line, final int start, final int end) {
+        StringBuilder out = new StringBuilder("(");
+        int partStart = start;
+        while (partStart < end) {
+            int partEnd = line.indexOf(',', partStart);
+            if (partEnd == -1 || partEnd > end) partEnd = end;
+            out.append(this.typeToInternal(line, partStart, partEnd));
+            partStart = partEnd + 1;
+        }
+        return out.append(')').toString();
+    }
+
+    /**
+     * Get a token without spaces from a line.<br>
+     * A single space between the token and the bounds is allowed.
+     *
+     * @param line          The line
+     * @param start         The start index
+     * @param end           The end index
+     * @param trailingSpace If the allowed space is at the end instead of the start
+     * @return The token or null if it is empty or contains spaces
+     */
+    @Nullable
+    private static String token(final String line, int start, int end, final boolean trailingSpace) {
+        if (trailingSpace && end > start && line.charAt(end - 1) == ' ') end--;
+        else if (!trailingSpace && start < end && line.charAt(start) == ' ') start++;
+        if (start >= end) return null;
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == ' ') return null;
         }
+        return line.substring(start, end);
     }
 
-    private String descriptorToInternal(String descriptor) {
-        descriptor = descriptor.substring(1, descriptor.length() - 1);
-        if (descriptor.isEmpty()) return "()";
 
-        String[] parts = descriptor.split(",");
-        String out = "";
-        for (String part : parts) out += this.typeToInternal(part);
-        return "(" + out + ")";
+    private static class ParseContext {
+        private final MapRemapper remapper;
+        private String currentClass;
+
+        private ParseContext() {
+            this(new MapRemapper());
+        }
+
+        private ParseContext(final MapRemapper remapper) {
+            this.remapper = remapper;
+        }
     }
 
 }
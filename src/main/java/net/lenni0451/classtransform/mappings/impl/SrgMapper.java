@@ -3,14 +3,15 @@ package net.lenni0451.classtransform.mappings.impl;
 import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.MapperConfig;
 import net.lenni0451.classtransform.utils.IOSupplier;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.mappings.MappingsReader;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.annotation.WillClose;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A remapper that uses srg mappings for remapping.
@@ -18,10 +19,6 @@ import java.util.regex.Pattern;
 @ParametersAreNonnullByDefault
 public class SrgMapper extends AMapper {
 
-    private static final String CLASS_LINE = "^CL: (\\S+) (\\S+)$";
-    private static final String FIELD_LINE = "^FD: (\\S+)/(\\S+) (\\S+)/(\\S+)$";
-    private static final String METHOD_LINE = "^MD: (\\S+)/(\\S+) (\\(\\S*\\)\\S+) (\\S+)/(\\S+) (\\(\\S*\\)\\S+)$";
-
     private final IOSupplier<InputStream> mappingsSupplier;
 
     public SrgMapper(final MapperConfig config, @WillClose final InputStream mappingsStream) {
@@ -36,49 +33,69 @@ public class SrgMapper extends AMapper {
 
     @Override
     protected void init() throws Throwable {
-        for (String line : this.readLines(this.mappingsSupplier.get())) {
-            if (line.trim().isEmpty()) continue;
-
-            String error = null;
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    String obfName = m.group(1);
-                    String deobfName = m.group(2);
+        try (BufferedReader reader = this.openReader(this.mappingsSupplier.get())) {
+            new MappingsReader<>(MapRemapper::new, this::parseLine, MapRemapper::copy).read(reader, this.remapper);
+        }
+    }
 
-                    this.remapper.addClassMapping(obfName, deobfName);
-                } else {
-                    error = "Could not parse class line: " + line;
-                }
-            } else if (line.matches(FIELD_LINE)) {
-                Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
-                if (m.find()) {
-                    String obfOwner = m.group(1);
-                    String obfName = m.group(2);
-                    String deobfName = m.group(4);
+    private void parseLine(final MapRemapper remapper, final String line) {
+        if (line.trim().isEmpty()) return;
 
-                    this.remapper.addFieldMapping(obfOwner, obfName, deobfName);
-                } else {
-                    error = "Could not parse field line: " + line;
-                }
-            } else if (line.matches(METHOD_LINE)) {
-                Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
-                if (m.find()) {
-                    String obfOwner = m.group(1);
-                    String obfName = m.group(2);
-                    String obfDesc = m.group(3);
-                    String deobfName = m.group(5);
+        String[] parts = new String[5];
+        int count = split(line, parts);
+        if (count == 3 && parts[0].equals("CL:")) {
+            remapper.addClassMapping(parts[1], parts[2]);
+        } else if (count == 3 && parts[0].equals("FD:")) {
+            int obfSlash = parts[1].lastIndexOf('/');
+            int deobfSlash = parts[2].lastIndexOf('/');
+            if (obfSlash <= 0 || obfSlash == parts[1].length() - 1 || deobfSlash <= 0 || deobfSlash == parts[2].length() - 1) {
+                throw new IllegalStateException("Could not parse field line: " + line);
+            }
+            String obfOwner = parts[1].substring(0, obfSlash);
+            String obfName = parts[1].substring(obfSlash + 1);
+            String deobfName = parts[2].substring(deobfSlash + 1);
 
-                    this.remapper.addMethodMapping(obfOwner, obfName, obfDesc, deobfName);
-                } else {
-                    error = "Could not parse method line: " + line;
-                }
-            } else {
-                error = "Unknown line: " + line;
+            remapper.addFieldMapping(obfOwner, obfName, deobfName);
+        } else if (count == 5 && parts[0].equals("MD:")) {
+            int obfSlash = parts[1].lastIndexOf('/');
+            int deobfSlash = parts[3].lastIndexOf('/');
+            if (obfSlash <= 0 || obfSlash == parts[1].length() - 1 || deobfSlash <= 0 || deobfSlash == parts[3].length() - 1
+                    || !isMethodDescriptor(parts[2]) || !isMethodDescriptor(parts[4])) {
+                throw new IllegalStateException("Could not parse method line: " + line);
             }
+            String obfOwner = parts[1].substring(0, obfSlash);
+            String obfName = parts[1].substring(obfSlash + 1);
+            String deobfName = parts[3].substring(deobfSlash + 1);
 
-            if (error != null) throw new IllegalStateException(error);
+            remapper.addMethodMapping(obfOwner, obfName, parts[2], deobfName);
+        } else {
+            throw new IllegalStateException("Unknown line: " + line);
         }
     }
 
+    /**
+     * Split a line at every space.<br>
+     * Empty tokens and tokens which do not fit into the parts array make the line invalid.
+     *
+     * @param line  The line to split
+     * @param parts The array to store the tokens in
+     * @return The amount of tokens or -1 if the line is invalid
+     */
+    private static int split(final String line, final String[] parts) {
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i != line.length() && line.charAt(i) != ' ') continue;
+            if (i == start || count == parts.length) return -1;
+            parts[count++] = line.substring(start, i);
+            start = i + 1;
+        }
+        return count;
+    }
+
+    private static boolean isMethodDescriptor(final String descriptor) {
+        int end = descriptor.indexOf(')');
+        return descriptor.charAt(0) == '(' && end != -1 && end < descriptor.length() - 1;
+    }
+
 }
@@ -4,9 +4,12 @@ import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.MapperConfig;
 import net.lenni0451.classtransform.utils.IOSupplier;
 import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.mappings.MappingsReader;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.annotation.WillClose;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -41,70 +44,135 @@ public class TinyV2Mapper extends AMapper {
 
     @Override
     protected void init() throws Throwable {
-        MapRemapper descriptorRemapper = new MapRemapper();
-        List<TempMapping> tempMappings = new ArrayList<>();
-        List<String> lines = this.readLines(this.mappingsSupplier.get());
-
-        int fromIndex = -1;
-        int toIndex = -1;
-
-        String currentClass = null;
-        for (String line : lines) {
-            String trimmedLine = line.trim().replaceAll("\\s{2,}", "\t");
-            if (trimmedLine.isEmpty()) continue;
-
-            String[] parts = trimmedLine.split("\t");
-            if (fromIndex == -1) {
-                this.verifyHeader(parts);
-
-                String[] mappingNames = Arrays.copyOfRange(parts, 3, parts.length);
-                List<String> mappingNamesList = Arrays.asList(mappingNames);
-                fromIndex = mappingNamesList.indexOf(this.from);
-                toIndex = mappingNamesList.indexOf(this.to);
-                if (fromIndex == -1) throw new IllegalArgumentException("Unable to find from mapping '" + this.from + "'");
-                if (toIndex == -1) throw new IllegalArgumentException("Unable to find to mapping '" + this.to + "'");
-            } else if (line.startsWith("c\t")) {
-                String baseName = parts[1];
-                currentClass = parts[1 + fromIndex];
-                String toName = parts[1 + toIndex];
-
-                descriptorRemapper.addClassMapping(baseName, currentClass);
-                this.remapper.addClassMapping(currentClass, toName);
-            } else if (line.startsWith("\tf\t")) {
-                if (currentClass == null) throw new IllegalStateException("Field mapping without class mapping");
-                String descriptor = parts[1];
-                String fromName = parts[2 + fromIndex];
-                String toName = parts[2 + toIndex];
-
-                tempMappings.add(new TempMapping(false, currentClass, fromName, descriptor, toName));
-            } else if (line.startsWith("\tm\t")) {
-                if (currentClass == null) throw new IllegalStateException("Method mapping without class mapping");
-                String descriptor = parts[1];
-                String fromName = parts[2 + fromIndex];
-                String toName = parts[2 + toIndex];
-
-                tempMappings.add(new TempMapping(true, currentClass, fromName, descriptor, toName));
-            } else if ((!line.startsWith("\t") || !trimmedLine.startsWith("c")) && !line.startsWith("\t\tp")) {
-                throw new IllegalStateException("Unknown line: " + line);
-            }
+        ParseContext mainContext;
+        try (BufferedReader reader = this.openReader(this.mappingsSupplier.get())) {
+            String header;
+            do {
+                header = reader.readLine();
+                if (header == null) throw new IllegalStateException("Invalid tiny header (missing)");
+            } while (header.trim().isEmpty());
+            String[] headerParts = new String[split(header, null)];
+            split(header, headerParts);
+            this.verifyHeader(headerParts);
+
+            List<String> mappingNames = Arrays.asList(headerParts).subList(3, headerParts.length);
+            int fromIndex = mappingNames.indexOf(this.from);
+            int toIndex = mappingNames.indexOf(this.to);
+            if (fromIndex == -1) throw new IllegalArgumentException("Unable to find from mapping '" + this.from + "'");
+            if (toIndex == -1) throw new IllegalArgumentException("Unable to find to mapping '" + this.to + "'");
+
+            int columns = mappingNames.size() + 2;
+            mainContext = new ParseContext(this.remapper, columns);
+            new MappingsReader<>(() -> new ParseContext(new MapRemapper(), columns), (context, line) -> this.parseLine(context, line, fromIndex, toIndex), ParseContext::merge)
+                    .chunkStart(line -> line.startsWith("c\t"))
+                    .read(reader, mainContext);
         }
         //Temp mappings are required because the descriptor needs to be remapped which is only possible after all class mappings are loaded
-        for (TempMapping tempMapping : tempMappings) {
+        for (TempMapping tempMapping : mainContext.tempMappings) {
             if (tempMapping.method) {
-                this.remapper.addMethodMapping(tempMapping.owner, tempMapping.name, descriptorRemapper.mapMethodDesc(tempMapping.descriptor), tempMapping.newName);
+                this.remapper.addMethodMapping(tempMapping.owner, tempMapping.name, mainContext.descriptorRemapper.mapMethodDesc(tempMapping.descriptor), tempMapping.newName);
             } else {
-                this.remapper.addFieldMapping(tempMapping.owner, tempMapping.name, descriptorRemapper.mapDesc(tempMapping.descriptor), tempMapping.newName);
+                this.remapper.addFieldMapping(tempMapping.owner, tempMapping.name, mainContext.descriptorRemapper.mapDesc(tempMapping.descriptor), tempMapping.newName);
             }
         }
     }
 
+    private void parseLine(final ParseContext context, final String line, final int fromIndex, final int toIndex) {
+        String[] parts = context.parts;
+        int count = split(line, parts);
+        if (count == 0) return;
+
+        if (line.startsWith("c\t")) {
+            if (count < 2 + Math.max(fromIndex, toIndex)) throw new IllegalStateException("Invalid class line: " + line);
+            String baseName = parts[1];
+            context.currentClass = parts[1 + fromIndex];
+            String toName = parts[1 + toIndex];
+
+            context.descriptorRemapper.addClassMapping(baseName, context.currentClass);
+            context.remapper.addClassMapping(context.currentClass, toName);
+        } else if (line.startsWith("\tf\t") || line.startsWith("\tm\t")) {
+            boolean method = line.charAt(1) == 'm';
+            if (context.currentClass == null) throw new IllegalStateException((method ? "Method" : "Field") + " mapping without class mapping");
+            if (count < 3 + Math.max(fromIndex, toIndex)) throw new IllegalStateException("Invalid " + (method ? "method" : "field") + " line: " + line);
+            String descriptor = parts[1];
+            String fromName = parts[2 + fromIndex];
+            String toName = parts[2 + toIndex];
+
+            context.tempMappings.add(new TempMapping(method, context.currentClass, fromName, descriptor, toName));
+        } else if ((!line.startsWith("\t") || !parts[0].startsWith("c")) && !line.startsWith("\t\tp")) {
+            throw new IllegalStateException("Unknown line: " + line);
+        }
+    }
+
     private void verifyHeader(final String[] parts) {
+        if (parts.length < 3) throw new IllegalStateException("Invalid tiny header (missing columns)");
         if (!parts[0].equals("tiny")) throw new IllegalStateException("Invalid tiny header (magic)");
         if (!parts[1].equals("2")) throw new IllegalStateException("Invalid tiny header (major version)");
         if (!parts[2].equals("0")) throw new IllegalStateException("Invalid tiny header (minor version)");
         if (parts.length < 5) throw new IllegalStateException("Invalid tiny header (missing columns)");
     }
 
+    /**
+     * Split a trimmed line into its columns.<br>
+     * Columns are separated by a tab or by two or more whitespace characters.<br>
+     * Columns which do not fit into the parts array are only counted.
+     *
+     * @param line  The line to split
+     * @param parts The array to store the columns in or null to only count them
+     * @return The amount of columns
+     */
+    private static int split(final String line, @Nullable final String[] parts) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') start++;
+        while (end > start && line.charAt(end - 1) <= ' ') end--;
+        if (start == end) return 0;
+
+        int count = 0;
+        int columnStart = start;
+        int i = start;
+        while (i < end) {
+            char c = line.charAt(i);
+            if (!isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int runEnd = i + 1;
+            while (runEnd < end && isWhitespace(line.charAt(runEnd))) runEnd++;
+            if (c == '\t' || runEnd - i >= 2) {
+                if (parts != null && count < parts.length) parts[count] = line.substring(columnStart, i);
+                count++;
+                columnStart = runEnd;
+            }
+            i = runEnd;
+        }
+        if (parts != null && count < parts.length) parts[count] = line.substring(columnStart, end);
+        return count + 1;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+
+    private static class ParseContext {
+        private final MapRemapper remapper;
+        private final MapRemapper descriptorRemapper = new MapRemapper();
+        private final List<TempMapping> tempMappings = new ArrayList<>();
+        private final String[] parts;
+        private String currentClass;
+
+        private ParseContext(final MapRemapper remapper, final int columns) {
+            this.remapper = remapper;
+            this.parts = new String[columns];
+        }
+
+        private void merge(final ParseContext chunk) {
+            this.remapper.copy(chunk.remapper);
+            this.descriptorRemapper.copy(chunk.descriptorRemapper);
+            this.tempMappings.addAll(chunk.tempMappings);
+        }
+    }
 
     private static class TempMapping {
         private final boolean method;
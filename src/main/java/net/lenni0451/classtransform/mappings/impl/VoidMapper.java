@@ -11,7 +11,7 @@ import net.lenni0451.classtransform.mappings.MapperConfig;
 public class VoidMapper extends AMapper {
 
     public VoidMapper() {
-        super(MapperConfig.create());
+        super(MapperConfig.create().loadAsync(false));
     }
 
     @Override
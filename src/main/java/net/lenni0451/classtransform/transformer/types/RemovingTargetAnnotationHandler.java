@@ -35,9 +35,8 @@ public abstract class RemovingTargetAnnotationHandler<T extends Annotation> exte
     public final void transform(T annotation, TransformerManager transformerManager, ClassNode transformedClass, ClassNode transformer, MethodNode transformerMethod) {
         for (String targetCombi : this.targetCombis.apply(annotation)) {
             if (targetCombi.isEmpty()) throw new TransformerException(transformerMethod, transformer, "Target is empty");
-            if (targetCombi.matches(ASMUtils.METHOD_DECLARATION_PATTERN)) {
-                MemberDeclaration declaration = ASMUtils.splitMemberDeclaration(targetCombi);
-                if (declaration == null) throw new TransformerException(transformerMethod, transformer, "Target is not a valid method declaration");
+            MemberDeclaration declaration = ASMUtils.splitMemberDeclaration(targetCombi);
+            if (declaration != null && declaration.isMethodMapping()) {
                 if (!transformedClass.name.equals(declaration.getOwner())) continue;
                 targetCombi = declaration.getName() + declaration.getDesc();
             }
@@ -14,7 +14,6 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static net.lenni0451.classtransform.utils.Types.*;
@@ -191,9 +190,8 @@ public class ASMUtils {
             MethodNode method = getMethod(classNode, name, desc);
             if (method != null) methods.add(method);
         } else {
-            String regex = combiToRegex(combi);
             for (MethodNode method : classNode.methods) {
-                if (method.name.matches(regex)) methods.add(method);
+                if (matchesCombi(method.name, combi)) methods.add(method);
             }
             if (methods.size() > 1 && methods.stream().anyMatch(method -> (method.access & Opcodes.ACC_SYNTHETIC) == 0)) {
                 methods.removeIf(method -> (method.access & Opcodes.ACC_SYNTHETIC) != 0);
@@ -220,14 +218,57 @@ public class ASMUtils {
             FieldNode field = getField(classNode, name, desc);
             if (field != null) fields.add(field);
         } else {
-            String regex = combiToRegex(combi);
             for (FieldNode field : classNode.fields) {
-                if (field.name.matches(regex)) fields.add(field);
+                if (matchesCombi(field.name, combi)) fields.add(field);
             }
         }
         return fields;
     }
 
+    /**
+     * Check if a field or method name matches a search pattern without converting it to a regex.<br>
+     * Use <b>*</b> for a wildcard search.<br>
+     * This matches the same names as the regex created by {@link #combiToRegex(String)}.
+     *
+     * @param name  The name to check
+     * @param combi The search pattern
+     * @return If the name matches the search pattern
+     */
+    public static boolean matchesCombi(final String name, final String combi) {
+        int wildcard = combi.indexOf('*');
+        if (wildcard == -1) return name.equals(combi);
+
+        //The prefix before the first wildcard and the suffix after the last wildcard have to match exactly
+        int lastWildcard = combi.lastIndexOf('*');
+        int suffixLength = combi.length() - lastWildcard - 1;
+        if (name.length() < wildcard + suffixLength) return false;
+        if (!name.regionMatches(0, combi, 0, wildcard)) return false;
+        if (!name.regionMatches(name.length() - suffixLength, combi, lastWildcard + 1, suffixLength)) return false;
+
+        //All parts between the wildcards have to be found in order
+        int position = wildcard;
+        int end = name.length() - suffixLength;
+        int partStart = wildcard + 1;
+        while (partStart <= lastWildcard) {
+            int partEnd = combi.indexOf('*', partStart);
+            int partLength = partEnd - partStart;
+            if (partLength > 0) {
+                int found = indexOf(name, combi, partStart, partLength, position, end);
+                if (found == -1) return false;
+                position = found + partLength;
+            }
+            partStart = partEnd + 1;
+        }
+        return true;
+    }
+
+    private static int indexOf(final String name, final String combi, final int partStart, final int partLength, final int from, final int end) {
+        for (int i = from; i + partLength <= end; i++) {
+            if (name.regionMatches(i, combi, partStart, partLength)) return i;
+        }
+        return -1;
+    }
+
     /**
      * Convert a field or method search pattern to a regex pattern.<br>
      * Use <b>*</b> for a wildcard search.<br>
@@ -455,14 +496,7 @@ public class ASMUtils {
      */
     @Nullable
     public static MemberDeclaration splitMemberDeclaration(final String memberDeclaration) {
-        if (memberDeclaration.matches(METHOD_DECLARATION_PATTERN)) {
-            Matcher matcher = Pattern.compile(METHOD_DECLARATION_PATTERN).matcher(memberDeclaration);
-            if (matcher.find()) return new MemberDeclaration(matcher.group(1) == null ? matcher.group(2) : matcher.group(1), matcher.group(3), matcher.group(4));
-        } else if (memberDeclaration.matches(FIELD_DECLARATION_PATTERN)) {
-            Matcher matcher = Pattern.compile(FIELD_DECLARATION_PATTERN).matcher(memberDeclaration);
-            if (matcher.find()) return new MemberDeclaration(matcher.group(1) == null ? matcher.group(2) : matcher.group(1), matcher.group(3), matcher.group(4));
-        }
-        return null;
+        return MemberDeclarationParser.parse(memberDeclaration);
     }
 
     /**
@@ -0,0 +1,184 @@
+package net.lenni0451.classtransform.utils;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.instrument.Instrumentation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A weak index of loaded classes by name.<br>
+ * A class with the same name can be loaded by multiple class loaders, every class loader has its own entry.<br>
+ * Classes can be recorded before they are defined (e.g. in a {@link java.lang.instrument.ClassFileTransformer}), they are looked up in the classes defined by their class loader when they are requested for the first time.<br>
+ * Entries of unloaded class loaders are removed automatically.<br>
+ * <b>Use the index once before registering a class file transformer which uses it, the classes used by the index can't be loaded while the transformer is running.</b>
+ */
+@ParametersAreNonnullByDefault
+public class LoadedClassIndex {
+
+    private final Map<String, List<Entry>> classes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> unloadedLoaders = new ReferenceQueue<>();
+
+    /**
+     * Record a loaded class.<br>
+     * Array and primitive classes are ignored.
+     *
+     * @param clazz The class to record
+     */
+    public void record(final Class<?> clazz) {
+        if (clazz.isArray() || clazz.isPrimitive()) return;
+        this.record(clazz.getClassLoader(), clazz.getName(), clazz);
+    }
+
+    /**
+     * Record a class which is being loaded.<br>
+     * If the class is not known yet, it is looked up using the class loader when it is requested.
+     *
+     * @param loader    The class loader defining the class or null for the bootstrap class loader
+     * @param className The name of the class (e.g. {@code java.lang.String})
+     * @param clazz     The class if it is already defined
+     */
+    public void record(@Nullable final ClassLoader loader, final String className, @Nullable final Class<?> clazz) {
+        this.purge();
+        //No lambdas are used here since this is called while classes are loaded
+        synchronized (this) {
+            List<Entry> entries = this.classes.get(className);
+            if (entries == null) {
+                entries = new CopyOnWriteArrayList<>();
+                this.classes.put(className, entries);
+            } else {
+                for (Entry entry : entries) {
+                    if (entry.isLoader(loader)) {
+                        if (clazz != null) entry.clazz = new WeakReference<>(clazz);
+                        return;
+                    }
+                }
+            }
+            entries.add(new Entry(className, loader, clazz, this.unloadedLoaders));
+        }
+    }
+
+    /**
+     * Get all loaded classes with the given names.<br>
+     * Classes which have been recorded before they were defined are skipped.
+     *
+     * @param classNames The names of the classes
+     * @return The loaded classes
+     * @see #getClasses(Collection, Instrumentation)
+     */
+    public List<Class<?>> getClasses(final Collection<String> classNames) {
+        return this.getClasses(classNames, null);
+    }
+
+    /**
+     * Get all loaded classes with the given names.<br>
+     * The cost only depends on the amount of requested names and not on the amount of loaded classes.<br>
+     * Classes recorded before they were defined are looked up once in the classes initiated by their class loader without loading them.
+     * If the class loader has not defined them (e.g. because defining them failed) they are removed.
+     *
+     * @param classNames      The names of the classes
+     * @param instrumentation The instrumentation used to look up classes recorded before they were defined or null to skip them
+     * @return The loaded classes
+     */
+    public List<Class<?>> getClasses(final Collection<String> classNames, @Nullable final Instrumentation instrumentation) {
+        this.purge();
+        List<Class<?>> classes = new ArrayList<>();
+        //No lambdas are used here since this is called while transformers are hotswapped
+        Map<ClassLoader, Map<String, Entry>> pending = null;
+        for (String className : classNames) {
+            List<Entry> entries = this.classes.get(className);
+            if (entries == null) continue;
+            for (Entry entry : entries) {
+                WeakReference<Class<?>> reference = entry.clazz;
+                if (reference != null) {
+                    Class<?> clazz = reference.get();
+                    if (clazz != null) classes.add(clazz);
+                    else this.remove(entry);
+                } else if (instrumentation != null) {
+                    ClassLoader loader = null;
+                    if (!entry.bootstrap) {
+                        loader = entry.loader.get();
+                        if (loader == null) continue;
+                    }
+                    if (pending == null) pending = new IdentityHashMap<>();
+                    Map<String, Entry> loaderEntries = pending.get(loader);
+                    if (loaderEntries == null) {
+                        loaderEntries = new HashMap<>();
+                        pending.put(loader, loaderEntries);
+                    }
+                    loaderEntries.put(entry.className, entry);
+                }
+            }
+        }
+        if (pending != null) {
+            for (Map.Entry<ClassLoader, Map<String, Entry>> loaderEntries : pending.entrySet()) {
+                ClassLoader loader = loaderEntries.getKey();
+                Map<String, Entry> entries = loaderEntries.getValue();
+                for (Class<?> clazz : instrumentation.getInitiatedClasses(loader)) {
+                    if (clazz.getClassLoader() != loader) continue;
+                    Entry entry = entries.remove(clazz.getName());
+                    if (entry == null) continue;
+                    entry.clazz = new WeakReference<>(clazz);
+                    classes.add(clazz);
+                    if (entries.isEmpty()) break;
+                }
+                for (Entry entry : entries.values()) this.remove(entry);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return The amount of indexed class names
+     */
+    public int size() {
+        this.purge();
+        return this.classes.size();
+    }
+
+    private void purge() {
+        Reference<? extends ClassLoader> reference;
+        while ((reference = this.unloadedLoaders.poll()) != null) this.remove(((LoaderReference) reference).entry);
+    }
+
+    private synchronized void remove(final Entry entry) {
+        List<Entry> entries = this.classes.get(entry.className);
+        if (entries != null && entries.remove(entry) && entries.isEmpty()) this.classes.remove(entry.className);
+    }
+
+
+    private static class Entry {
+        private final String className;
+        private final boolean bootstrap;
+        @Nullable
+        private final LoaderReference loader;
+        @Nullable
+        private volatile WeakReference<Class<?>> clazz;
+
+        private Entry(final String className, @Nullable final ClassLoader loader, @Nullable final Class<?> clazz, final ReferenceQueue<ClassLoader> queue) {
+            this.className = className;
+            this.bootstrap = loader == null;
+            this.loader = loader == null ? null : new LoaderReference(loader, queue, this);
+            this.clazz = clazz == null ? null : new WeakReference<>(clazz);
+        }
+
+        private boolean isLoader(@Nullable final ClassLoader loader) {
+            if (loader == null) return this.bootstrap;
+            return this.loader != null && this.loader.get() == loader;
+        }
+    }
+
+    private static class LoaderReference extends WeakReference<ClassLoader> {
+        private final Entry entry;
+
+        private LoaderReference(final ClassLoader loader, final ReferenceQueue<ClassLoader> queue, final Entry entry) {
+            super(loader, queue);
+            this.entry = entry;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.lenni0451.classtransform.utils;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A parser for member declarations without regular expressions.<br>
+ * It accepts the same declarations as {@link ASMUtils#METHOD_DECLARATION_PATTERN} and {@link ASMUtils#FIELD_DECLARATION_PATTERN}.<br>
+ * Parsed declarations are cached since the same annotation targets are parsed for every target class.<br>
+ * The cache keeps the {@value #MAX_CACHE_SIZE} most recently used declarations.
+ */
+@ParametersAreNonnullByDefault
+public class MemberDeclarationParser {
+
+    static final int MAX_CACHE_SIZE = 16384;
+    private static final MemberDeclaration INVALID = new MemberDeclaration("", "", "");
+    private static final Map<String, MemberDeclaration> CACHE = Collections.synchronizedMap(new DeclarationCache());
+
+    /**
+     * Parse a method or field declaration.<br>
+     * The result is cached and shared between all callers.
+     *
+     * @param memberDeclaration The member declaration
+     * @return The parsed declaration or null if the declaration is invalid
+     * @see ASMUtils#splitMemberDeclaration(String)
+     */
+    @Nullable
+    public static MemberDeclaration parse(final String memberDeclaration) {
+        MemberDeclaration declaration = CACHE.get(memberDeclaration);
+        if (declaration == null) {
+            declaration = parseMethod(memberDeclaration);
+            if (declaration == null) declaration = parseField(memberDeclaration);
+            if (declaration == null) declaration = INVALID;
+            CACHE.putIfAbsent(memberDeclaration, declaration);
+        }
+        return declaration == INVALID ? null : declaration;
+    }
+
+    /**
+     * Parse a method declaration (e.g. {@code java/lang/String.length()I} or {@code Ljava/lang/String;length()I}).
+     *
+     * @param memberDeclaration The method declaration
+     * @return The parsed declaration or null if the declaration is not a valid method declaration
+     */
+    @Nullable
+    public static MemberDeclaration parseMethod(final String memberDeclaration) {
+        int nameStart = nameStart(memberDeclaration);
+        if (nameStart < 0) return null;
+        int descStart = memberDeclaration.indexOf('(', nameStart);
+        if (descStart <= nameStart) return null;
+        int descEnd = memberDeclaration.indexOf(')', descStart);
+        if (descEnd < 0 || descEnd == memberDeclaration.length() - 1) return null;
+        if (hasLineTerminator(memberDeclaration, descEnd + 1)) return null;
+        return new MemberDeclaration(owner(memberDeclaration, nameStart), memberDeclaration.substring(nameStart, descStart), memberDeclaration.substring(descStart));
+    }
+
+    /**
+     * Parse a field declaration (e.g. {@code java/lang/System.out:Ljava/io/PrintStream;} or {@code Ljava/lang/System;out:Ljava/io/PrintStream;}).
+     *
+     * @param memberDeclaration The field declaration
+     * @return The parsed declaration or null if the declaration is not a valid field declaration
+     */
+    @Nullable
+    public static MemberDeclaration parseField(final String memberDeclaration) {
+        int nameStart = nameStart(memberDeclaration);
+        if (nameStart < 0) return null;
+        //The name can't contain a '(' and is as long as possible
+        int nameEnd = memberDeclaration.indexOf('(', nameStart);
+        if (nameEnd < 0) nameEnd = memberDeclaration.length();
+        int colon = memberDeclaration.lastIndexOf(':', Math.min(nameEnd - 1, memberDeclaration.length() - 2));
+        if (colon <= nameStart) return null;
+        if (hasLineTerminator(memberDeclaration, colon + 1)) return null;
+        return new MemberDeclaration(owner(memberDeclaration, nameStart), memberDeclaration.substring(nameStart, colon), memberDeclaration.substring(colon + 1));
+    }
+
+    /**
+     * @return The start of the name or -1 if there is no valid owner
+     */
+    private static int nameStart(final String memberDeclaration) {
+        if (memberDeclaration.startsWith("L")) {
+            int semicolon = memberDeclaration.indexOf(';');
+            if (semicolon > 1) return semicolon + 1;
+        }
+        int dot = memberDeclaration.indexOf('.');
+        return dot > 0 ? dot + 1 : -1;
+    }
+
+    private static String owner(final String memberDeclaration, final int nameStart) {
+        if (memberDeclaration.charAt(nameStart - 1) == ';') return memberDeclaration.substring(1, nameStart - 1);
+        else return memberDeclaration.substring(0, nameStart - 1);
+    }
+
+    private static boolean hasLineTerminator(final String s, final int start) {
+        for (int i = start; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
+    }
+
+
+    private static class DeclarationCache extends LinkedHashMap<String, MemberDeclaration> {
+        private DeclarationCache() {
+            super(16, 0.75F, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, MemberDeclaration> eldest) {
+            return this.size() > MAX_CACHE_SIZE;
+        }
+    }
+
+}
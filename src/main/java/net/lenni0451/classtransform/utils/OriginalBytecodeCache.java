@@ -0,0 +1,235 @@
+package net.lenni0451.classtransform.utils;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compressed cache of the original bytecode of classes before they were transformed.<br>
+ * The cache is bounded by a memory budget, the least recently used classes are evicted first.<br>
+ * Classes are cached per class loader, classes with the same name from different class loaders don't replace each other.<br>
+ * Entries of unloaded class loaders are never returned again and are evicted like unused entries.<br>
+ * <b>The cache is used in the instrumentation callback, all classes it uses are loaded when it is created.</b>
+ */
+@ParametersAreNonnullByDefault
+public class OriginalBytecodeCache {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long memoryBudget;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long memoryUsage;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param memoryBudget The maximum amount of memory used by the compressed bytecode in bytes
+     */
+    public OriginalBytecodeCache(final long memoryBudget) {
+        if (memoryBudget <= 0) throw new IllegalArgumentException("The memory budget must be positive");
+        this.memoryBudget = memoryBudget;
+
+        //Load all used classes now since they can't be loaded while classes are transformed
+        this.put(null, "", new byte[1]);
+        this.put(null, " ", new byte[1]);
+        this.get(null, "");
+        this.evict(0);
+        this.hits = this.misses = this.evictions = 0;
+    }
+
+    /**
+     * Add the original bytecode of a class to the cache.<br>
+     * An existing entry of the class is replaced.
+     *
+     * @param loader    The class loader of the class or null for the bootstrap class loader
+     * @param className The name of the class
+     * @param bytecode  The original bytecode of the class
+     */
+    public void put(@Nullable final ClassLoader loader, final String className, final byte[] bytecode) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed;
+        try {
+            deflater.setInput(bytecode);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, bytecode.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    byte[] newBuffer = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, newBuffer, 0, length);
+                    buffer = newBuffer;
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            compressed = new byte[length];
+            System.arraycopy(buffer, 0, compressed, 0, length);
+        } finally {
+            deflater.end();
+        }
+
+        Key key = new Key(loader, className);
+        Entry entry = new Entry(compressed, bytecode.length, className.length() * 2L + compressed.length + ENTRY_OVERHEAD);
+        synchronized (this) {
+            Entry old = this.entries.remove(key);
+            if (old != null) this.memoryUsage -= old.size;
+            if (entry.size > this.memoryBudget) return;
+            this.evict(this.memoryBudget - entry.size);
+            this.entries.put(key, entry);
+            this.memoryUsage += entry.size;
+        }
+    }
+
+    /**
+     * Get the original bytecode of a class.
+     *
+     * @param loader    The class loader of the class or null for the bootstrap class loader
+     * @param className The name of the class
+     * @return The original bytecode or null if the class is not cached
+     */
+    @Nullable
+    public byte[] get(@Nullable final ClassLoader loader, final String className) {
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(new Key(loader, className));
+            if (entry == null) {
+                this.misses++;
+                return null;
+            }
+            this.hits++;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(entry.compressed);
+            byte[] bytecode = new byte[entry.length];
+            int length = 0;
+            while (length < bytecode.length) {
+                int read = inflater.inflate(bytecode, length, bytecode.length - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) break;
+                length += read;
+            }
+            if (length != bytecode.length) throw new IllegalStateException("Corrupted cache entry for class '" + className + "'");
+            return bytecode;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted cache entry for class '" + className + "'", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Check if the original bytecode of a class is cached.<br>
+     * This does not count as a lookup.
+     *
+     * @param loader    The class loader of the class or null for the bootstrap class loader
+     * @param className The name of the class
+     * @return If the class is cached
+     */
+    public synchronized boolean contains(@Nullable final ClassLoader loader, final String className) {
+        return this.entries.containsKey(new Key(loader, className));
+    }
+
+    /**
+     * @return The amount of memory used by the cached bytecode in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        return this.memoryUsage;
+    }
+
+    /**
+     * @return The maximum amount of memory used by the cached bytecode in bytes
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * @return The amount of cached classes
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return The amount of successful lookups
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The amount of lookups of classes which were not cached
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return The amount of classes removed to stay within the memory budget
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    private void evict(final long maxUsage) {
+        Iterator<Entry> it = this.entries.values().iterator();
+        while (this.memoryUsage > maxUsage && it.hasNext()) {
+            this.memoryUsage -= it.next().size;
+            it.remove();
+            this.evictions++;
+        }
+    }
+
+
+    private static class Key {
+        private final String className;
+        private final boolean bootstrap;
+        @Nullable
+        private final WeakReference<ClassLoader> loader;
+        private final int hash;
+
+        private Key(@Nullable final ClassLoader loader, final String className) {
+            this.className = className;
+            this.bootstrap = loader == null;
+            this.loader = loader == null ? null : new WeakReference<>(loader);
+            this.hash = 31 * System.identityHashCode(loader) + className.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            if (this.hash != key.hash || this.bootstrap != key.bootstrap || !this.className.equals(key.className)) return false;
+            if (this.bootstrap) return true;
+            //Keys of unloaded class loaders don't match anything anymore
+            ClassLoader loader = this.loader.get();
+            return loader != null && loader == key.loader.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static class Entry {
+        private final byte[] compressed;
+        private final int length;
+        private final long size;
+
+        private Entry(final byte[] compressed, final int length, final long size) {
+            this.compressed = compressed;
+            this.length = length;
+            this.size = size;
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package net.lenni0451.classtransform.utils;
+
+import org.objectweb.asm.tree.*;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A global table of class names, member names and descriptors.<br>
+ * Interned symbols are only weakly referenced, so they are removed once no mapping or class node uses them anymore.<br>
+ * Equal symbols share the same instance, which reduces the memory used by mappings and class nodes and lets equality checks stop at the identity comparison.
+ */
+@ParametersAreNonnullByDefault
+public class SymbolTable {
+
+    private static final int SEGMENT_COUNT = 32;
+    private static final Map<String, WeakReference<String>>[] SEGMENTS = createSegments();
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, WeakReference<String>>[] createSegments() {
+        Map<String, WeakReference<String>>[] segments = new Map[SEGMENT_COUNT];
+        for (int i = 0; i < segments.length; i++) segments[i] = new WeakHashMap<>();
+        return segments;
+    }
+
+    /**
+     * Get the shared instance of a symbol.<br>
+     * If the symbol is not in the table yet, the given instance is added.
+     *
+     * @param symbol The symbol
+     * @return The shared instance of the symbol or null if the symbol is null
+     */
+    @Nullable
+    public static String intern(@Nullable final String symbol) {
+        if (symbol == null) return null;
+        int hash = symbol.hashCode();
+        Map<String, WeakReference<String>> segment = SEGMENTS[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+        synchronized (segment) {
+            WeakReference<String> reference = segment.get(symbol);
+            if (reference != null) {
+                String interned = reference.get();
+                if (interned != null) return interned;
+            }
+            segment.put(symbol, new WeakReference<>(symbol));
+            return symbol;
+        }
+    }
+
+    /**
+     * Intern all names and descriptors of a class node.<br>
+     * This includes the class header, fields, methods and the member references of all instructions.
+     *
+     * @param node The class node
+     * @return The given class node
+     */
+    public static ClassNode intern(final ClassNode node) {
+        node.name = intern(node.name);
+        node.superName = intern(node.superName);
+        node.signature = intern(node.signature);
+        node.outerClass = intern(node.outerClass);
+        node.nestHostClass = intern(node.nestHostClass);
+        internAll(node.interfaces);
+        internAll(node.nestMembers);
+        internAll(node.permittedSubclasses);
+        if (node.innerClasses != null) {
+            for (InnerClassNode innerClass : node.innerClasses) {
+                innerClass.name = intern(innerClass.name);
+                innerClass.outerName = intern(innerClass.outerName);
+                innerClass.innerName = intern(innerClass.innerName);
+            }
+        }
+        for (FieldNode field : node.fields) {
+            field.name = intern(field.name);
+            field.desc = intern(field.desc);
+            field.signature = intern(field.signature);
+        }
+        for (MethodNode method : node.methods) intern(method);
+        return node;
+    }
+
+    /**
+     * Intern all names and descriptors of a method node.<br>
+     * This includes the member references of all instructions.
+     *
+     * @param method The method node
+     * @return The given method node
+     */
+    public static MethodNode intern(final MethodNode method) {
+        method.name = intern(method.name);
+        method.desc = intern(method.desc);
+        method.signature = intern(method.signature);
+        internAll(method.exceptions);
+        if (method.localVariables != null) {
+            for (LocalVariableNode localVariable : method.localVariables) localVariable.desc = intern(localVariable.desc);
+        }
+        if (method.tryCatchBlocks != null) {
+            for (TryCatchBlockNode tryCatchBlock : method.tryCatchBlocks) tryCatchBlock.type = intern(tryCatchBlock.type);
+        }
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof MethodInsnNode) {
+                MethodInsnNode methodInsn = (MethodInsnNode) insn;
+                methodInsn.owner = intern(methodInsn.owner);
+                methodInsn.name = intern(methodInsn.name);
+                methodInsn.desc = intern(methodInsn.desc);
+            } else if (insn instanceof FieldInsnNode) {
+                FieldInsnNode fieldInsn = (FieldInsnNode) insn;
+                fieldInsn.owner = intern(fieldInsn.owner);
+                fieldInsn.name = intern(fieldInsn.name);
+                fieldInsn.desc = intern(fieldInsn.desc);
+            } else if (insn instanceof TypeInsnNode) {
+                TypeInsnNode typeInsn = (TypeInsnNode) insn;
+                typeInsn.desc = intern(typeInsn.desc);
+            } else if (insn instanceof InvokeDynamicInsnNode) {
+                InvokeDynamicInsnNode invokeDynamicInsn = (InvokeDynamicInsnNode) insn;
+                invokeDynamicInsn.name = intern(invokeDynamicInsn.name);
+                invokeDynamicInsn.desc = intern(invokeDynamicInsn.desc);
+            } else if (insn instanceof MultiANewArrayInsnNode) {
+                MultiANewArrayInsnNode multiANewArrayInsn = (MultiANewArrayInsnNode) insn;
+                multiANewArrayInsn.desc = intern(multiANewArrayInsn.desc);
+            }
+        }
+        return method;
+    }
+
+    /**
+     * @return The amount of symbols in the table, including symbols which are not referenced anymore but were not removed yet
+     */
+    public static int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> segment : SEGMENTS) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static void internAll(@Nullable final List<String> symbols) {
+        if (symbols == null) return;
+        for (int i = 0; i < symbols.size(); i++) symbols.set(i, intern(symbols.get(i)));
+    }
+
+}
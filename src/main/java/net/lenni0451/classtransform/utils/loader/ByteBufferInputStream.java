@@ -0,0 +1,65 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream reading directly from a {@link ByteBuffer}.<br>
+ * The position of the buffer is advanced while reading, use a duplicate to keep the original position.
+ */
+@ParametersAreNonnullByDefault
+class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+    private int mark;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.mark = buffer.position();
+    }
+
+    @Override
+    public int read() {
+        if (!this.buffer.hasRemaining()) return -1;
+        return this.buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        if (!this.buffer.hasRemaining()) return -1;
+        int read = Math.min(len, this.buffer.remaining());
+        this.buffer.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) {
+        int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        this.mark = this.buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.buffer.position(this.mark);
+    }
+
+}
@@ -1,18 +1,18 @@
 package net.lenni0451.classtransform.utils.loader;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 
 /**
  * Util class to assist with in memory resources.
  */
 class BytesURLConnection extends URLConnection {
 
-    private final byte[] data;
+    private final ByteBuffer data;
 
-    BytesURLConnection(final URL url, final byte[] data) {
+    BytesURLConnection(final URL url, final ByteBuffer data) {
         super(url);
 
         this.data = data;
@@ -22,9 +22,14 @@ class BytesURLConnection extends URLConnection {
     public void connect() {
     }
 
+    @Override
+    public long getContentLengthLong() {
+        return this.data.remaining();
+    }
+
     @Override
     public InputStream getInputStream() {
-        return new ByteArrayInputStream(this.data);
+        return new ByteBufferInputStream(this.data.duplicate());
     }
 
 }
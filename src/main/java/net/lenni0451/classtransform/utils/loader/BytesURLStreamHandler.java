@@ -3,21 +3,22 @@ package net.lenni0451.classtransform.utils.loader;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
 
 /**
  * Util class to assist with in memory resources.
  */
 class BytesURLStreamHandler extends URLStreamHandler {
 
-    private final byte[] bytes;
+    private final ByteBuffer data;
 
-    BytesURLStreamHandler(final byte[] bytes) {
-        this.bytes = bytes;
+    BytesURLStreamHandler(final ByteBuffer data) {
+        this.data = data;
     }
 
     @Override
     protected URLConnection openConnection(final URL url) {
-        return new BytesURLConnection(url, this.bytes);
+        return new BytesURLConnection(url, this.data.duplicate());
     }
 
 }
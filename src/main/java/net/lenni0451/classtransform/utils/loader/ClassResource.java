@@ -0,0 +1,172 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.security.CodeSigner;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * The bytecode of a class and the information needed to define it.
+ */
+@ParametersAreNonnullByDefault
+class ClassResource {
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Read all bytes of a stream.<br>
+     * If the size is known the bytes are read directly into an array of that size.
+     *
+     * @param is   The input stream
+     * @param size The size of the data or -1 if it is unknown
+     * @return The read bytes
+     * @throws IOException If the data could not be read or is not as large as expected
+     */
+    static byte[] read(final InputStream is, final long size) throws IOException {
+        if (size < 0 || size > MAX_ARRAY_SIZE) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = is.read(buf)) != -1) baos.write(buf, 0, len);
+            return baos.toByteArray();
+        }
+
+        byte[] bytes = new byte[(int) size];
+        int offset = 0;
+        while (offset < bytes.length) {
+            int len = is.read(bytes, offset, bytes.length - offset);
+            if (len == -1) throw new EOFException("Expected " + bytes.length + " bytes but only got " + offset);
+            offset += len;
+        }
+        //Reaching the end of the stream also finishes the verification of signed jar entries
+        if (is.read() != -1) throw new IOException("Expected " + bytes.length + " bytes but got more");
+        return bytes;
+    }
+
+
+    private final URL url;
+    @Nullable
+    private final ByteBuffer buffer;
+    private byte[] bytes;
+    @Nullable
+    private final CodeSigner[] codeSigners;
+    @Nullable
+    private final JarIndex.JarSource jarSource;
+    @Nullable
+    private final Manifest manifest;
+    private final boolean jar;
+
+    ClassResource(final URL url, final ByteBuffer buffer) {
+        this.url = url;
+        this.buffer = buffer;
+        this.codeSigners = null;
+        this.jarSource = null;
+        this.manifest = null;
+        this.jar = false;
+    }
+
+    ClassResource(final URL url, final byte[] bytes, @Nullable final CodeSigner[] codeSigners, final JarIndex.JarSource jarSource) {
+        this.url = url;
+        this.buffer = null;
+        this.bytes = bytes;
+        this.codeSigners = codeSigners;
+        this.jarSource = jarSource;
+        this.manifest = jarSource.getManifest();
+        this.jar = true;
+    }
+
+    ClassResource(final URL url, final byte[] bytes, @Nullable final CodeSigner[] codeSigners, @Nullable final Manifest manifest, final boolean jar) {
+        this.url = url;
+        this.buffer = null;
+        this.bytes = bytes;
+        this.codeSigners = codeSigners;
+        this.jarSource = null;
+        this.manifest = manifest;
+        this.jar = jar;
+    }
+
+    /**
+     * @return The url used for the code source of the class
+     */
+    URL getUrl() {
+        return this.url;
+    }
+
+    /**
+     * @return The off-heap bytecode of a runtime resource or null if the class has been read into an array
+     */
+    @Nullable
+    ByteBuffer getBuffer() {
+        return this.buffer == null ? null : this.buffer.duplicate();
+    }
+
+    /**
+     * Get the bytecode of the class.<br>
+     * The bytecode of runtime resources is copied from the off-heap buffer when this is first called.
+     *
+     * @return The bytecode of the class
+     */
+    byte[] getBytes() {
+        if (this.bytes == null && this.buffer != null) {
+            ByteBuffer buffer = this.buffer.duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            this.bytes = bytes;
+        }
+        return this.bytes;
+    }
+
+    /**
+     * @return The code signers of the class
+     */
+    @Nullable
+    CodeSigner[] getCodeSigners() {
+        return this.codeSigners;
+    }
+
+    /**
+     * @return The manifest of the jar containing the class
+     */
+    @Nullable
+    Manifest getManifest() {
+        return this.manifest;
+    }
+
+    /**
+     * @return If the class has been loaded from a jar file
+     */
+    boolean isJar() {
+        return this.jar;
+    }
+
+    /**
+     * Check if the manifest of the jar containing the class seals the given package.
+     *
+     * @param packageName The name of the package
+     * @return If the package is sealed
+     */
+    boolean isSealed(final String packageName) {
+        if (this.jarSource != null) return this.jarSource.isSealed(packageName);
+        return this.manifest != null && isSealed(this.manifest, packageName);
+    }
+
+    static boolean isSealed(final Manifest manifest, final String packageName) {
+        Attributes attributes = manifest.getAttributes(packageName.replace('.', '/') + "/");
+        String sealed = null;
+        if (attributes != null) sealed = attributes.getValue(Attributes.Name.SEALED);
+
+        if (sealed == null) {
+            attributes = manifest.getMainAttributes();
+            if (attributes != null) sealed = attributes.getValue(Attributes.Name.SEALED);
+        }
+        return "true".equalsIgnoreCase(sealed);
+    }
+
+}
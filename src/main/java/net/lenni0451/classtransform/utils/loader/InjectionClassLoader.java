@@ -7,35 +7,46 @@ import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.*;
-import java.security.CodeSigner;
+import java.nio.ByteBuffer;
 import java.security.CodeSource;
-import java.util.*;
-import java.util.jar.Attributes;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 import static net.lenni0451.classtransform.utils.ASMUtils.slash;
 
 /**
- * Inject into classes by using a custom class loader.
+ * Inject into classes by using a custom class loader.<br>
+ * The class loader is parallel capable, classes are loaded and transformed using a lock per class name.
  */
 @ParametersAreNonnullByDefault
 public class InjectionClassLoader extends URLClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private final TransformerManager transformerManager;
     private final ClassLoader parent;
     private final Set<String> protectedPackages = new HashSet<>();
     private final Set<String> protectionExceptions = new HashSet<>();
-    private final Map<String, byte[]> runtimeResources = new HashMap<>();
+    private volatile PrefixMatcher protectedPackagesMatcher;
+    private volatile PrefixMatcher protectionExceptionsMatcher;
+    private final RuntimeResourceStore runtimeResources = new RuntimeResourceStore();
+    private final JarIndex jarIndex = new JarIndex();
 
-    private EnumLoaderPriority priority = EnumLoaderPriority.CUSTOM_FIRST;
+    private volatile EnumLoaderPriority priority = EnumLoaderPriority.CUSTOM_FIRST;
+    @Nullable
+    private volatile LoadOrderProfile loadOrderProfile;
+    @Nullable
+    private volatile PreTransformer preTransformer;
 
     public InjectionClassLoader(final TransformerManager transformerManager, final URL... urls) {
         this(transformerManager, InjectionClassLoader.class.getClassLoader(), urls);
@@ -45,6 +56,7 @@ public class InjectionClassLoader extends URLClassLoader {
         super(urls, null);
         this.transformerManager = transformerManager;
         this.parent = parent;
+        for (URL url : urls) this.jarIndex.add(url);
 
         this.protectedPackages.add("java.");
         this.protectedPackages.add("javax.");
@@ -54,6 +66,8 @@ public class InjectionClassLoader extends URLClassLoader {
         this.protectedPackages.add("net.lenni0451.classtransform.");
         this.protectedPackages.add("org.objectweb.asm.");
         this.protectionExceptions.add("com.sun.jna.");
+        this.protectedPackagesMatcher = new PrefixMatcher(this.protectedPackages);
+        this.protectionExceptionsMatcher = new PrefixMatcher(this.protectionExceptions);
     }
 
     @Override
@@ -84,49 +98,47 @@ public class InjectionClassLoader extends URLClassLoader {
         }
 
         try {
-            URLConnection connection = this.getClassConnection(name);
-            URL url = connection == null ? null : connection.getURL();
-            byte[] classBytes = this.getClassBytes(name);
-            CodeSigner[] codeSigner = null;
+            PreTransformer preTransformer = this.preTransformer;
+            PreTransformer.Result preTransformed = preTransformer == null ? null : preTransformer.take(name);
+            ClassResource resource = preTransformed == null ? this.findClassResource(slash(name) + ".class") : preTransformed.getResource();
+            if (resource == null) throw new ClassNotFoundException(name);
+            LoadOrderProfile loadOrderProfile = this.loadOrderProfile;
+            if (loadOrderProfile != null) loadOrderProfile.record(name);
 
             String packageName;
             if (name.contains(".")) packageName = name.substring(0, name.lastIndexOf('.'));
             else packageName = "";
-            if (connection instanceof JarURLConnection) {
-                JarURLConnection jarConnection = (JarURLConnection) connection;
-                JarFile jarFile = jarConnection.getJarFile();
-                url = jarConnection.getJarFileURL();
-
-                if (jarFile != null && jarFile.getManifest() != null) {
-                    Manifest manifest = jarFile.getManifest();
-                    JarEntry entry = jarFile.getJarEntry(slash(name) + ".class");
-
-                    if (entry != null) codeSigner = entry.getCodeSigners();
+            if (resource.isJar()) {
+                Manifest manifest = resource.getManifest();
+                if (manifest != null) {
                     Package pkg = this.getPackage(packageName);
-                    if (pkg == null) {
-                        this.definePackage(packageName, manifest, jarConnection.getJarFileURL());
-                    } else {
-                        if (pkg.isSealed() && !pkg.isSealed(jarConnection.getJarFileURL())) {
+                    if (pkg == null) pkg = this.tryDefinePackage(packageName, manifest, resource.getUrl());
+                    if (pkg != null) {
+                        if (pkg.isSealed() && !pkg.isSealed(resource.getUrl())) {
                             throw new SecurityException("sealing violation: package " + packageName + " is sealed");
-                        } else if (this.isSealed(packageName, manifest)) {
+                        } else if (resource.isSealed(packageName)) {
                             throw new SecurityException("sealing violation: can't seal package " + packageName + ": already loaded");
                         }
                     }
                 }
             } else {
                 Package pkg = this.getPackage(packageName);
-                if (pkg == null) {
-                    this.definePackage(packageName, null, null, null, null, null, null, null);
-                } else if (pkg.isSealed()) {
+                if (pkg == null) pkg = this.tryDefinePackage(packageName, null, null);
+                if (pkg != null && pkg.isSealed()) {
                     throw new SecurityException("sealing violation: package " + packageName + " is sealed");
                 }
             }
 
-            byte[] transformedClassBytes = this.transformerManager.transform(name, classBytes);
-            if (transformedClassBytes != null) classBytes = transformedClassBytes;
+            CodeSource codeSource = new CodeSource(resource.getUrl(), resource.getCodeSigners());
+            ByteBuffer buffer = resource.getBuffer();
+            if (buffer != null && preTransformed == null && !this.transformerManager.hasTransformers(name)) {
+                //Define classes which can't be transformed directly from the off-heap buffer
+                return this.defineClass(name, buffer, codeSource);
+            }
 
-            CodeSource codeSource = null;
-            if (connection != null) codeSource = new CodeSource(url, codeSigner);
+            byte[] classBytes = resource.getBytes();
+            byte[] transformedClassBytes = preTransformed == null ? this.transformerManager.transform(name, classBytes) : preTransformed.getTransformed();
+            if (transformedClassBytes != null) classBytes = transformedClassBytes;
             return this.defineClass(name, classBytes, 0, classBytes.length, codeSource);
         } catch (IndexOutOfBoundsException | ClassNotFoundException | SecurityException | ClassFormatError e) {
             throw e;
@@ -135,61 +147,71 @@ public class InjectionClassLoader extends URLClassLoader {
         }
     }
 
-    private URLConnection getClassConnection(final String className) throws IOException {
-        URL url = this.findResource(slash(className) + ".class");
-        if (url != null) {
-            if ("jar".equalsIgnoreCase(url.getProtocol()) && url.getRef() == null) {
-                //Append the '#runtime' ref to make sure the opened jarfile handles multi release jars correctly
-                url = new URL(url.getProtocol(), url.getHost(), url.getPort(), url.getFile() + "#runtime");
-            }
-            return url.openConnection();
+    /**
+     * Find the bytecode of a class and read it once.<br>
+     * Runtime resources are not copied, classes in indexed jar files are read directly from the jar file and all other classes are read using their url connection.
+     *
+     * @return The class resource or null if the class could not be found
+     */
+    @Nullable
+    ClassResource findClassResource(final String path) throws IOException {
+        RuntimeResourceStore.Resource runtimeResource = this.runtimeResources.get(path);
+        if (runtimeResource != null) return new ClassResource(runtimeResource.getUrl(), runtimeResource.getData());
+        ClassResource resource = this.jarIndex.find(path);
+        if (resource != null || this.jarIndex.isComplete()) return resource;
+
+        URL url = this.findResource(path);
+        if (url == null) return null;
+        if ("jar".equalsIgnoreCase(url.getProtocol()) && url.getRef() == null) {
+            //Append the '#runtime' ref to make sure the opened jarfile handles multi release jars correctly
+            url = new URL(url.getProtocol(), url.getHost(), url.getPort(), url.getFile() + "#runtime");
         }
-        return null;
-    }
-
-    private byte[] getClassBytes(final String name) throws ClassNotFoundException, IOException {
-        InputStream classStream = this.getResourceAsStream(slash(name) + ".class");
-        if (classStream == null) throw new ClassNotFoundException(name);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buf = new byte[1024];
-        int len;
-
-        while ((len = classStream.read(buf)) != -1) baos.write(buf, 0, len);
-        classStream.close();
-
-        return baos.toByteArray();
+        URLConnection connection = url.openConnection();
+        byte[] bytes;
+        try (InputStream is = connection.getInputStream()) {
+            bytes = ClassResource.read(is, connection.getContentLengthLong());
+        }
+        if (connection instanceof JarURLConnection) {
+            JarURLConnection jarConnection = (JarURLConnection) connection;
+            JarEntry entry = jarConnection.getJarEntry();
+            return new ClassResource(jarConnection.getJarFileURL(), bytes, entry == null ? null : entry.getCodeSigners(), jarConnection.getManifest(), true);
+        }
+        return new ClassResource(connection.getURL(), bytes, null, null, false);
     }
 
-    private boolean isSealed(final String path, final Manifest manifest) {
-        Attributes attributes = manifest.getAttributes(path);
-        String sealed = null;
-        if (attributes != null) sealed = attributes.getValue(Attributes.Name.SEALED);
-
-        if (sealed == null) {
-            attributes = manifest.getMainAttributes();
-            if (attributes != null) sealed = attributes.getValue(Attributes.Name.SEALED);
+    /**
+     * Define a package which may be defined by another thread at the same time.
+     *
+     * @return The package defined by another thread or null if this thread defined it
+     */
+    @Nullable
+    private Package tryDefinePackage(final String packageName, @Nullable final Manifest manifest, @Nullable final URL url) {
+        try {
+            if (manifest != null) this.definePackage(packageName, manifest, url);
+            else this.definePackage(packageName, null, null, null, null, null, null, null);
+            return null;
+        } catch (IllegalArgumentException e) {
+            //The package has been defined by another thread in the meantime
+            Package pkg = this.getPackage(packageName);
+            if (pkg == null) throw e;
+            return pkg;
         }
-        return "true".equalsIgnoreCase(sealed);
     }
 
 
     @Override
     @Nullable
     public URL getResource(final String name) {
-        if (this.runtimeResources.containsKey(name)) return this.findResource(name);
+        RuntimeResourceStore.Resource runtimeResource = this.runtimeResources.get(name);
+        if (runtimeResource != null) return runtimeResource.getUrl();
         return super.getResource(name);
     }
 
     @Override
     @Nullable
     public URL findResource(final String name) {
-        if (this.runtimeResources.containsKey(name)) {
-            try {
-                return new URL("x-buffer", null, -1, name, new BytesURLStreamHandler(this.runtimeResources.get(name)));
-            } catch (MalformedURLException e) {
-                throw new RuntimeException("This should never have happened", e);
-            }
-        }
+        RuntimeResourceStore.Resource runtimeResource = this.runtimeResources.get(name);
+        if (runtimeResource != null) return runtimeResource.getUrl();
         return super.findResource(name);
     }
 
@@ -209,15 +231,7 @@ public class InjectionClassLoader extends URLClassLoader {
      * @return If the class is protected
      */
     public boolean isProtected(final String className) {
-        for (String protectedPackage : this.protectedPackages) {
-            if (className.startsWith(protectedPackage)) {
-                for (String protectionException : this.protectionExceptions) {
-                    if (className.startsWith(protectionException)) return false;
-                }
-                return true;
-            }
-        }
-        return false;
+        return this.protectedPackagesMatcher.matches(className) && !this.protectionExceptionsMatcher.matches(className);
     }
 
     /**
@@ -226,7 +240,9 @@ public class InjectionClassLoader extends URLClassLoader {
      * @param protectedPackage The package to protect
      */
     public void addProtectedPackage(final String protectedPackage) {
-        this.protectedPackages.add(protectedPackage);
+        synchronized (this.protectedPackages) {
+            if (this.protectedPackages.add(protectedPackage)) this.protectedPackagesMatcher = new PrefixMatcher(this.protectedPackages);
+        }
     }
 
     /**
@@ -235,7 +251,9 @@ public class InjectionClassLoader extends URLClassLoader {
      * @param protectionException The package to add
      */
     public void addProtectionException(final String protectionException) {
-        this.protectionExceptions.add(protectionException);
+        synchronized (this.protectionExceptions) {
+            if (this.protectionExceptions.add(protectionException)) this.protectionExceptionsMatcher = new PrefixMatcher(this.protectionExceptions);
+        }
     }
 
     /**
@@ -251,11 +269,53 @@ public class InjectionClassLoader extends URLClassLoader {
      * @param url The url to add
      */
     public void addURL(final URL url) {
-        super.addURL(url);
+        synchronized (this.jarIndex) {
+            super.addURL(url);
+            this.jarIndex.add(url);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        PreTransformer preTransformer = this.preTransformer;
+        if (preTransformer != null) preTransformer.close();
+        try {
+            super.close();
+        } finally {
+            this.jarIndex.close();
+        }
+    }
+
+    /**
+     * Record the order in which classes are loaded by this class loader.<br>
+     * Protected classes and classes loaded by the parent class loader are not recorded.
+     *
+     * @param profile The profile to record to or null to stop recording
+     */
+    public void recordLoadOrder(@Nullable final LoadOrderProfile profile) {
+        this.loadOrderProfile = profile;
+    }
+
+    /**
+     * Start transforming the classes of a recorded profile in the background.<br>
+     * Classes which have been pre-transformed are defined without transforming them again when they are loaded.<br>
+     * A previously started pre-transformer is closed.
+     *
+     * @param profile The profile containing the classes to transform
+     * @param threads The amount of threads to use
+     * @return The pre-transformer which can be used to get statistics about hits and saved time
+     */
+    public PreTransformer preTransform(final LoadOrderProfile profile, final int threads) {
+        PreTransformer preTransformer = new PreTransformer(this, profile, threads);
+        PreTransformer old = this.preTransformer;
+        this.preTransformer = preTransformer;
+        if (old != null) old.close();
+        return preTransformer;
     }
 
     /**
-     * Add a new resource to the classpath during runtime.
+     * Add a new resource to the classpath during runtime.<br>
+     * The data is copied to off-heap memory, the array is not referenced by the class loader.
      *
      * @param path The path to the resource
      * @param data The data of the resource
@@ -264,6 +324,24 @@ public class InjectionClassLoader extends URLClassLoader {
         this.runtimeResources.put(path, data);
     }
 
+    /**
+     * Small resources share preallocated chunks, so this is usually larger than the size of the resources.
+     *
+     * @return The amount of off-heap memory allocated for the runtime resources in bytes
+     */
+    public long getRuntimeResourcesSize() {
+        return this.runtimeResources.getAllocatedSize();
+    }
+
+    /**
+     * Replaced resources still occupy their memory and are included.
+     *
+     * @return The total size of all runtime resources added to this loader in bytes
+     */
+    public long getRuntimeResourcesDataSize() {
+        return this.runtimeResources.getDataSize();
+    }
+
     /**
      * Copy a resource from a class loader to the runtime resources.
      *
@@ -273,12 +351,7 @@ public class InjectionClassLoader extends URLClassLoader {
     public void copyResource(final ClassLoader classLoader, final String path) {
         try (InputStream is = classLoader.getResourceAsStream(path)) {
             if (is == null) throw new IllegalArgumentException("Resource not found: " + path);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buf = new byte[1024];
-            int len;
-            while ((len = is.read(buf)) != -1) baos.write(buf, 0, len);
-            this.addRuntimeResource(path, baos.toByteArray());
+            this.addRuntimeResource(path, ClassResource.read(is, -1));
         } catch (IOException e) {
             throw new IllegalArgumentException("Resource not found: " + path);
         }
@@ -0,0 +1,215 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the packages contained in the jar files of a class loader.<br>
+ * Jar files are opened once when they are added, their manifest is read once and classes are read directly from the zip entries.<br>
+ * Urls which are not local jar files are not indexed, classes which could be in them have to be looked up using the url class loader.<br>
+ * Jars referenced by the {@code Class-Path} attribute of a manifest are not indexed either, they are searched by the url class loader after the jar declaring them.
+ */
+@ParametersAreNonnullByDefault
+class JarIndex implements Closeable {
+
+    private static final String VERSIONS_DIR = "META-INF/versions/";
+    @Nullable
+    private static final Object RUNTIME_VERSION;
+    @Nullable
+    private static final Constructor<JarFile> VERSIONED_JAR_FILE;
+
+    static {
+        Object runtimeVersion = null;
+        Constructor<JarFile> versionedJarFile = null;
+        try {
+            //Multi release jars are only supported by Java 9+
+            Class<?> versionClass = Class.forName("java.lang.Runtime$Version");
+            runtimeVersion = Runtime.class.getMethod("version").invoke(null);
+            versionedJarFile = JarFile.class.getConstructor(File.class, boolean.class, int.class, versionClass);
+        } catch (Throwable ignored) {
+        }
+        RUNTIME_VERSION = runtimeVersion;
+        VERSIONED_JAR_FILE = versionedJarFile;
+    }
+
+    private final Map<String, List<JarSource>> packages = new ConcurrentHashMap<>();
+    private final List<JarSource> sources = new CopyOnWriteArrayList<>();
+    private int urlCount;
+    private volatile int firstUnindexed = Integer.MAX_VALUE;
+
+    /**
+     * Add an url to the index.<br>
+     * Urls have to be added in the same order as they are added to the class loader.
+     *
+     * @param url The url to add
+     */
+    synchronized void add(final URL url) {
+        int position = this.urlCount++;
+        File file = toJarFile(url);
+        if (file != null) {
+            try {
+                JarSource source = new JarSource(url, openJarFile(file), position);
+                this.sources.add(source);
+                for (String packageName : source.getPackages()) this.packages.computeIfAbsent(packageName, p -> new CopyOnWriteArrayList<>()).add(source);
+                //The url class loader searches the jars referenced by the manifest directly after this jar, they are not indexed
+                if (source.hasClassPath() && this.firstUnindexed == Integer.MAX_VALUE) this.firstUnindexed = position;
+                return;
+            } catch (IOException ignored) {
+                //The url class loader will handle the invalid url
+            }
+        }
+        if (this.firstUnindexed == Integer.MAX_VALUE) this.firstUnindexed = position;
+    }
+
+    /**
+     * @return If all urls of the class loader are indexed and no indexed jar references other jars
+     */
+    boolean isComplete() {
+        return this.firstUnindexed == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Find a class in the indexed jar files.<br>
+     * Jar files after the first url which is not indexed or the first jar with a {@code Class-Path} are ignored since the class could be in those urls.
+     *
+     * @param path The path of the class file
+     * @return The class resource or null if the class is not in the indexed jar files
+     * @throws IOException If the class could not be read
+     */
+    @Nullable
+    ClassResource find(final String path) throws IOException {
+        int slash = path.lastIndexOf('/');
+        List<JarSource> sources = this.packages.get(slash == -1 ? "" : path.substring(0, slash));
+        if (sources == null) return null;
+        int firstUnindexed = this.firstUnindexed;
+        for (JarSource source : sources) {
+            if (source.position > firstUnindexed) return null;
+            JarEntry entry = source.jarFile.getJarEntry(path);
+            if (entry == null) continue;
+            byte[] bytes;
+            try (InputStream is = source.jarFile.getInputStream(entry)) {
+                bytes = ClassResource.read(is, entry.getSize());
+            }
+            return new ClassResource(source.url, bytes, entry.getCodeSigners(), source);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException exception = null;
+        for (JarSource source : this.sources) {
+            try {
+                source.jarFile.close();
+            } catch (IOException e) {
+                if (exception == null) exception = e;
+                else exception.addSuppressed(e);
+            }
+        }
+        this.sources.clear();
+        this.packages.clear();
+        if (exception != null) throw exception;
+    }
+
+    @Nullable
+    private static File toJarFile(final URL url) {
+        if (!"file".equalsIgnoreCase(url.getProtocol()) || url.getRef() != null) return null;
+        File file;
+        try {
+            file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            file = new File(url.getPath());
+        }
+        return file.isFile() ? file : null;
+    }
+
+    private static JarFile openJarFile(final File file) throws IOException {
+        if (VERSIONED_JAR_FILE != null) {
+            try {
+                return VERSIONED_JAR_FILE.newInstance(file, true, ZipFile.OPEN_READ, RUNTIME_VERSION);
+            } catch (ReflectiveOperationException ignored) {
+            }
+        }
+        return new JarFile(file);
+    }
+
+
+    /**
+     * A jar file of the class loader with its cached manifest and sealing information.
+     */
+    static class JarSource {
+        private final URL url;
+        private final JarFile jarFile;
+        private final int position;
+        @Nullable
+        private final Manifest manifest;
+        private final Map<String, Boolean> sealedPackages = new ConcurrentHashMap<>();
+
+        private JarSource(final URL url, final JarFile jarFile, final int position) throws IOException {
+            this.url = url;
+            this.jarFile = jarFile;
+            this.position = position;
+            this.manifest = jarFile.getManifest();
+        }
+
+        private Set<String> getPackages() {
+            Set<String> packages = new HashSet<>();
+            Enumeration<JarEntry> entries = this.jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class")) continue;
+                if (name.startsWith(VERSIONS_DIR)) {
+                    //Versioned classes are resolved by the jar file, but they may be in packages which are missing in the base version
+                    int versionEnd = name.indexOf('/', VERSIONS_DIR.length());
+                    if (versionEnd == -1) continue;
+                    name = name.substring(versionEnd + 1);
+                }
+                int slash = name.lastIndexOf('/');
+                packages.add(slash == -1 ? "" : name.substring(0, slash));
+            }
+            return packages;
+        }
+
+        private boolean hasClassPath() {
+            if (this.manifest == null) return false;
+            String classPath = this.manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+            return classPath != null && !classPath.trim().isEmpty();
+        }
+
+        /**
+         * @return The manifest of the jar file
+         */
+        @Nullable
+        Manifest getManifest() {
+            return this.manifest;
+        }
+
+        /**
+         * Check if the manifest of the jar file seals the given package.<br>
+         * The result is cached per package.
+         *
+         * @param packageName The name of the package
+         * @return If the package is sealed
+         */
+        boolean isSealed(final String packageName) {
+            if (this.manifest == null) return false;
+            return this.sealedPackages.computeIfAbsent(packageName, p -> ClassResource.isSealed(this.manifest, p));
+        }
+    }
+
+}
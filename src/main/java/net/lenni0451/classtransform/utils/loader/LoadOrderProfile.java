@@ -0,0 +1,81 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The order in which classes have been requested from an {@link InjectionClassLoader}.<br>
+ * A profile recorded in one run can be used to pre-transform the classes in the next run using {@link InjectionClassLoader#preTransform(LoadOrderProfile, int)}.<br>
+ * The profile file contains one class name per line.
+ */
+@ParametersAreNonnullByDefault
+public class LoadOrderProfile {
+
+    /**
+     * Read a profile from a file.
+     *
+     * @param file The file to read from
+     * @return The read profile
+     * @throws IOException If the file could not be read
+     */
+    public static LoadOrderProfile read(final File file) throws IOException {
+        LoadOrderProfile profile = new LoadOrderProfile();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) profile.record(line);
+            }
+        }
+        return profile;
+    }
+
+
+    private final Set<String> recorded = ConcurrentHashMap.newKeySet();
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Record that a class has been requested.<br>
+     * Classes which have already been recorded are ignored.
+     *
+     * @param className The name of the class
+     */
+    public void record(final String className) {
+        if (this.recorded.add(className)) this.order.add(className);
+    }
+
+    /**
+     * @return The recorded classes in the order they have been requested
+     */
+    public List<String> getClasses() {
+        return new ArrayList<>(this.order);
+    }
+
+    /**
+     * @return The amount of recorded classes
+     */
+    public int size() {
+        return this.recorded.size();
+    }
+
+    /**
+     * Write the profile to a file.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void write(final File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("# ClassTransform load order profile\n");
+            for (String className : this.order) writer.write(className + "\n");
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import net.lenni0451.classtransform.TransformerManager;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.lenni0451.classtransform.utils.ASMUtils.slash;
+
+/**
+ * Speculatively transforms classes in the background in the order of a {@link LoadOrderProfile}.<br>
+ * When a class is requested, {@link InjectionClassLoader} uses the pre-transformed bytecode if it is available.<br>
+ * If the class is not in the profile or has not been started yet, it is transformed on the requesting thread as usual.<br>
+ * Results are discarded if the transformers of the transformer manager changed after the class was pre-transformed.<br>
+ * <b>Classes are transformed even if they are not requested in this run. Transformer failures are handled by the fail strategy of the transformer manager.</b>
+ */
+@ParametersAreNonnullByDefault
+public class PreTransformer implements AutoCloseable {
+
+    private final InjectionClassLoader loader;
+    private final ExecutorService executor;
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger discarded = new AtomicInteger();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    PreTransformer(final InjectionClassLoader loader, final LoadOrderProfile profile, final int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("The thread count must be positive");
+        this.loader = loader;
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ClassTransform Pre-Transformer #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<String> classes = profile.getClasses();
+        for (String className : classes) {
+            if (!loader.isProtected(className)) this.tasks.putIfAbsent(className, new Task(className));
+        }
+        //The executor queue keeps the order of the profile
+        for (String className : classes) {
+            Task task = this.tasks.get(className);
+            if (task != null) this.executor.execute(task);
+        }
+        this.executor.shutdown();
+    }
+
+    /**
+     * Take the pre-transformed class from this pre-transformer.<br>
+     * If the class is currently being transformed, this waits for the result.
+     *
+     * @param className The name of the class
+     * @return The result or null if the class has to be transformed by the caller
+     */
+    @Nullable
+    Result take(final String className) {
+        Task task = this.tasks.remove(className);
+        if (task == null || task.claim()) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = task.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = null;
+        } catch (ExecutionException e) {
+            result = null;
+        }
+        long waited = System.nanoTime() - start;
+        if (result == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        if (result.modifications != this.loader.getTransformerManager().getModificationCount()) {
+            this.discarded.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        this.savedNanos.addAndGet(Math.max(0, result.transformNanos - waited));
+        return result;
+    }
+
+    /**
+     * Wait until all classes of the profile have been pre-transformed.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return If all classes have been pre-transformed
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public boolean awaitCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return The amount of requested classes which used pre-transformed bytecode
+     */
+    public int getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return The amount of requested classes which had to be transformed on the requesting thread
+     */
+    public int getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return The amount of pre-transformed classes which were outdated when they were requested
+     */
+    public int getDiscarded() {
+        return this.discarded.get();
+    }
+
+    /**
+     * @return The ratio of hits to all requested classes
+     */
+    public double getHitRate() {
+        int requested = this.hits.get() + this.misses.get() + this.discarded.get();
+        return requested == 0 ? 0 : this.hits.get() / (double) requested;
+    }
+
+    /**
+     * Get the time the requesting threads did not have to spend transforming classes.<br>
+     * If a requesting thread had to wait for a class to be pre-transformed, the waiting time is subtracted.
+     *
+     * @param unit The unit of the returned time
+     * @return The saved time
+     */
+    public long getSavedTime(final TimeUnit unit) {
+        return unit.convert(this.savedNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop pre-transforming classes and drop all results which have not been requested yet.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        for (Task task : this.tasks.values()) {
+            //Requesting threads waiting for a task which will never run can't exist since only claimed tasks are awaited
+            if (task.claim()) task.result.complete(null);
+        }
+        this.tasks.clear();
+    }
+
+
+    private class Task implements Runnable {
+        private final String className;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        private Task(final String className) {
+            this.className = className;
+        }
+
+        private boolean claim() {
+            return this.claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (!this.claim()) return;
+            try {
+                ClassResource resource = PreTransformer.this.loader.findClassResource(slash(this.className) + ".class");
+                if (resource == null) {
+                    this.result.complete(null);
+                    return;
+                }
+                TransformerManager transformerManager = PreTransformer.this.loader.getTransformerManager();
+                int modifications = transformerManager.getModificationCount();
+                long start = System.nanoTime();
+                byte[] transformed = transformerManager.transform(this.className, resource.getBytes());
+                this.result.complete(new Result(resource, transformed, modifications, System.nanoTime() - start));
+            } catch (Throwable t) {
+                this.result.complete(null);
+            }
+        }
+    }
+
+    /**
+     * A class which has been read and transformed in the background.
+     */
+    static class Result {
+        private final ClassResource resource;
+        @Nullable
+        private final byte[] transformed;
+        private final int modifications;
+        private final long transformNanos;
+
+        private Result(final ClassResource resource, @Nullable final byte[] transformed, final int modifications, final long transformNanos) {
+            this.resource = resource;
+            this.transformed = transformed;
+            this.modifications = modifications;
+            this.transformNanos = transformNanos;
+        }
+
+        /**
+         * @return The read class
+         */
+        ClassResource getResource() {
+            return this.resource;
+        }
+
+        /**
+         * @return The transformed bytecode or null if the class was not changed
+         */
+        @Nullable
+        byte[] getTransformed() {
+            return this.transformed;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable prefix trie to check if a string starts with any of the given prefixes.<br>
+ * A check only walks the characters of the string once, no matter how many prefixes there are.
+ */
+@ParametersAreNonnullByDefault
+class PrefixMatcher {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+
+    /**
+     * @param prefixes The prefixes to match
+     */
+    PrefixMatcher(final Collection<String> prefixes) {
+        this.root = new Node();
+        for (String prefix : prefixes) this.root.add(prefix, 0);
+    }
+
+    /**
+     * @param s The string to check
+     * @return If the string starts with any of the prefixes
+     */
+    boolean matches(final String s) {
+        Node node = this.root;
+        for (int i = 0; ; i++) {
+            if (node.terminal) return true;
+            if (i == s.length()) return false;
+            node = node.get(s.charAt(i));
+            if (node == null) return false;
+        }
+    }
+
+
+    private static class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        private void add(final String prefix, final int index) {
+            if (index == prefix.length()) {
+                this.terminal = true;
+                return;
+            }
+            char c = prefix.charAt(index);
+            int slot = Arrays.binarySearch(this.keys, c);
+            if (slot < 0) {
+                slot = -slot - 1;
+                char[] keys = new char[this.keys.length + 1];
+                Node[] children = new Node[this.children.length + 1];
+                System.arraycopy(this.keys, 0, keys, 0, slot);
+                System.arraycopy(this.children, 0, children, 0, slot);
+                System.arraycopy(this.keys, slot, keys, slot + 1, this.keys.length - slot);
+                System.arraycopy(this.children, slot, children, slot + 1, this.children.length - slot);
+                keys[slot] = c;
+                children[slot] = new Node();
+                this.keys = keys;
+                this.children = children;
+            }
+            this.children[slot].add(prefix, index + 1);
+        }
+
+        private Node get(final char c) {
+            int slot = Arrays.binarySearch(this.keys, c);
+            return slot < 0 ? null : this.children[slot];
+        }
+    }
+
+}
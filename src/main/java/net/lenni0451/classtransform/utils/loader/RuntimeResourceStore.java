@@ -0,0 +1,122 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Off-heap storage for the runtime resources of an {@link InjectionClassLoader}.<br>
+ * Resources are copied into large direct buffers once, small resources share a chunk to avoid the overhead of a direct buffer per resource.<br>
+ * The url of a resource is created once and streams read directly from the stored buffer.<br>
+ * The space of replaced resources is not reused.
+ */
+@ParametersAreNonnullByDefault
+class RuntimeResourceStore {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+    static final int MAX_SHARED_SIZE = CHUNK_SIZE / 4;
+
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    @Nullable
+    private ByteBuffer chunk;
+    private long dataSize;
+    private long allocatedSize;
+
+    /**
+     * Copy a resource into the store.<br>
+     * An existing resource with the same path is replaced.
+     *
+     * @param path The path of the resource
+     * @param data The data of the resource
+     */
+    void put(final String path, final byte[] data) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            if (data.length > MAX_SHARED_SIZE) {
+                buffer = ByteBuffer.allocateDirect(data.length);
+                this.allocatedSize += data.length;
+            } else {
+                if (this.chunk == null || this.chunk.remaining() < data.length) {
+                    this.chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+                    this.allocatedSize += CHUNK_SIZE;
+                }
+                buffer = this.chunk.slice();
+                buffer.limit(data.length);
+                this.chunk.position(this.chunk.position() + data.length);
+            }
+            this.dataSize += data.length;
+        }
+        buffer.put(data);
+        buffer.flip();
+        this.resources.put(path, new Resource(path, buffer.asReadOnlyBuffer()));
+    }
+
+    /**
+     * @param path The path of the resource
+     * @return The resource or null if it is not in the store
+     */
+    @Nullable
+    Resource get(final String path) {
+        return this.resources.get(path);
+    }
+
+    /**
+     * @return The amount of bytes copied into the store, including replaced resources
+     */
+    synchronized long getDataSize() {
+        return this.dataSize;
+    }
+
+    /**
+     * The unused rest of the shared chunks is included.
+     *
+     * @return The amount of off-heap memory allocated by the store in bytes
+     */
+    synchronized long getAllocatedSize() {
+        return this.allocatedSize;
+    }
+
+
+    /**
+     * A resource stored off-heap.
+     */
+    static class Resource {
+        private final String path;
+        private final ByteBuffer data;
+        @Nullable
+        private volatile URL url;
+
+        private Resource(final String path, final ByteBuffer data) {
+            this.path = path;
+            this.data = data;
+        }
+
+        /**
+         * @return A read-only view of the data which can be used independently of other callers
+         */
+        ByteBuffer getData() {
+            return this.data.duplicate();
+        }
+
+        /**
+         * @return The cached url of the resource
+         */
+        URL getUrl() {
+            URL url = this.url;
+            if (url == null) {
+                try {
+                    url = new URL("x-buffer", null, -1, this.path, new BytesURLStreamHandler(this.data));
+                } catch (MalformedURLException e) {
+                    throw new RuntimeException("This should never have happened", e);
+                }
+                this.url = url; //Creating the url twice is harmless
+            }
+            return url;
+        }
+    }
+
+}
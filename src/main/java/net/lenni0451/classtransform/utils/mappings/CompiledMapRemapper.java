@@ -0,0 +1,259 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+
+/**
+ * A {@link MapRemapper} backed by a table of {@link CompiledMappings}.<br>
+ * Lookups are resolved lazily from the memory mapped table. Added mappings are stored on the heap and take precedence over the compiled ones.
+ */
+@ParametersAreNonnullByDefault
+public class CompiledMapRemapper extends MapRemapper {
+
+    private CompiledMappings.Table table;
+    private final Map<String, String> mappingsView = new MappingsView();
+
+    public CompiledMapRemapper() {
+    }
+
+    public CompiledMapRemapper(final CompiledMappings.Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Set the compiled table used by this remapper.
+     *
+     * @param table The compiled table
+     */
+    public void setTable(final CompiledMappings.Table table) {
+        this.table = table;
+        this.invalidateReverse();
+        this.markModified();
+    }
+
+    /**
+     * @return The compiled table used by this remapper or null if none has been set
+     */
+    @Nullable
+    public CompiledMappings.Table getTable() {
+        return this.table;
+    }
+
+    /**
+     * Get a read-only view of all compiled and added mappings.<br>
+     * Added mappings take precedence over compiled ones. The view is not copied, iterating it reads the compiled table directly.
+     *
+     * @return The mappings
+     */
+    @Override
+    public Map<String, String> getMappings() {
+        if (this.table == null) return super.getMappings();
+        return this.mappingsView;
+    }
+
+    @Override
+    public void addClassMapping(final String from, final String to, final boolean skipIfExists) {
+        if (this.table == null) {
+            super.addClassMapping(from, to, skipIfExists);
+            return;
+        }
+        if (skipIfExists && this.table.contains(from, (char) 0, null, (char) 0, null)) return;
+        int modifications = this.getModificationCount();
+        super.addClassMapping(from, to, skipIfExists);
+        //Compiled member mappings may use the class in their owner or descriptor, the reverse can't be updated incrementally
+        if (modifications != this.getModificationCount()) this.invalidateReverse();
+    }
+
+    @Override
+    public void addMethodMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
+        boolean compiled = this.table != null && this.table.contains(owner, '.', name, (char) 0, desc);
+        if (compiled && skipIfExists) return;
+        int modifications = this.getModificationCount();
+        super.addMethodMapping(owner, name, desc, target, skipIfExists);
+        //New member mappings are mirrored into the reverse, overridden compiled mappings are still in the reversed table
+        if (compiled && modifications != this.getModificationCount()) this.invalidateReverse();
+    }
+
+    @Override
+    public void addFieldMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
+        boolean compiled = this.table != null && this.table.contains(owner, '.', name, ':', desc);
+        if (compiled && skipIfExists) return;
+        int modifications = this.getModificationCount();
+        super.addFieldMapping(owner, name, desc, target, skipIfExists);
+        if (compiled && modifications != this.getModificationCount()) this.invalidateReverse();
+    }
+
+    @Override
+    public List<String> getStartingMappings(final String... prefixes) {
+        if (this.table == null) return super.getStartingMappings(prefixes);
+        Set<String> mappings = new LinkedHashSet<>(super.getStartingMappings(prefixes));
+        for (String prefix : prefixes) mappings.addAll(this.table.getKeysStartingWith(prefix));
+        return new ArrayList<>(mappings);
+    }
+
+    @Override
+    public Map<String, String> getMethodMappings(final String owner, final String name) {
+        return this.addTableMembers(super.getMethodMappings(owner, name), owner + "." + name + "(", 1);
+    }
+
+    @Override
+    public Map<String, String> getFieldMappings(final String owner, final String name) {
+        return this.addTableMembers(super.getFieldMappings(owner, name), owner + "." + name + ":", 0);
+    }
+
+    private Map<String, String> addTableMembers(final Map<String, String> members, final String prefix, final int descriptorOffset) {
+        if (this.table == null) return members;
+        for (String key : this.table.getKeysStartingWith(prefix)) {
+            members.putIfAbsent(key.substring(prefix.length() - descriptorOffset), this.table.get(key));
+        }
+        return members;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && (this.table == null || this.table.size() == 0);
+    }
+
+    @Override
+    @Nullable
+    public String getClassMapping(final String name) {
+        String mapped = super.getClassMapping(name);
+        if (mapped == null && this.table != null) mapped = this.table.get(name);
+        return mapped;
+    }
+
+    @Override
+    @Nullable
+    public String getMethodMapping(final String owner, final String name, final String desc) {
+        String mapped = super.getMethodMapping(owner, name, desc);
+        if (mapped == null && this.table != null) mapped = this.table.get(owner, '.', name, (char) 0, desc);
+        return mapped;
+    }
+
+    @Override
+    @Nullable
+    public String getFieldMapping(final String owner, final String name, final String desc) {
+        String mapped = super.getFieldMapping(owner, name, desc);
+        if (mapped == null && this.table != null) mapped = this.table.get(owner, '.', name, ':', desc);
+        return mapped;
+    }
+
+    @Override
+    @Nullable
+    protected String getOtherMapping(final String owner, final String name) {
+        String mapped = super.getOtherMapping(owner, name);
+        if (mapped == null && this.table != null) mapped = this.table.get(owner, '.', name, (char) 0, null);
+        return mapped;
+    }
+
+    /**
+     * Create the reversed remapper using the precompiled reverse of the table.<br>
+     * Only mappings added on the heap have to be reversed, mappings added afterwards are mirrored like in every {@link MapRemapper}.
+     *
+     * @return The reversed remapper
+     */
+    @Override
+    protected MapRemapper createReverse() {
+        if (this.table == null) return super.createReverse();
+        return new CompiledMapRemapper(this.table.reverse());
+    }
+
+
+    /**
+     * A read-only map view of the added mappings followed by the compiled mappings which are not overridden.
+     */
+    private class MappingsView extends AbstractMap<String, String> {
+        private int size = -1;
+        private int sizeModifications;
+
+        @Override
+        public int size() {
+            CompiledMappings.Table table = CompiledMapRemapper.this.table;
+            int modifications = CompiledMapRemapper.this.getModificationCount();
+            if (this.size < 0 || this.sizeModifications != modifications) {
+                //Only the added mappings have to be checked for overridden compiled mappings
+                int size = table.size();
+                for (String key : CompiledMapRemapper.this.getStoredMappings().keySet()) {
+                    if (table.get(key) == null) size++;
+                }
+                this.size = size;
+                this.sizeModifications = modifications;
+            }
+            return this.size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return CompiledMapRemapper.this.isEmpty();
+        }
+
+        @Override
+        public String get(final Object key) {
+            if (!(key instanceof String)) return null;
+            return CompiledMapRemapper.this.map((String) key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        @Nonnull
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public int size() {
+                    return MappingsView.this.size();
+                }
+
+                @Override
+                @Nonnull
+                public Iterator<Entry<String, String>> iterator() {
+                    return new MappingsIterator(CompiledMapRemapper.this.table);
+                }
+            };
+        }
+    }
+
+    private class MappingsIterator implements Iterator<Map.Entry<String, String>> {
+        private final Iterator<Map.Entry<String, String>> storedIterator = CompiledMapRemapper.this.getStoredMappings().entrySet().iterator();
+        private final CompiledMappings.Table table;
+        private int index;
+        @Nullable
+        private Map.Entry<String, String> next;
+
+        private MappingsIterator(final CompiledMappings.Table table) {
+            this.table = table;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next != null) return true;
+            if (this.storedIterator.hasNext()) {
+                this.next = this.storedIterator.next();
+                return true;
+            }
+            while (this.index < this.table.size()) {
+                String key = this.table.getKey(this.index);
+                String value = this.table.getValue(this.index);
+                this.index++;
+                if (CompiledMapRemapper.this.getStoredMapping(key) != null) continue;
+                this.next = new AbstractMap.SimpleImmutableEntry<>(key, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            Map.Entry<String, String> next = this.next;
+            this.next = null;
+            return next;
+        }
+    }
+
+}
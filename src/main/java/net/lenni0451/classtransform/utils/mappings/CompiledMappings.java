@@ -0,0 +1,360 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A read only view of a compiled mappings file created by the {@link MappingsCompiler}.<br>
+ * The file is memory mapped and all lookups are resolved lazily using the off-heap hash index of the file.<br>
+ * <br>
+ * File layout (big endian):<br>
+ * - {@code int magic, int version, int tableCount}<br>
+ * - For each table: {@code UTF name, int forwardOffset, int reverseOffset}<br>
+ * - Table sections: {@code int entryCount, int slotCount, int[slotCount] slots, int[entryCount] entryOffsets, int dataLength, byte[dataLength] data}<br>
+ * Entries are stored as two modified UTF-8 strings (key and value) sorted by key.
+ */
+@ParametersAreNonnullByDefault
+public class CompiledMappings {
+
+    static final int MAGIC = 0x43544D50; //CTMP
+    static final int VERSION = 1;
+
+    /**
+     * Memory map a compiled mappings file.
+     *
+     * @param file The file to open
+     * @return The compiled mappings
+     * @throws IOException If the file could not be mapped or is not a compiled mappings file
+     */
+    public static CompiledMappings open(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new CompiledMappings(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+
+    public CompiledMappings(final ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt(0) != MAGIC) throw new IOException("Not a compiled mappings file");
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported compiled mappings version " + buffer.getInt(4));
+
+        int tableCount = buffer.getInt(8);
+        int position = 12;
+        for (int i = 0; i < tableCount; i++) {
+            int nameLength = buffer.getShort(position) & 0xFFFF;
+            String name = decode(buffer, position + 2, nameLength);
+            position += 2 + nameLength;
+            Table forward = new Table(buffer, buffer.getInt(position));
+            Table reverse = new Table(buffer, buffer.getInt(position + 4));
+            position += 8;
+
+            forward.reverse = reverse;
+            reverse.reverse = forward;
+            this.tables.put(name, forward);
+        }
+    }
+
+    /**
+     * @return The names of all tables in this file
+     */
+    public Set<String> getTableNames() {
+        return Collections.unmodifiableSet(this.tables.keySet());
+    }
+
+    /**
+     * Get a table by its name.
+     *
+     * @param name The name of the table
+     * @return The table or null if there is no table with the given name
+     */
+    @Nullable
+    public Table getTable(final String name) {
+        return this.tables.get(name);
+    }
+
+    /**
+     * Get the table mapping from one namespace to another.<br>
+     * If only the opposite direction has been compiled, its reverse table is returned.
+     *
+     * @param from The namespace to map from
+     * @param to   The namespace to map to
+     * @return The table or null if the namespaces have not been compiled
+     */
+    @Nullable
+    public Table getTable(final String from, final String to) {
+        Table table = this.tables.get(MappingsCompiler.tableName(from, to));
+        if (table != null) return table;
+        table = this.tables.get(MappingsCompiler.tableName(to, from));
+        if (table != null) return table.reverse;
+        return null;
+    }
+
+
+    private static String decode(final ByteBuffer buffer, int position, final int length) {
+        int end = position + length;
+        char[] chars = new char[length];
+        int count = 0;
+        while (position < end) {
+            int b = buffer.get(position) & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                position++;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(position + 1) & 0x3F));
+                position += 2;
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get(position + 1) & 0x3F) << 6) | (buffer.get(position + 2) & 0x3F));
+                position += 3;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+
+    /**
+     * A single direction of compiled mappings.<br>
+     * The keys use the same format as the keys of the {@link MapRemapper}.
+     */
+    @ParametersAreNonnullByDefault
+    public static class Table {
+
+        private final ByteBuffer buffer;
+        private final int entryCount;
+        private final int slotMask;
+        private final int slotsOffset;
+        private final int entriesOffset;
+        private final int dataOffset;
+        private Table reverse;
+
+        private Table(final ByteBuffer buffer, final int offset) {
+            this.buffer = buffer;
+            this.entryCount = buffer.getInt(offset);
+            int slotCount = buffer.getInt(offset + 4);
+            this.slotMask = slotCount - 1;
+            this.slotsOffset = offset + 8;
+            this.entriesOffset = this.slotsOffset + slotCount * 4;
+            this.dataOffset = this.entriesOffset + this.entryCount * 4 + 4;
+        }
+
+        /**
+         * @return The table containing the reversed mappings
+         */
+        public Table reverse() {
+            return this.reverse;
+        }
+
+        /**
+         * @return The amount of mappings in this table
+         */
+        public int size() {
+            return this.entryCount;
+        }
+
+        /**
+         * Get the mapping for a key.
+         *
+         * @param key The key
+         * @return The mapping or null if there is no mapping for the key
+         */
+        @Nullable
+        public String get(final String key) {
+            return this.get(key, (char) 0, null, (char) 0, null);
+        }
+
+        /**
+         * Get the mapping for a key which is split into multiple parts.<br>
+         * This allows looking up member mappings without concatenating the key.<br>
+         * Separators with the value {@code 0} and {@code null} parts are skipped.
+         *
+         * @param part1      The first part of the key
+         * @param separator1 The separator after the first part
+         * @param part2      The second part of the key
+         * @param separator2 The separator after the second part
+         * @param part3      The third part of the key
+         * @return The mapping or null if there is no mapping for the key
+         */
+        @Nullable
+        public String get(final String part1, final char separator1, @Nullable final String part2, final char separator2, @Nullable final String part3) {
+            int index = this.find(part1, separator1, part2, separator2, part3);
+            if (index == -1) return null;
+            return this.getValue(index);
+        }
+
+        /**
+         * Check if this table contains a key which is split into multiple parts.
+         *
+         * @param part1      The first part of the key
+         * @param separator1 The separator after the first part
+         * @param part2      The second part of the key
+         * @param separator2 The separator after the second part
+         * @param part3      The third part of the key
+         * @return If the key exists
+         * @see #get(String, char, String, char, String)
+         */
+        public boolean contains(final String part1, final char separator1, @Nullable final String part2, final char separator2, @Nullable final String part3) {
+            return this.find(part1, separator1, part2, separator2, part3) != -1;
+        }
+
+        /**
+         * Get the key of an entry.
+         *
+         * @param index The index of the entry
+         * @return The key
+         */
+        public String getKey(final int index) {
+            int position = this.entryPosition(index);
+            return decode(this.buffer, position + 2, this.buffer.getShort(position) & 0xFFFF);
+        }
+
+        /**
+         * Get the value of an entry.
+         *
+         * @param index The index of the entry
+         * @return The value
+         */
+        public String getValue(final int index) {
+            int position = this.entryPosition(index);
+            position += 2 + (this.buffer.getShort(position) & 0xFFFF);
+            return decode(this.buffer, position + 2, this.buffer.getShort(position) & 0xFFFF);
+        }
+
+        /**
+         * Get all keys starting with the given prefix.<br>
+         * The entries are sorted, so only the matching range of the table is read.
+         *
+         * @param prefix The prefix
+         * @return The matching keys
+         */
+        public List<String> getKeysStartingWith(final String prefix) {
+            List<String> keys = new ArrayList<>();
+            for (int i = this.lowerBound(prefix); i < this.entryCount && this.keyStartsWith(i, prefix); i++) keys.add(this.getKey(i));
+            return keys;
+        }
+
+        /**
+         * Iterate over all entries of this table.<br>
+         * <b>This decodes every entry and should only be used if all mappings are required.</b>
+         *
+         * @param consumer The consumer for the key and value of each entry
+         */
+        public void forEach(final BiConsumer<String, String> consumer) {
+            for (int i = 0; i < this.entryCount; i++) consumer.accept(this.getKey(i), this.getValue(i));
+        }
+
+        private int entryPosition(final int index) {
+            return this.dataOffset + this.buffer.getInt(this.entriesOffset + index * 4);
+        }
+
+        private int find(final String part1, final char separator1, @Nullable final String part2, final char separator2, @Nullable final String part3) {
+            if (this.entryCount == 0) return -1;
+            int hash = hash(part1, separator1, part2, separator2, part3);
+            int slot = (hash ^ (hash >>> 16)) & this.slotMask;
+            while (true) {
+                int index = this.buffer.getInt(this.slotsOffset + slot * 4) - 1;
+                if (index == -1) return -1;
+                if (this.matches(index, part1, separator1, part2, separator2, part3)) return index;
+                slot = (slot + 1) & this.slotMask;
+            }
+        }
+
+        private boolean matches(final int index, final String part1, final char separator1, @Nullable final String part2, final char separator2, @Nullable final String part3) {
+            int position = this.entryPosition(index);
+            int end = position + 2 + (this.buffer.getShort(position) & 0xFFFF);
+            position += 2;
+
+            position = this.match(position, end, part1);
+            if (position != -1 && separator1 != 0) position = this.match(position, end, separator1);
+            if (position != -1 && part2 != null) position = this.match(position, end, part2);
+            if (position != -1 && separator2 != 0) position = this.match(position, end, separator2);
+            if (position != -1 && part3 != null) position = this.match(position, end, part3);
+            return position == end;
+        }
+
+        private int match(int position, final int end, final String part) {
+            for (int i = 0; i < part.length(); i++) {
+                position = this.match(position, end, part.charAt(i));
+                if (position == -1) return -1;
+            }
+            return position;
+        }
+
+        private int match(final int position, final int end, final char c) {
+            if (position >= end) return -1;
+            int b = this.buffer.get(position) & 0xFF;
+            if (b < 0x80) {
+                return b == c ? position + 1 : -1;
+            } else if ((b & 0xE0) == 0xC0) {
+                char decoded = (char) (((b & 0x1F) << 6) | (this.buffer.get(position + 1) & 0x3F));
+                return decoded == c ? position + 2 : -1;
+            } else {
+                char decoded = (char) (((b & 0x0F) << 12) | ((this.buffer.get(position + 1) & 0x3F) << 6) | (this.buffer.get(position + 2) & 0x3F));
+                return decoded == c ? position + 3 : -1;
+            }
+        }
+
+        private int lowerBound(final String key) {
+            int low = 0;
+            int high = this.entryCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.compareKey(mid, key) < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private int compareKey(final int index, final String key) {
+            int position = this.entryPosition(index);
+            int end = position + 2 + (this.buffer.getShort(position) & 0xFFFF);
+            position += 2;
+            for (int i = 0; i < key.length(); i++) {
+                if (position >= end) return -1;
+                int b = this.buffer.get(position) & 0xFF;
+                char c;
+                if (b < 0x80) {
+                    c = (char) b;
+                    position++;
+                } else if ((b & 0xE0) == 0xC0) {
+                    c = (char) (((b & 0x1F) << 6) | (this.buffer.get(position + 1) & 0x3F));
+                    position += 2;
+                } else {
+                    c = (char) (((b & 0x0F) << 12) | ((this.buffer.get(position + 1) & 0x3F) << 6) | (this.buffer.get(position + 2) & 0x3F));
+                    position += 3;
+                }
+                if (c != key.charAt(i)) return c - key.charAt(i);
+            }
+            return position == end ? 0 : 1;
+        }
+
+        private boolean keyStartsWith(final int index, final String prefix) {
+            int position = this.entryPosition(index);
+            int end = position + 2 + (this.buffer.getShort(position) & 0xFFFF);
+            return this.match(position + 2, end, prefix) != -1;
+        }
+
+    }
+
+
+    static int hash(final String part1, final char separator1, @Nullable final String part2, final char separator2, @Nullable final String part3) {
+        int hash = hash(0, part1);
+        if (separator1 != 0) hash = 31 * hash + separator1;
+        if (part2 != null) hash = hash(hash, part2);
+        if (separator2 != 0) hash = 31 * hash + separator2;
+        if (part3 != null) hash = hash(hash, part3);
+        return hash;
+    }
+
+    private static int hash(int hash, final String s) {
+        for (int i = 0; i < s.length(); i++) hash = 31 * hash + s.charAt(i);
+        return hash;
+    }
+
+}
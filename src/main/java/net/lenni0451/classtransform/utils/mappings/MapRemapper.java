@@ -1,5 +1,6 @@
 package net.lenni0451.classtransform.utils.mappings;
 
+import net.lenni0451.classtransform.utils.SymbolTable;
 import org.objectweb.asm.commons.Remapper;
 
 import javax.annotation.Nonnull;
@@ -8,29 +9,63 @@ import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.*;
 
 /**
- * An asm remapper implementation using a map to store the mappings.
+ * An asm remapper implementation using a map to store the mappings.<br>
+ * Class mappings are stored by name and member mappings are stored in a table per owner, keyed by name and descriptor.<br>
+ * This allows looking up mappings without building a key string for every lookup.<br>
+ * All names and descriptors are interned using the {@link SymbolTable}, so mappings sharing an owner or descriptor also share the string instance.<br>
+ * Once {@link #reverse()} has been called both remappers are linked and mappings added to one of them are also added to the other one.<br>
+ * The remapper is not thread-safe for modifications. Lookups and {@link #reverse()} may be used by multiple threads at the same time.<br>
+ * Only {@link #getModificationCount()} may be read while another thread modifies it.<br>
+ * {@link net.lenni0451.classtransform.mappings.AMapper} remaps transformers in parallel and only fills super mappings exclusively.
  */
 @ParametersAreNonnullByDefault
 public class MapRemapper extends Remapper {
 
-    private final Map<String, String> mappings;
+    private static final byte METHOD = 0;
+    private static final byte FIELD = 1;
+    private static final byte OTHER = 2;
+
+    private final Map<String, String> classes = new HashMap<>();
+    private final Map<String, MemberTable> members = new HashMap<>();
+    private final Map<String, String> mappingsView = new MappingsView();
+    private int memberCount;
+    private volatile int modifications;
     private MapRemapper reverse;
+    private Set<String> referencedClasses;
 
     public MapRemapper() {
-        this(new HashMap<>());
     }
 
     public MapRemapper(final String oldName, final String newName) {
-        this();
-        this.mappings.put(oldName, newName);
+        this.put(oldName, newName, false);
     }
 
+    /**
+     * @param mappings The mappings to copy into this remapper
+     */
     public MapRemapper(final Map<String, String> mappings) {
-        this.mappings = mappings;
+        for (Map.Entry<String, String> entry : mappings.entrySet()) this.put(entry.getKey(), entry.getValue(), false);
     }
 
+    /**
+     * Get a read-only view of all mappings.<br>
+     * Class mappings use the class name as key, method mappings use {@code owner.name(desc)} and field mappings use {@code owner.name:desc}.<br>
+     * The keys are built on demand when iterating over the view.
+     *
+     * @return The mappings
+     */
     public Map<String, String> getMappings() {
-        return Collections.unmodifiableMap(this.mappings);
+        return this.mappingsView;
+    }
+
+    /**
+     * Get a read-only view of the mappings stored in this remapper.<br>
+     * Unlike {@link #getMappings()} this does not contain mappings provided by subclasses.
+     *
+     * @return The stored mappings
+     */
+    protected final Map<String, String> getStoredMappings() {
+        return this.mappingsView;
     }
 
     /**
@@ -52,14 +87,24 @@ public class MapRemapper extends Remapper {
      * @param to           The new name of the class
      * @param skipIfExists If the mapping should be skipped if it already exists
      */
-    public void addClassMapping(final String from, final String to, final boolean skipIfExists) {
-        if (skipIfExists && this.mappings.containsKey(from)) return;
-        this.mappings.put(from, to);
-
-        if (this.reverse != null) {
-            this.reverse.reverse = null;
-            this.reverse = null;
+    public void addClassMapping(String from, String to, final boolean skipIfExists) {
+        from = SymbolTable.intern(from);
+        to = SymbolTable.intern(to);
+        String oldTo = this.classes.get(from);
+        if (oldTo != null && (skipIfExists || oldTo.equals(to))) return;
+        this.classes.put(from, to);
+        this.modifications++;
+        if (this.reverse == null) return;
+
+        if (this.referencedClasses.contains(from) || this.reverse.referencedClasses.contains(to) || (oldTo != null && this.reverse.referencedClasses.contains(oldTo))) {
+            //Mirrored member mappings use the old class name in their owner or descriptor
+            this.invalidateReverse();
+            return;
         }
+        this.reverse.modifications++;
+        if (oldTo != null) this.reverse.classes.remove(oldTo, from);
+        String collision = this.reverse.classes.put(to, from);
+        if (collision != null && !collision.equals(from)) this.invalidateReverse();
     }
 
     /**
@@ -84,14 +129,7 @@ public class MapRemapper extends Remapper {
      * @param skipIfExists If the mapping should be skipped if it already exists
      */
     public void addMethodMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
-        String key = owner + "." + name + desc;
-        if (skipIfExists && this.mappings.containsKey(key)) return;
-        this.mappings.put(key, target);
-
-        if (this.reverse != null) {
-            this.reverse.reverse = null;
-            this.reverse = null;
-        }
+        this.putMember(SymbolTable.intern(owner), METHOD, SymbolTable.intern(name), SymbolTable.intern(desc), SymbolTable.intern(target), skipIfExists);
     }
 
     /**
@@ -139,37 +177,67 @@ public class MapRemapper extends Remapper {
      * @param skipIfExists If the mapping should be skipped if it already exists
      */
     public void addFieldMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
-        String key = owner + "." + name + ":" + desc;
-        if (skipIfExists && this.mappings.containsKey(key)) return;
-        this.mappings.put(key, target);
-
-        if (this.reverse != null) {
-            this.reverse.reverse = null;
-            this.reverse = null;
-        }
+        this.putMember(SymbolTable.intern(owner), FIELD, SymbolTable.intern(name), SymbolTable.intern(desc), SymbolTable.intern(target), skipIfExists);
     }
 
     /**
-     * Get a list of all mapping keys starting with one of the given prefixes.
+     * Get a list of all mapping keys starting with one of the given prefixes.<br>
+     * Prefixes containing an owner ({@code owner.}) only search the members of that owner.
      *
      * @param prefixes The prefixes
      * @return The list of all keys starting with one of the given prefixes
      */
     public List<String> getStartingMappings(final String... prefixes) {
         List<String> mappings = new ArrayList<>();
-        for (String mapping : this.mappings.keySet()) {
-            for (String start : prefixes) {
-                if (mapping.startsWith(start)) mappings.add(mapping);
+        for (String prefix : prefixes) {
+            int dot = prefix.indexOf('.');
+            if (dot == -1) {
+                for (String mapping : this.mappingsView.keySet()) {
+                    if (mapping.startsWith(prefix)) mappings.add(mapping);
+                }
+                continue;
+            }
+
+            String owner = prefix.substring(0, dot);
+            MemberTable table = this.members.get(owner);
+            if (table == null) continue;
+            for (int i = 0; i < table.names.length; i++) {
+                if (table.names[i] == null) continue;
+                String mapping = memberKey(owner, table.kinds[i], table.names[i], table.descs[i]);
+                if (mapping.startsWith(prefix)) mappings.add(mapping);
             }
         }
         return mappings;
     }
 
+    /**
+     * Get all method mappings of an owner with the given name.
+     *
+     * @param owner The owner of the methods
+     * @param name  The name of the methods
+     * @return A new map of the method descriptors and their new names
+     */
+    public Map<String, String> getMethodMappings(final String owner, final String name) {
+        return this.getMembers(owner, METHOD, name);
+    }
+
+    /**
+     * Get all field mappings of an owner with the given name.<br>
+     * Fields mapped without a descriptor have an empty descriptor.
+     *
+     * @param owner The owner of the fields
+     * @param name  The name of the fields
+     * @return A new map of the field descriptors and their new names
+     */
+    public Map<String, String> getFieldMappings(final String owner, final String name) {
+        return this.getMembers(owner, FIELD, name);
+    }
+
     /**
      * @return If the remapper has no mappings
      */
     public boolean isEmpty() {
-        return this.mappings.isEmpty();
+        return this.classes.isEmpty() && this.memberCount == 0;
     }
 
     /**
@@ -178,43 +246,162 @@ public class MapRemapper extends Remapper {
      * @param remapper The remapper to copy mappings from
      */
     public void copy(final MapRemapper remapper) {
-        this.mappings.putAll(remapper.mappings);
+        if (remapper.getClass() != MapRemapper.class) {
+            //Subclasses may provide mappings which are not stored in the tables
+            for (Map.Entry<String, String> entry : remapper.getMappings().entrySet()) this.put(entry.getKey(), entry.getValue(), false);
+            return;
+        }
+        this.invalidateReverse();
+        this.classes.putAll(remapper.classes);
+        this.modifications++;
+        for (Map.Entry<String, MemberTable> entry : remapper.members.entrySet()) {
+            MemberTable table = entry.getValue();
+            for (int i = 0; i < table.names.length; i++) {
+                if (table.names[i] == null) continue;
+                this.putMember(entry.getKey(), table.kinds[i], table.names[i], table.descs[i], table.targets[i], false);
+            }
+        }
+    }
+
+    /**
+     * Get the amount of modifications made to this remapper.<br>
+     * This can be used to detect if results computed using this remapper are outdated.
+     *
+     * @return The modification count
+     */
+    public int getModificationCount() {
+        return this.modifications;
+    }
+
+    /**
+     * Mark this remapper as modified.<br>
+     * Subclasses providing additional mappings have to call this when their mappings change.
+     */
+    protected void markModified() {
+        this.modifications++;
+    }
+
+    /**
+     * Get the mapping of a class.
+     *
+     * @param name The name of the class
+     * @return The new name of the class or null if there is no mapping
+     */
+    @Nullable
+    public String getClassMapping(final String name) {
+        return this.classes.get(name);
+    }
+
+    /**
+     * Get the mapping of a method.
+     *
+     * @param owner The owner of the method
+     * @param name  The name of the method
+     * @param desc  The descriptor of the method
+     * @return The new name of the method or null if there is no mapping
+     */
+    @Nullable
+    public String getMethodMapping(final String owner, final String name, final String desc) {
+        return this.getMember(owner, METHOD, name, desc);
+    }
+
+    /**
+     * Get the mapping of a field.<br>
+     * Fields mapped without a descriptor have to be looked up using an empty descriptor.
+     *
+     * @param owner The owner of the field
+     * @param name  The name of the field
+     * @param desc  The descriptor of the field
+     * @return The new name of the field or null if there is no mapping
+     */
+    @Nullable
+    public String getFieldMapping(final String owner, final String name, final String desc) {
+        return this.getMember(owner, FIELD, name, desc);
+    }
+
+    /**
+     * Get the mapping of a key which is neither a class, method nor field key.<br>
+     * This is used for annotation attribute names ({@code descriptor.name}).
+     *
+     * @param owner The part of the key before the first dot
+     * @param name  The part of the key after the first dot
+     * @return The mapping or null if there is no mapping
+     */
+    @Nullable
+    protected String getOtherMapping(final String owner, final String name) {
+        return this.getMember(owner, OTHER, name, "");
     }
 
 
     @Override
     @Nonnull
     public String mapMethodName(final String owner, final String name, final String descriptor) {
-        String remappedName = this.map(owner + '.' + name + descriptor);
+        String remappedName = this.getMethodMapping(owner, name, descriptor);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     @Nonnull
     public String mapInvokeDynamicMethodName(final String name, final String descriptor) {
-        String remappedName = this.map('.' + name + descriptor);
+        String remappedName = this.getMethodMapping("", name, descriptor);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     @Nonnull
     public String mapAnnotationAttributeName(final String descriptor, final String name) {
-        String remappedName = this.map(descriptor + '.' + name);
+        String remappedName = this.getOtherMapping(descriptor, name);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     @Nonnull
     public String mapFieldName(final String owner, final String name, final String descriptor) {
-        String remappedName = this.map(owner + '.' + name + ':' + descriptor);
-        if (remappedName == null) remappedName = this.map(owner + '.' + name + ":");
+        String remappedName = this.getFieldMapping(owner, name, descriptor);
+        if (remappedName == null) remappedName = this.getFieldMapping(owner, name, "");
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     @Nullable
     public String map(final String key) {
-        return this.mappings.get(key);
+        int dot = key.indexOf('.');
+        if (dot == -1) return this.getClassMapping(key);
+
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot + 1);
+        int bracket = key.indexOf('(', dot + 1);
+        if (colon != -1 && (bracket == -1 || colon < bracket)) {
+            return this.getFieldMapping(owner, key.substring(dot + 1, colon), key.substring(colon + 1));
+        } else if (bracket != -1) {
+            return this.getMethodMapping(owner, key.substring(dot + 1, bracket), key.substring(bracket));
+        } else {
+            return this.getOtherMapping(owner, key.substring(dot + 1));
+        }
+    }
+
+    /**
+     * Get the mapping for a key stored in this remapper.<br>
+     * Unlike {@link #map(String)} this ignores mappings provided by subclasses.
+     *
+     * @param key The key
+     * @return The mapping or null if there is no stored mapping
+     */
+    @Nullable
+    protected final String getStoredMapping(final String key) {
+        int dot = key.indexOf('.');
+        if (dot == -1) return this.classes.get(key);
+
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot + 1);
+        int bracket = key.indexOf('(', dot + 1);
+        if (colon != -1 && (bracket == -1 || colon < bracket)) {
+            return this.getMember(owner, FIELD, key.substring(dot + 1, colon), key.substring(colon + 1));
+        } else if (bracket != -1) {
+            return this.getMember(owner, METHOD, key.substring(dot + 1, bracket), key.substring(bracket));
+        } else {
+            return this.getMember(owner, OTHER, key.substring(dot + 1), "");
+        }
     }
 
     /**
@@ -226,46 +413,342 @@ public class MapRemapper extends Remapper {
      */
     @Nonnull
     public String mapSafe(final String key) {
-        return this.mappings.getOrDefault(key, key);
+        String mapped = this.map(key);
+        return mapped == null ? key : mapped;
     }
 
 
     /**
-     * Reverse the mappings of this remapper.
+     * Reverse the mappings of this remapper.<br>
+     * The reversed remapper is only built once. Mappings added afterwards are added to both remappers.<br>
+     * Only if a class mapping is changed which is already used by member mappings, the reversed remapper has to be rebuilt.
      *
      * @return The reversed remapper
      */
     @Nonnull
-    public MapRemapper reverse() {
+    public synchronized MapRemapper reverse() {
         if (this.reverse != null) return this.reverse;
-        MapRemapper reverseRemapper = new MapRemapper();
-        for (Map.Entry<String, String> entry : this.mappings.entrySet()) {
-            if (entry.getKey().contains(".")) continue;
-            reverseRemapper.addClassMapping(entry.getValue(), entry.getKey());
-        }
-        for (Map.Entry<String, String> entry : this.mappings.entrySet()) {
-            if (!entry.getKey().contains(".")) continue;
-            if (entry.getKey().contains(":")) {
-                String fieldMapping = entry.getKey();
-                String owner = fieldMapping.substring(0, fieldMapping.indexOf("."));
-                String name = fieldMapping.substring(fieldMapping.indexOf(".") + 1, fieldMapping.indexOf(":"));
-                String desc = fieldMapping.substring(fieldMapping.indexOf(":") + 1);
-                String mappedName = entry.getValue();
-
-                if (desc.isEmpty()) reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, name);
-                else reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, this.mapDesc(desc), name);
-            } else {
-                String methodMapping = entry.getKey();
-                String owner = methodMapping.substring(0, methodMapping.indexOf("."));
-                String name = methodMapping.substring(methodMapping.indexOf(".") + 1, methodMapping.indexOf("("));
-                String desc = methodMapping.substring(methodMapping.indexOf("("));
-                String mappedName = entry.getValue();
-
-                reverseRemapper.addMethodMapping(this.mapSafe(owner), mappedName, this.mapMethodDesc(desc), name);
+        MapRemapper reverseRemapper = this.createReverse();
+        for (Map.Entry<String, String> entry : this.classes.entrySet()) reverseRemapper.addClassMapping(entry.getValue(), entry.getKey());
+        for (Map.Entry<String, MemberTable> entry : this.members.entrySet()) {
+            String owner = this.mapSafe(entry.getKey());
+            MemberTable table = entry.getValue();
+            for (int i = 0; i < table.names.length; i++) {
+                if (table.names[i] == null) continue;
+                if (table.kinds[i] == METHOD) {
+                    reverseRemapper.addMethodMapping(owner, table.targets[i], this.mapMethodDesc(table.descs[i]), table.names[i]);
+                } else if (table.kinds[i] == FIELD) {
+                    if (table.descs[i].isEmpty()) reverseRemapper.addFieldMapping(owner, table.targets[i], table.names[i]);
+                    else reverseRemapper.addFieldMapping(owner, table.targets[i], this.mapDesc(table.descs[i]), table.names[i]);
+                }
             }
         }
+        this.referencedClasses = this.collectReferencedClasses();
+        reverseRemapper.referencedClasses = reverseRemapper.collectReferencedClasses();
         reverseRemapper.reverse = this;
         return this.reverse = reverseRemapper;
     }
 
+    /**
+     * Create the remapper the reversed mappings of this remapper are added to.<br>
+     * Subclasses can return a remapper which already contains the reverse of the mappings they provide.
+     *
+     * @return The empty reversed remapper
+     */
+    protected MapRemapper createReverse() {
+        return new MapRemapper();
+    }
+
+    /**
+     * Unlink this remapper and its reversed remapper.<br>
+     * The next call to {@link #reverse()} rebuilds the reversed remapper.<br>
+     * Subclasses have to call this when a change can't be mirrored into the reversed remapper.
+     */
+    protected final void invalidateReverse() {
+        if (this.reverse != null) {
+            this.reverse.reverse = null;
+            this.reverse.referencedClasses = null;
+            this.reverse = null;
+            this.referencedClasses = null;
+        }
+    }
+
+    private Set<String> collectReferencedClasses() {
+        Set<String> referencedClasses = new HashSet<>();
+        for (Map.Entry<String, MemberTable> entry : this.members.entrySet()) {
+            referencedClasses.add(entry.getKey());
+            MemberTable table = entry.getValue();
+            for (int i = 0; i < table.names.length; i++) {
+                if (table.names[i] != null) addReferencedClasses(referencedClasses, table.descs[i]);
+            }
+        }
+        return referencedClasses;
+    }
+
+    private static void addReferencedClasses(final Set<String> referencedClasses, final String desc) {
+        for (int i = 0; i < desc.length(); i++) {
+            if (desc.charAt(i) != 'L') continue;
+            int end = desc.indexOf(';', i);
+            if (end == -1) return;
+            referencedClasses.add(desc.substring(i + 1, end));
+            i = end;
+        }
+    }
+
+    private void put(final String key, final String value, final boolean skipIfExists) {
+        int dot = key.indexOf('.');
+        if (dot == -1) {
+            this.addClassMapping(key, value, skipIfExists);
+            return;
+        }
+
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot + 1);
+        int bracket = key.indexOf('(', dot + 1);
+        if (colon != -1 && (bracket == -1 || colon < bracket)) {
+            this.addFieldMapping(owner, key.substring(dot + 1, colon), key.substring(colon + 1), value, skipIfExists);
+        } else if (bracket != -1) {
+            this.addMethodMapping(owner, key.substring(dot + 1, bracket), key.substring(bracket), value, skipIfExists);
+        } else {
+            this.putMember(SymbolTable.intern(owner), OTHER, SymbolTable.intern(key.substring(dot + 1)), "", SymbolTable.intern(value), skipIfExists);
+        }
+    }
+
+    private void putMember(final String owner, final byte kind, final String name, final String desc, final String target, final boolean skipIfExists) {
+        MemberTable table = this.members.computeIfAbsent(owner, o -> new MemberTable());
+        int index = table.indexOf(kind, name, desc);
+        String oldTarget = null;
+        if (index >= 0) {
+            oldTarget = table.targets[index];
+            if (skipIfExists || oldTarget.equals(target)) return;
+            table.targets[index] = target;
+        } else {
+            table.insert(-index - 1, kind, name, desc, target);
+            this.memberCount++;
+        }
+        this.modifications++;
+        if (this.reverse != null) this.mirrorMember(owner, kind, name, desc, oldTarget, target);
+    }
+
+    /**
+     * Add a member mapping to the reversed remapper.<br>
+     * If the mapping collides with a different mapping in the reversed remapper it is rebuilt instead.
+     */
+    private void mirrorMember(final String owner, final byte kind, final String name, final String desc, @Nullable final String oldTarget, final String target) {
+        if (kind == OTHER) return;
+        this.reverse.modifications++;
+        this.referencedClasses.add(owner);
+        addReferencedClasses(this.referencedClasses, desc);
+
+        String reverseOwner = this.mapSafe(owner);
+        String reverseDesc;
+        if (desc.isEmpty()) reverseDesc = desc;
+        else if (kind == METHOD) reverseDesc = SymbolTable.intern(this.mapMethodDesc(desc));
+        else reverseDesc = SymbolTable.intern(this.mapDesc(desc));
+        MemberTable reverseTable = this.reverse.members.computeIfAbsent(reverseOwner, o -> new MemberTable());
+        if (oldTarget != null) {
+            int oldIndex = reverseTable.indexOf(kind, oldTarget, reverseDesc);
+            if (oldIndex < 0 || !reverseTable.targets[oldIndex].equals(name)) {
+                this.invalidateReverse();
+                return;
+            }
+            reverseTable.remove(oldIndex);
+            this.reverse.memberCount--;
+        }
+        int index = reverseTable.indexOf(kind, target, reverseDesc);
+        if (index >= 0) {
+            if (!reverseTable.targets[index].equals(name)) this.invalidateReverse();
+            return;
+        }
+        reverseTable.insert(-index - 1, kind, target, reverseDesc, name);
+        this.reverse.memberCount++;
+        this.reverse.referencedClasses.add(reverseOwner);
+        addReferencedClasses(this.reverse.referencedClasses, reverseDesc);
+    }
+
+    @Nullable
+    private String getMember(final String owner, final byte kind, final String name, final String desc) {
+        MemberTable table = this.members.get(owner);
+        if (table == null) return null;
+        int index = table.indexOf(kind, name, desc);
+        return index < 0 ? null : table.targets[index];
+    }
+
+    private Map<String, String> getMembers(final String owner, final byte kind, final String name) {
+        Map<String, String> members = new LinkedHashMap<>();
+        MemberTable table = this.members.get(owner);
+        if (table == null) return members;
+        for (int i = 0; i < table.names.length; i++) {
+            if (table.names[i] != null && table.kinds[i] == kind && table.names[i].equals(name)) members.put(table.descs[i], table.targets[i]);
+        }
+        return members;
+    }
+
+    private static String memberKey(final String owner, final byte kind, final String name, final String desc) {
+        if (kind == METHOD) return owner + "." + name + desc;
+        else if (kind == FIELD) return owner + "." + name + ":" + desc;
+        else return owner + "." + name;
+    }
+
+
+    /**
+     * An open addressing hash table for the member mappings of a single owner.
+     */
+    private static class MemberTable {
+        private byte[] kinds = new byte[8];
+        private String[] names = new String[8];
+        private String[] descs = new String[8];
+        private String[] targets = new String[8];
+        private int size;
+
+        private static int hash(final byte kind, final String name, final String desc) {
+            int hash = (31 * name.hashCode() + desc.hashCode()) * 31 + kind;
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * @return The index of the entry or {@code -(insertion slot) - 1} if it does not exist
+         */
+        private int indexOf(final byte kind, final String name, final String desc) {
+            int mask = this.names.length - 1;
+            int slot = hash(kind, name, desc) & mask;
+            while (this.names[slot] != null) {
+                if (this.kinds[slot] == kind && this.names[slot].equals(name) && this.descs[slot].equals(desc)) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -slot - 1;
+        }
+
+        private void insert(final int slot, final byte kind, final String name, final String desc, final String target) {
+            this.kinds[slot] = kind;
+            this.names[slot] = name;
+            this.descs[slot] = desc;
+            this.targets[slot] = target;
+            this.size++;
+            if (this.size * 4 >= this.names.length * 3) this.grow();
+        }
+
+        /**
+         * Remove an entry and move the following entries of the probe sequence into the gap.
+         */
+        private void remove(final int slot) {
+            int mask = this.names.length - 1;
+            int hole = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                if (this.names[i] == null) break;
+                int home = hash(this.kinds[i], this.names[i], this.descs[i]) & mask;
+                boolean movable = i > hole ? (home <= hole || home > i) : (home <= hole && home > i);
+                if (!movable) continue;
+                this.kinds[hole] = this.kinds[i];
+                this.names[hole] = this.names[i];
+                this.descs[hole] = this.descs[i];
+                this.targets[hole] = this.targets[i];
+                hole = i;
+            }
+            this.names[hole] = null;
+            this.descs[hole] = null;
+            this.targets[hole] = null;
+            this.size--;
+        }
+
+        private void grow() {
+            byte[] kinds = this.kinds;
+            String[] names = this.names;
+            String[] descs = this.descs;
+            String[] targets = this.targets;
+            this.kinds = new byte[names.length * 2];
+            this.names = new String[names.length * 2];
+            this.descs = new String[names.length * 2];
+            this.targets = new String[names.length * 2];
+            int mask = this.names.length - 1;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] == null) continue;
+                int slot = hash(kinds[i], names[i], descs[i]) & mask;
+                while (this.names[slot] != null) slot = (slot + 1) & mask;
+                this.kinds[slot] = kinds[i];
+                this.names[slot] = names[i];
+                this.descs[slot] = descs[i];
+                this.targets[slot] = targets[i];
+            }
+        }
+    }
+
+    /**
+     * A read-only map view of all mappings which builds the keys on demand.
+     */
+    private class MappingsView extends AbstractMap<String, String> {
+        @Override
+        public int size() {
+            return MapRemapper.this.classes.size() + MapRemapper.this.memberCount;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return MapRemapper.this.classes.isEmpty() && MapRemapper.this.memberCount == 0;
+        }
+
+        @Override
+        public String get(final Object key) {
+            if (!(key instanceof String)) return null;
+            return MapRemapper.this.getStoredMapping((String) key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        @Nonnull
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public int size() {
+                    return MappingsView.this.size();
+                }
+
+                @Override
+                @Nonnull
+                public Iterator<Entry<String, String>> iterator() {
+                    return new MappingsIterator();
+                }
+            };
+        }
+    }
+
+    private class MappingsIterator implements Iterator<Map.Entry<String, String>> {
+        private final Iterator<Map.Entry<String, String>> classIterator = MapRemapper.this.classes.entrySet().iterator();
+        private final Iterator<Map.Entry<String, MemberTable>> memberIterator = MapRemapper.this.members.entrySet().iterator();
+        private String owner;
+        private MemberTable table;
+        private int slot;
+
+        @Override
+        public boolean hasNext() {
+            if (this.classIterator.hasNext()) return true;
+            while (true) {
+                if (this.table != null) {
+                    while (this.slot < this.table.names.length && this.table.names[this.slot] == null) this.slot++;
+                    if (this.slot < this.table.names.length) return true;
+                }
+                if (!this.memberIterator.hasNext()) return false;
+                Map.Entry<String, MemberTable> entry = this.memberIterator.next();
+                this.owner = entry.getKey();
+                this.table = entry.getValue();
+                this.slot = 0;
+            }
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            if (this.classIterator.hasNext()) return new AbstractMap.SimpleImmutableEntry<>(this.classIterator.next());
+            int slot = this.slot++;
+            String key = memberKey(this.owner, this.table.kinds[slot], this.table.names[slot], this.table.descs[slot]);
+            return new AbstractMap.SimpleImmutableEntry<>(key, this.table.targets[slot]);
+        }
+    }
+
 }
@@ -0,0 +1,185 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.mappings.impl.ProguardMapper;
+import net.lenni0451.classtransform.mappings.impl.SrgMapper;
+import net.lenni0451.classtransform.mappings.impl.TinyV2Mapper;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compile mappings of any supported format into a compact indexed binary file.<br>
+ * The compiled file can be loaded using the {@link net.lenni0451.classtransform.mappings.impl.CompiledMapper}.<br>
+ * Usage from the command line: {@code <tiny|proguard|srg> <input> <output>}
+ */
+@ParametersAreNonnullByDefault
+public class MappingsCompiler {
+
+    /**
+     * The name of the table used when compiling a single mapper.
+     */
+    public static final String DEFAULT_TABLE = "default";
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: <tiny|proguard|srg> <input> <output>");
+            System.exit(1);
+            return;
+        }
+        File input = new File(args[1]);
+        File output = new File(args[2]);
+        switch (args[0].toLowerCase(Locale.ROOT)) {
+            case "tiny":
+                compileTinyV2(input, output);
+                break;
+            case "proguard":
+                compile(new ProguardMapper(MapperConfig.create(), input), output);
+                break;
+            case "srg":
+                compile(new SrgMapper(MapperConfig.create(), input), output);
+                break;
+            default:
+                System.err.println("Unknown mappings format '" + args[0] + "'");
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Compile all mappings of a mapper into a file with a single {@link #DEFAULT_TABLE}.<br>
+     * The mapper will be loaded if it has not been loaded yet.
+     *
+     * @param mapper The mapper to compile
+     * @param output The output file
+     * @throws IOException If the file could not be written
+     */
+    public static void compile(final AMapper mapper, final File output) throws IOException {
+        compile(Collections.singletonMap(DEFAULT_TABLE, mapper), output);
+    }
+
+    /**
+     * Compile all mappings of the given mappers into a file with one table per mapper.<br>
+     * The mappers will be loaded if they have not been loaded yet.
+     *
+     * @param mappers The table names and mappers to compile
+     * @param output  The output file
+     * @throws IOException If the file could not be written
+     */
+    public static void compile(final Map<String, AMapper> mappers, final File output) throws IOException {
+        Map<String, MapRemapper> remappers = new LinkedHashMap<>();
+        for (Map.Entry<String, AMapper> entry : mappers.entrySet()) {
+            entry.getValue().load();
+            remappers.put(entry.getKey(), entry.getValue().getRemapper());
+        }
+        write(remappers, output);
+    }
+
+    /**
+     * Compile all namespaces of a tiny v2 mappings file.<br>
+     * One table is created for every pair of namespaces. Use {@link CompiledMappings#getTable(String, String)} to get the table in any direction.
+     *
+     * @param mappingsFile The tiny v2 mappings file
+     * @param output       The output file
+     * @throws IOException If the file could not be read or written
+     */
+    public static void compileTinyV2(final File mappingsFile, final File output) throws IOException {
+        String[] namespaces;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mappingsFile), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) throw new IllegalStateException("Empty tiny mappings file");
+            String[] parts = header.split("\t");
+            if (parts.length < 5 || !parts[0].equals("tiny")) throw new IllegalStateException("Invalid tiny header");
+            namespaces = Arrays.copyOfRange(parts, 3, parts.length);
+        }
+
+        Map<String, AMapper> mappers = new LinkedHashMap<>();
+        for (int from = 0; from < namespaces.length; from++) {
+            for (int to = from + 1; to < namespaces.length; to++) {
+                mappers.put(tableName(namespaces[from], namespaces[to]), new TinyV2Mapper(MapperConfig.create(), mappingsFile, namespaces[from], namespaces[to]));
+            }
+        }
+        compile(mappers, output);
+    }
+
+    /**
+     * Write the given remappers into a compiled mappings file.<br>
+     * The reverse mappings of every remapper are also written.
+     *
+     * @param remappers The table names and remappers
+     * @param output    The output file
+     * @throws IOException If the file could not be written
+     */
+    public static void write(final Map<String, MapRemapper> remappers, final File output) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        List<byte[]> sections = new ArrayList<>();
+        int headerSize = 12;
+        for (Map.Entry<String, MapRemapper> entry : remappers.entrySet()) {
+            byte[] name = encode(entry.getKey());
+            names.add(name);
+            headerSize += 2 + name.length + 8;
+            sections.add(writeTable(entry.getValue().getMappings()));
+            sections.add(writeTable(entry.getValue().reverse().getMappings()));
+        }
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            dos.writeInt(CompiledMappings.MAGIC);
+            dos.writeInt(CompiledMappings.VERSION);
+            dos.writeInt(names.size());
+            int offset = headerSize;
+            for (int i = 0; i < names.size(); i++) {
+                dos.writeShort(names.get(i).length);
+                dos.write(names.get(i));
+                dos.writeInt(offset);
+                offset += sections.get(i * 2).length;
+                dos.writeInt(offset);
+                offset += sections.get(i * 2 + 1).length;
+            }
+            for (byte[] section : sections) dos.write(section);
+        }
+    }
+
+    static String tableName(final String from, final String to) {
+        return from + "->" + to;
+    }
+
+    private static byte[] writeTable(final Map<String, String> mappings) throws IOException {
+        String[] keys = mappings.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        int slotCount = Integer.highestOneBit(Math.max(1, keys.length) * 2 - 1) << 1;
+        int[] slots = new int[slotCount];
+        int[] offsets = new int[keys.length];
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i] = dataOut.size();
+            dataOut.writeUTF(keys[i]);
+            dataOut.writeUTF(mappings.get(keys[i]));
+
+            int hash = keys[i].hashCode();
+            int slot = (hash ^ (hash >>> 16)) & (slotCount - 1);
+            while (slots[slot] != 0) slot = (slot + 1) & (slotCount - 1);
+            slots[slot] = i + 1;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeInt(keys.length);
+        dos.writeInt(slotCount);
+        for (int slot : slots) dos.writeInt(slot);
+        for (int offset : offsets) dos.writeInt(offset);
+        dos.writeInt(data.size());
+        data.writeTo(dos);
+        return baos.toByteArray();
+    }
+
+    private static byte[] encode(final String s) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new DataOutputStream(baos).writeUTF(s);
+        return Arrays.copyOfRange(baos.toByteArray(), 2, baos.size());
+    }
+
+}
@@ -0,0 +1,180 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import net.lenni0451.classtransform.utils.Sneaky;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A streaming line reader for mapping files.<br>
+ * Small files are parsed on the calling thread. Files with more lines than the chunk size are split into chunks which are parsed in parallel.<br>
+ * Chunks are only split before lines accepted by the chunk start predicate, so every chunk starts with a fresh parser state (e.g. a new class).<br>
+ * The parsed chunks are merged into the main context in file order.
+ *
+ * @param <C> The type of the parser context
+ */
+@ParametersAreNonnullByDefault
+public class MappingsReader<C> {
+
+    /**
+     * The default amount of lines in a chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 16384;
+
+    private final Supplier<C> contextSupplier;
+    private final LineParser<C> lineParser;
+    private final ContextMerger<C> contextMerger;
+    private Predicate<String> chunkStart = line -> true;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+
+    /**
+     * @param contextSupplier The supplier for new chunk contexts
+     * @param lineParser      The parser for a single line
+     * @param contextMerger   The merger which merges a parsed chunk into the main context
+     */
+    public MappingsReader(final Supplier<C> contextSupplier, final LineParser<C> lineParser, final ContextMerger<C> contextMerger) {
+        this.contextSupplier = contextSupplier;
+        this.lineParser = lineParser;
+        this.contextMerger = contextMerger;
+    }
+
+    /**
+     * Set the predicate which decides if a new chunk may start at the given line.<br>
+     * By default a chunk may start at every line.
+     *
+     * @param chunkStart The chunk start predicate
+     * @return This reader
+     */
+    public MappingsReader<C> chunkStart(final Predicate<String> chunkStart) {
+        this.chunkStart = chunkStart;
+        return this;
+    }
+
+    /**
+     * Set the minimum amount of lines in a chunk.
+     *
+     * @param chunkSize The chunk size (default: {@link #DEFAULT_CHUNK_SIZE})
+     * @return This reader
+     */
+    public MappingsReader<C> chunkSize(final int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("The chunk size must be greater than 0");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Set if chunks should be parsed in parallel.
+     *
+     * @param parallel If chunks should be parsed in parallel (default: true if more than one processor is available)
+     * @return This reader
+     */
+    public MappingsReader<C> parallel(final boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Read all remaining lines of the reader into the main context.<br>
+     * The reader is not closed by this method.
+     *
+     * @param reader      The reader to read the lines from
+     * @param mainContext The main context
+     * @throws IOException If the lines could not be read
+     */
+    public void read(final BufferedReader reader, final C mainContext) throws IOException {
+        if (!this.parallel) {
+            String line;
+            while ((line = reader.readLine()) != null) this.lineParser.parse(mainContext, line);
+            return;
+        }
+
+        List<String> chunk = new ArrayList<>();
+        String carry = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (chunk.size() >= this.chunkSize && this.chunkStart.test(line)) {
+                carry = line;
+                break;
+            }
+            chunk.add(line);
+        }
+        if (carry == null) {
+            //The file fits into a single chunk, so it is parsed directly
+            for (String chunkLine : chunk) this.lineParser.parse(mainContext, chunkLine);
+            return;
+        }
+
+        int maxPending = Runtime.getRuntime().availableProcessors() * 2;
+        Deque<CompletableFuture<C>> pending = new ArrayDeque<>();
+        pending.add(this.parseAsync(chunk));
+        chunk = new ArrayList<>(this.chunkSize);
+        chunk.add(carry);
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (chunk.size() >= this.chunkSize && this.chunkStart.test(line)) {
+                    pending.add(this.parseAsync(chunk));
+                    chunk = new ArrayList<>(this.chunkSize);
+                    //Merge finished chunks to keep the amount of buffered lines bounded
+                    while (pending.size() >= maxPending) this.contextMerger.merge(mainContext, this.join(pending.poll()));
+                }
+                chunk.add(line);
+            }
+            pending.add(this.parseAsync(chunk));
+            while (!pending.isEmpty()) this.contextMerger.merge(mainContext, this.join(pending.poll()));
+        } finally {
+            for (CompletableFuture<C> future : pending) future.cancel(false);
+        }
+    }
+
+    private CompletableFuture<C> parseAsync(final List<String> lines) {
+        return CompletableFuture.supplyAsync(() -> {
+            C context = this.contextSupplier.get();
+            for (String line : lines) this.lineParser.parse(context, line);
+            return context;
+        });
+    }
+
+    private C join(final CompletableFuture<C> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() != null) Sneaky.sneakyThrow(e.getCause());
+            throw e;
+        }
+    }
+
+
+    @FunctionalInterface
+    public interface LineParser<C> {
+        /**
+         * Parse a single line of the mappings.
+         *
+         * @param context The context of the current chunk
+         * @param line    The line to parse
+         */
+        void parse(final C context, final String line);
+    }
+
+    @FunctionalInterface
+    public interface ContextMerger<C> {
+        /**
+         * Merge a parsed chunk into the main context.<br>
+         * Chunks are merged in the order they appear in the file.
+         *
+         * @param mainContext  The main context
+         * @param chunkContext The context of the parsed chunk
+         */
+        void merge(final C mainContext, final C chunkContext);
+    }
+
+}
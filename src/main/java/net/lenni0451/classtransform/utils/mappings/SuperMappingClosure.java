@@ -0,0 +1,363 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import static net.lenni0451.classtransform.utils.ASMUtils.dot;
+
+/**
+ * The super mappings of all classes mapped by a remapper.<br>
+ * The class hierarchy is walked in parallel using a fork/join pool. Every class is only read once, even if it is a super class of many mapped classes.<br>
+ * The result can be written to a file and read again on the next start. It is only reused if the mappings and all visited classes are unchanged.<br>
+ * The remapper <b>must</b> map from named to obfuscated, the same as for {@link SuperMappingFiller#fillAllSuperMembers(MapRemapper, IClassProvider)}.
+ */
+@ParametersAreNonnullByDefault
+public class SuperMappingClosure {
+
+    private static final int MAGIC = 0x43545343; //CTSC
+    private static final int VERSION = 1;
+    private static final byte METHOD = 0;
+    private static final byte FIELD = 1;
+
+    /**
+     * Compute the super mappings of all classes mapped by the given remapper.<br>
+     * Classes which could not be found are skipped.
+     *
+     * @param remapper      The remapper to use
+     * @param classProvider The class provider to read the classes from
+     * @return The computed super mappings
+     */
+    public static SuperMappingClosure compute(final MapRemapper remapper, final IClassProvider classProvider) {
+        return compute(remapper, classProvider, mappingsHash(remapper));
+    }
+
+    /**
+     * Read the super mappings from the given cache file or compute them if the cache is missing or outdated.<br>
+     * Newly computed super mappings are written to the cache file.
+     *
+     * @param cacheFile     The cache file
+     * @param remapper      The remapper to use
+     * @param classProvider The class provider to read the classes from
+     * @return The super mappings
+     */
+    public static SuperMappingClosure load(final File cacheFile, final MapRemapper remapper, final IClassProvider classProvider) {
+        long mappingsHash = mappingsHash(remapper);
+        SuperMappingClosure closure = read(cacheFile, remapper, classProvider, mappingsHash);
+        if (closure != null) return closure;
+
+        closure = compute(remapper, classProvider, mappingsHash);
+        try {
+            closure.write(cacheFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write super mappings cache", e);
+        }
+        return closure;
+    }
+
+    /**
+     * Read the super mappings from the given file.<br>
+     * Returns null if the file does not exist or if the mappings or any of the visited classes changed.
+     *
+     * @param file          The file to read
+     * @param remapper      The remapper to use
+     * @param classProvider The class provider to verify the visited classes with
+     * @return The super mappings or null if the file is missing or outdated
+     */
+    @Nullable
+    public static SuperMappingClosure read(final File file, final MapRemapper remapper, final IClassProvider classProvider) {
+        return read(file, remapper, classProvider, mappingsHash(remapper));
+    }
+
+    private static SuperMappingClosure compute(final MapRemapper remapper, final IClassProvider classProvider, final long mappingsHash) {
+        Set<String> mappedClasses = getMappedClasses(remapper);
+        MapRemapper reverse = remapper.reverse();
+        Map<String, ForkJoinTask<ClassInfo>> tasks = new ConcurrentHashMap<>();
+        List<ForkJoinTask<ClassInfo>> mappedTasks = new ArrayList<>(mappedClasses.size());
+        for (String mappedClass : mappedClasses) {
+            ResolveTask task = new ResolveTask(mappedClass, classProvider, tasks);
+            tasks.put(mappedClass, task);
+            mappedTasks.add(task);
+        }
+
+        ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(mappedTasks);
+                return null;
+            }
+        });
+        List<Entry> entries = new ArrayList<>();
+        for (ForkJoinTask<ClassInfo> task : mappedTasks) collectEntries(task.join(), reverse, entries);
+
+        String[] classNames = tasks.keySet().toArray(new String[0]);
+        Arrays.sort(classNames);
+        long[] classHashes = new long[classNames.length];
+        for (int i = 0; i < classNames.length; i++) classHashes[i] = tasks.get(classNames[i]).join().hash;
+        return new SuperMappingClosure(mappingsHash, mappedClasses, classNames, classHashes, entries);
+    }
+
+    @Nullable
+    private static SuperMappingClosure read(final File file, final MapRemapper remapper, final IClassProvider classProvider, final long mappingsHash) {
+        if (!file.isFile()) return null;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION) return null;
+            if (dis.readLong() != mappingsHash) return null;
+            String[] classNames = new String[dis.readInt()];
+            long[] classHashes = new long[classNames.length];
+            for (int i = 0; i < classNames.length; i++) {
+                classNames[i] = dis.readUTF();
+                classHashes[i] = dis.readLong();
+            }
+            boolean changed = IntStream.range(0, classNames.length).parallel().anyMatch(i -> hash(readClass(classProvider, classNames[i])) != classHashes[i]);
+            if (changed) return null;
+
+            int entryCount = dis.readInt();
+            List<Entry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(new Entry(dis.readByte(), dis.readUTF(), dis.readUTF(), dis.readUTF(), dis.readUTF()));
+            }
+            return new SuperMappingClosure(mappingsHash, getMappedClasses(remapper), classNames, classHashes, entries);
+        } catch (IOException e) {
+            //A broken cache file is treated like a missing one
+            return null;
+        }
+    }
+
+    private static Set<String> getMappedClasses(final MapRemapper remapper) {
+        Set<String> mappedClasses = new TreeSet<>();
+        for (Map.Entry<String, String> entry : remapper.getMappings().entrySet()) {
+            if (!entry.getKey().contains(".")) mappedClasses.add(entry.getValue());
+        }
+        return mappedClasses;
+    }
+
+    private static void collectEntries(final ClassInfo info, final MapRemapper reverse, final List<Entry> entries) {
+        if (info.missing) return;
+        String owner = reverse.mapSafe(info.name);
+        for (ClassInfo superClass : info.superClasses) {
+            for (int i = 0; i < superClass.members.length; i += 3) {
+                byte kind = superClass.members[i].equals("F") ? FIELD : METHOD;
+                String name = superClass.members[i + 1];
+                String desc = superClass.members[i + 2];
+                if (kind == FIELD) {
+                    String mappedName = reverse.mapFieldName(superClass.name, name, desc);
+                    if (!name.equals(mappedName)) entries.add(new Entry(FIELD, owner, mappedName, reverse.mapDesc(desc), name));
+                } else {
+                    String mappedName = reverse.mapMethodName(superClass.name, name, desc);
+                    if (!name.equals(mappedName)) entries.add(new Entry(METHOD, owner, mappedName, reverse.mapMethodDesc(desc), name));
+                }
+            }
+        }
+    }
+
+    private static long mappingsHash(final MapRemapper remapper) {
+        //The hash is independent of the iteration order of the mappings
+        long hash = 0;
+        for (Map.Entry<String, String> entry : remapper.getMappings().entrySet()) {
+            long entryHash = entry.getKey().hashCode() * 0x9E3779B97F4A7C15L + entry.getValue().hashCode();
+            entryHash ^= entryHash >>> 31;
+            hash += entryHash * 0xBF58476D1CE4E5B9L;
+        }
+        return hash;
+    }
+
+    @Nullable
+    private static byte[] readClass(final IClassProvider classProvider, final String name) {
+        try {
+            return classProvider.getClass(dot(name));
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static long hash(@Nullable final byte[] bytecode) {
+        if (bytecode == null) return -1;
+        CRC32 crc = new CRC32();
+        crc.update(bytecode);
+        return ((long) bytecode.length << 32) | crc.getValue();
+    }
+
+
+    private final long mappingsHash;
+    private final Set<String> mappedClasses;
+    private final String[] classNames;
+    private final long[] classHashes;
+    private final List<Entry> entries;
+
+    private SuperMappingClosure(final long mappingsHash, final Set<String> mappedClasses, final String[] classNames, final long[] classHashes, final List<Entry> entries) {
+        this.mappingsHash = mappingsHash;
+        this.mappedClasses = mappedClasses;
+        this.classNames = classNames;
+        this.classHashes = classHashes;
+        this.entries = entries;
+    }
+
+    /**
+     * Check if the super mappings of the given class are contained in this closure.<br>
+     * This is the case for all classes mapped by the remapper.<br>
+     * The class name <b>must</b> be separated by slashes and in the target format of the remapper.
+     *
+     * @param className The name of the class
+     * @return If the super mappings of the class are contained
+     */
+    public boolean contains(final String className) {
+        return this.mappedClasses.contains(className);
+    }
+
+    /**
+     * @return The amount of super mappings
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Add all super mappings to the given remapper.<br>
+     * Existing mappings are not overwritten.
+     *
+     * @param remapper The remapper to add the mappings to
+     */
+    public void apply(final MapRemapper remapper) {
+        for (Entry entry : this.entries) {
+            if (entry.kind == FIELD) remapper.addFieldMapping(entry.owner, entry.name, entry.desc, entry.target, true);
+            else remapper.addMethodMapping(entry.owner, entry.name, entry.desc, entry.target, true);
+        }
+    }
+
+    /**
+     * Write the super mappings to the given file.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void write(final File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) throw new IOException("Unable to create directory '" + parent + "'");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeLong(this.mappingsHash);
+            dos.writeInt(this.classNames.length);
+            for (int i = 0; i < this.classNames.length; i++) {
+                dos.writeUTF(this.classNames[i]);
+                dos.writeLong(this.classHashes[i]);
+            }
+            dos.writeInt(this.entries.size());
+            for (Entry entry : this.entries) {
+                dos.writeByte(entry.kind);
+                dos.writeUTF(entry.owner);
+                dos.writeUTF(entry.name);
+                dos.writeUTF(entry.desc);
+                dos.writeUTF(entry.target);
+            }
+        }
+    }
+
+
+    private static class ClassInfo {
+        private final String name;
+        private final long hash;
+        private final boolean missing;
+        /**
+         * The inheritable members as flat triples of kind ({@code F} or {@code M}), name and descriptor.
+         */
+        private final String[] members;
+        private final Set<ClassInfo> superClasses;
+
+        private ClassInfo(final String name, final long hash, final boolean missing, final String[] members, final Set<ClassInfo> superClasses) {
+            this.name = name;
+            this.hash = hash;
+            this.missing = missing;
+            this.members = members;
+            this.superClasses = superClasses;
+        }
+    }
+
+    private static class ResolveTask extends RecursiveTask<ClassInfo> {
+        private final String name;
+        private final IClassProvider classProvider;
+        private final Map<String, ForkJoinTask<ClassInfo>> tasks;
+
+        private ResolveTask(final String name, final IClassProvider classProvider, final Map<String, ForkJoinTask<ClassInfo>> tasks) {
+            this.name = name;
+            this.classProvider = classProvider;
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected ClassInfo compute() {
+            byte[] bytecode = readClass(this.classProvider, this.name);
+            ClassNode node = null;
+            try {
+                if (bytecode != null) node = ASMUtils.fromBytes(bytecode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            } catch (Throwable ignored) {
+                //Classes which can't be parsed are handled the same as missing classes
+            }
+            if (node == null) return new ClassInfo(this.name, hash(bytecode), true, new String[0], Collections.emptySet());
+
+            List<ForkJoinTask<ClassInfo>> superTasks = new ArrayList<>();
+            if (node.superName != null) superTasks.add(this.resolve(node.superName));
+            if (node.interfaces != null) {
+                for (String inter : node.interfaces) superTasks.add(this.resolve(inter));
+            }
+            Set<ClassInfo> superClasses = new LinkedHashSet<>();
+            for (ForkJoinTask<ClassInfo> superTask : superTasks) {
+                ClassInfo superClass = superTask.join();
+                if (superClass.missing) continue;
+                superClasses.add(superClass);
+                superClasses.addAll(superClass.superClasses);
+            }
+
+            List<String> members = new ArrayList<>();
+            for (FieldNode field : node.fields) {
+                if (Modifier.isStatic(field.access) || Modifier.isPrivate(field.access)) continue;
+                Collections.addAll(members, "F", field.name, field.desc);
+            }
+            for (MethodNode method : node.methods) {
+                if (Modifier.isStatic(method.access) || Modifier.isPrivate(method.access)) continue;
+                Collections.addAll(members, "M", method.name, method.desc);
+            }
+            return new ClassInfo(node.name, hash(bytecode), false, members.toArray(new String[0]), superClasses);
+        }
+
+        private ForkJoinTask<ClassInfo> resolve(final String name) {
+            ResolveTask task = new ResolveTask(name, this.classProvider, this.tasks);
+            ForkJoinTask<ClassInfo> existing = this.tasks.putIfAbsent(name, task);
+            if (existing != null) return existing;
+            return task.fork();
+        }
+    }
+
+    private static class Entry {
+        private final byte kind;
+        private final String owner;
+        private final String name;
+        private final String desc;
+        private final String target;
+
+        private Entry(final byte kind, final String owner, final String name, final String desc, final String target) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.desc = desc;
+            this.target = target;
+        }
+    }
+
+}
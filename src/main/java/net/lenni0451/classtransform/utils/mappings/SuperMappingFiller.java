@@ -11,10 +11,9 @@ import org.objectweb.asm.tree.MethodNode;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static net.lenni0451.classtransform.utils.ASMUtils.slash;
@@ -36,6 +35,21 @@ public class SuperMappingFiller {
      * @throws ClassNotFoundException If a class could not be found
      */
     public static void fillTransformerSuperMembers(final ClassNode transformer, final MapRemapper remapper, final ClassTree classTree, final IClassProvider classProvider) throws ClassNotFoundException {
+        fillTransformerSuperMembers(transformer, remapper, classTree, classProvider, className -> true);
+    }
+
+    /**
+     * Fill all super mappings for the given transformer targets accepted by the filter.<br>
+     * Missing mappings are added to the given remapper.
+     *
+     * @param transformer   The class node of the transformer
+     * @param remapper      The remapper to use
+     * @param classTree     The class tree to use
+     * @param classProvider The class provider to use
+     * @param filter        The filter for the target class names (separated by slashes)
+     * @throws ClassNotFoundException If a class could not be found
+     */
+    public static void fillTransformerSuperMembers(final ClassNode transformer, final MapRemapper remapper, final ClassTree classTree, final IClassProvider classProvider, final Predicate<String> filter) throws ClassNotFoundException {
         List<Object> annotation = AnnotationUtils.findAnnotation(transformer, CTransformer.class).map(a -> a.values).orElseThrow(() -> new IllegalStateException("Transformer does not have CTransformer annotation"));
         for (int i = 0; i < annotation.size(); i += 2) {
             String key = (String) annotation.get(i);
@@ -43,10 +57,14 @@ public class SuperMappingFiller {
 
             if (key.equals("value")) {
                 List<Type> classesList = (List<Type>) value;
-                for (Type type : classesList) fillSuperMembers(type.getInternalName(), remapper, classTree, classProvider);
+                for (Type type : classesList) {
+                    if (filter.test(type.getInternalName())) fillSuperMembers(type.getInternalName(), remapper, classTree, classProvider);
+                }
             } else if (key.equals("name")) {
                 List<String> classesList = (List<String>) value;
-                for (String className : classesList) fillSuperMembers(slash(className), remapper, classTree, classProvider);
+                for (String className : classesList) {
+                    if (filter.test(slash(className))) fillSuperMembers(slash(className), remapper, classTree, classProvider);
+                }
             }
         }
     }
@@ -97,27 +115,27 @@ public class SuperMappingFiller {
         }
     }
 
+    /**
+     * <b>Use {@link #fillAllSuperMembers(MapRemapper, IClassProvider)}.</b><br>
+     * The class tree is ignored, the classes are always read from the class provider.
+     */
+    @Deprecated
+    public static void fillAllSuperMembers(final MapRemapper remapper, final ClassTree classTree, final IClassProvider classProvider) {
+        fillAllSuperMembers(remapper, classProvider);
+    }
+
     /**
      * Fill all super mappings for all classes found in the given remapper.<br>
+     * The class hierarchy is walked in parallel, see {@link SuperMappingClosure}.<br>
      * If a class could not be found the mappings for it will be skipped.<br>
      * Missing mappings are added to the given remapper.<br>
      * The remapper <b>must</b> map from named to obfuscated. If you need to map from obfuscated to named use {@link MapRemapper#reverse()}.
      *
      * @param remapper      The remapper to use
-     * @param classTree     The class tree to use
      * @param classProvider The class provider to use
      */
-    public static void fillAllSuperMembers(final MapRemapper remapper, final ClassTree classTree, final IClassProvider classProvider) {
-        for (Map.Entry<String, String> entry : new HashMap<>(remapper.getMappings()).entrySet()) {
-            if (entry.getKey().contains(".")) continue;
-            String obfClass = entry.getValue();
-            try {
-                ClassTree.TreePart treePart = classTree.getTreePart(classProvider, obfClass);
-                Set<ClassNode> superClasses = treePart.getParsedSuperClasses(classProvider, false).stream().map(ClassTree.TreePart::getNode).collect(Collectors.toSet());
-                SuperMappingFiller.fillSuperMembers(treePart.getNode(), superClasses, remapper);
-            } catch (Throwable ignored) {
-            }
-        }
+    public static void fillAllSuperMembers(final MapRemapper remapper, final IClassProvider classProvider) {
+        SuperMappingClosure.compute(remapper, classProvider).apply(remapper);
     }
 
 }
@@ -2,30 +2,54 @@ package net.lenni0451.classtransform.utils.tree;
 
 import net.lenni0451.classtransform.TransformerManager;
 import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.SymbolTable;
 import org.objectweb.asm.tree.ClassNode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static net.lenni0451.classtransform.utils.ASMUtils.dot;
 
 /**
- * A class tree which dynamically loads tree parts on demand.
+ * A class tree which dynamically loads tree parts on demand.<br>
+ * If the tree transforms classes, an untransformed view of it can be requested using {@link #getUntransformedView()}.<br>
+ * Both views share the parsed class nodes of all classes which are not modified by the transformer manager.<br>
+ * The names and descriptors of all parsed classes are interned using the {@link SymbolTable}.
  */
 @ParametersAreNonnullByDefault
 public class ClassTree {
 
     private final Map<String, TreePart> tree = new HashMap<>();
     private final TransformerManager transformerManager;
+    private final SharedClassTree sharedTree;
+    @Nullable
+    private final Map<String, ClassNode> untransformedNodes;
+    @Nullable
+    private ClassTree untransformedView;
 
     public ClassTree() {
         this(null);
     }
 
     public ClassTree(@Nullable final TransformerManager transformerManager) {
+        this(transformerManager, null);
+    }
+
+    /**
+     * @param transformerManager The transformer manager used to transform classes before adding them to the tree
+     * @param sharedTree         The shared tree used as base layer for all classes accepted by it
+     */
+    public ClassTree(@Nullable final TransformerManager transformerManager, @Nullable final SharedClassTree sharedTree) {
+        this(transformerManager, sharedTree, transformerManager == null ? null : new ConcurrentHashMap<>());
+    }
+
+    private ClassTree(@Nullable final TransformerManager transformerManager, @Nullable final SharedClassTree sharedTree, @Nullable final Map<String, ClassNode> untransformedNodes) {
         this.transformerManager = transformerManager;
+        this.sharedTree = sharedTree;
+        this.untransformedNodes = untransformedNodes;
     }
 
     /**
@@ -35,6 +59,27 @@ public class ClassTree {
         return this.transformerManager != null;
     }
 
+    /**
+     * @return The shared tree used as base layer or null if there is none
+     */
+    @Nullable
+    public SharedClassTree getSharedTree() {
+        return this.sharedTree;
+    }
+
+    /**
+     * Get a view of this tree which contains the classes without any transformations.<br>
+     * The view shares the parsed class nodes with this tree, so classes not modified by the transformer manager are only parsed once.<br>
+     * If this tree can't transform classes, this tree is returned.
+     *
+     * @return The untransformed view of this tree
+     */
+    public synchronized ClassTree getUntransformedView() {
+        if (this.transformerManager == null) return this;
+        if (this.untransformedView == null) this.untransformedView = new ClassTree(null, this.sharedTree, this.untransformedNodes);
+        return this.untransformedView;
+    }
+
     /**
      * Get a tree part from a class by name.
      *
@@ -47,26 +92,36 @@ public class ClassTree {
     public synchronized TreePart getTreePart(final IClassProvider classProvider, String className) throws ClassNotFoundException {
         className = dot(className);
         if (this.tree.containsKey(className)) return this.tree.get(className);
+        if (this.useSharedTree(className)) return this.sharedTree.getTreePart(classProvider, className);
 
-        byte[] bytecode = classProvider.getClass(className);
-        if (this.transformerManager != null) {
+        ClassNode node;
+        if (this.transformerManager == null) {
+            node = this.getUntransformedNode(classProvider, className);
+        } else {
+            byte[] bytecode = classProvider.getClass(className);
             byte[] transformed = this.transformerManager.transform(className, bytecode, false);
-            if (transformed != null) bytecode = transformed;
+            if (transformed != null) node = SymbolTable.intern(ASMUtils.fromBytes(transformed));
+            else node = this.untransformedNodes.computeIfAbsent(className, n -> SymbolTable.intern(ASMUtils.fromBytes(bytecode))); //Not transformed, so the node can be shared with the untransformed view
         }
-        ClassNode node = ASMUtils.fromBytes(bytecode);
         TreePart part = new TreePart(node);
         this.tree.put(className, part);
+        part.resolveSuperClasses(classProvider);
+        return part;
+    }
 
-        int oldSize;
-        do {
-            oldSize = part.superClasses.size();
-            for (String superClass : part.superClasses.toArray(new String[0])) {
-                TreePart superTree = this.getTreePart(classProvider, superClass);
-                part.superClasses.addAll(superTree.superClasses);
-            }
-        } while (oldSize != part.superClasses.size());
+    private ClassNode getUntransformedNode(final IClassProvider classProvider, final String className) throws ClassNotFoundException {
+        if (this.untransformedNodes == null) return SymbolTable.intern(ASMUtils.fromBytes(classProvider.getClass(className)));
+        ClassNode node = this.untransformedNodes.get(className);
+        if (node != null) return node;
+        node = SymbolTable.intern(ASMUtils.fromBytes(classProvider.getClass(className)));
+        ClassNode existing = this.untransformedNodes.putIfAbsent(className, node);
+        return existing == null ? node : existing;
+    }
 
-        return part;
+    private boolean useSharedTree(final String className) {
+        if (this.sharedTree == null || !this.sharedTree.isShared(className)) return false;
+        //Classes which are transformed by the transformer manager must not be taken from the shared tree
+        return this.transformerManager == null || !this.transformerManager.getTransformedClasses().contains(className);
     }
 
 
@@ -79,18 +134,29 @@ public class ClassTree {
         private final Set<String> superClasses;
         private final int modifiers;
 
-        private TreePart(final ClassNode node) {
+        TreePart(final ClassNode node) {
             this.node = node;
-            this.name = dot(node.name);
+            this.name = SymbolTable.intern(dot(node.name));
             this.superClass = node.superName;
             this.superClasses = new HashSet<>();
-            if (this.superClass != null) this.superClasses.add(dot(this.superClass));
+            if (this.superClass != null) this.superClasses.add(SymbolTable.intern(dot(this.superClass)));
             if (node.interfaces != null) {
-                for (String inter : node.interfaces) this.superClasses.add(dot(inter));
+                for (String inter : node.interfaces) this.superClasses.add(SymbolTable.intern(dot(inter)));
             }
             this.modifiers = node.access;
         }
 
+        void resolveSuperClasses(final IClassProvider classProvider) throws ClassNotFoundException {
+            int oldSize;
+            do {
+                oldSize = this.superClasses.size();
+                for (String superClass : this.superClasses.toArray(new String[0])) {
+                    TreePart superTree = ClassTree.this.getTreePart(classProvider, superClass);
+                    this.superClasses.addAll(superTree.superClasses);
+                }
+            } while (oldSize != this.superClasses.size());
+        }
+
         /**
          * <b>The bytecode of the class may not valid since it is missing stack map frames. Use at your own risk.</b>
          *
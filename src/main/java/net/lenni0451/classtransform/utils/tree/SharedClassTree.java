@@ -0,0 +1,99 @@
+package net.lenni0451.classtransform.utils.tree;
+
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.SymbolTable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static net.lenni0451.classtransform.utils.ASMUtils.dot;
+
+/**
+ * A thread-safe class tree which can be shared between multiple {@link ClassTree}s as base layer.<br>
+ * Classes in this tree are never transformed and always loaded using the class provider of this tree.<br>
+ * To save memory the class nodes only contain the class structure without any method code.<br>
+ * The class nodes of the tree parts <b>must not</b> be modified since they are shared.
+ */
+@ParametersAreNonnullByDefault
+public class SharedClassTree extends ClassTree {
+
+    /**
+     * The default packages shared by all class trees.<br>
+     * These are the packages of the JDK.
+     */
+    public static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private final Map<String, TreePart> tree = new ConcurrentHashMap<>();
+    private final IClassProvider classProvider;
+    private final Predicate<String> sharedClasses;
+
+    /**
+     * Create a shared class tree containing all JDK classes.
+     */
+    public SharedClassTree() {
+        this(new BasicClassProvider(ClassLoader.getSystemClassLoader()), JDK_PACKAGES);
+    }
+
+    /**
+     * @param classProvider  The class provider used to load the shared classes
+     * @param sharedPackages The package prefixes of all shared classes (e.g. {@code java.})
+     */
+    public SharedClassTree(final IClassProvider classProvider, final String... sharedPackages) {
+        this(classProvider, className -> {
+            for (String sharedPackage : sharedPackages) {
+                if (className.startsWith(sharedPackage)) return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @param classProvider The class provider used to load the shared classes
+     * @param sharedClasses The filter for all shared classes (class names are separated by dots)
+     */
+    public SharedClassTree(final IClassProvider classProvider, final Predicate<String> sharedClasses) {
+        super(null, null);
+        this.classProvider = classProvider;
+        this.sharedClasses = sharedClasses;
+    }
+
+    /**
+     * Check if a class should be taken from this tree.
+     *
+     * @param className The name of the class separated by dots
+     * @return If the class is shared
+     */
+    public boolean isShared(final String className) {
+        return this.sharedClasses.test(className);
+    }
+
+    /**
+     * Get a tree part from a class by name.<br>
+     * The passed class provider is ignored in favor of the class provider of this tree.
+     *
+     * @param classProvider The class provider (ignored)
+     * @param className     The name of the class
+     * @return The tree part
+     * @throws ClassNotFoundException If the class could not be found
+     */
+    @Nonnull
+    @Override
+    public TreePart getTreePart(final IClassProvider classProvider, String className) throws ClassNotFoundException {
+        className = dot(className);
+        TreePart part = this.tree.get(className);
+        if (part != null) return part;
+
+        ClassNode node = SymbolTable.intern(ASMUtils.fromBytes(this.classProvider.getClass(className), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES));
+        part = new TreePart(node);
+        //The super classes are resolved before the part is published, so it is never modified after being visible to other threads
+        part.resolveSuperClasses(this.classProvider);
+        TreePart existing = this.tree.putIfAbsent(className, part);
+        return existing == null ? part : existing;
+    }
+
+}
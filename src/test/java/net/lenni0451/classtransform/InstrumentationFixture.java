@@ -0,0 +1,52 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.transformer.IRawTransformer;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fake {@link Instrumentation} which records retransformations instead of performing them.
+ */
+class InstrumentationFixture {
+
+    static final IRawTransformer NO_OP = (transformerManager, transformedClass) -> transformedClass;
+
+    /**
+     * @param retransforms  The list the retransformed classes are added to
+     * @param loadedClasses The loaded classes, {@link String} is always loaded
+     * @return The fake instrumentation
+     */
+    static Instrumentation createInstrumentation(final List<Class<?>[]> retransforms, final Class<?>... loadedClasses) {
+        Class<?>[] classes = Arrays.copyOf(loadedClasses, loadedClasses.length + 1);
+        classes[loadedClasses.length] = String.class;
+        return (Instrumentation) Proxy.newProxyInstance(Instrumentation.class.getClassLoader(), new Class[]{Instrumentation.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isRetransformClassesSupported":
+                    return true;
+                case "getAllLoadedClasses":
+                case "getInitiatedClasses":
+                    return classes;
+                case "retransformClasses":
+                    retransforms.add((Class<?>[]) args[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * @param targets The classes which are transformed by a raw transformer that does nothing
+     * @return The transformer manager
+     */
+    static TransformerManager createTransformerManager(final Class<?>... targets) {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        for (Class<?> target : targets) transformerManager.addRawTransformer(target.getName(), NO_OP);
+        return transformerManager;
+    }
+
+}
@@ -0,0 +1,77 @@
+package net.lenni0451.classtransform;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static net.lenni0451.classtransform.InstrumentationFixture.createInstrumentation;
+import static net.lenni0451.classtransform.InstrumentationFixture.createTransformerManager;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetransformSchedulerTest {
+
+    private static final Class<?>[] TARGETS = {TargetA.class, TargetB.class, TargetC.class, TargetD.class, TargetE.class};
+
+    @Test
+    @DisplayName("Retransform classes in sorted chunks")
+    public void chunks() throws InterruptedException {
+        List<Class<?>[]> retransforms = new CopyOnWriteArrayList<>();
+        List<String> progress = new CopyOnWriteArrayList<>();
+        TransformerManager transformerManager = createTransformerManager(TARGETS);
+        RetransformTask task = transformerManager.hookInstrumentation(createInstrumentation(retransforms, TARGETS), false, new RetransformScheduler()
+                .chunkSize(2)
+                .pause(1, TimeUnit.MILLISECONDS)
+                .priority(Comparator.comparing(Class::getName, Comparator.reverseOrder()))
+                .progressListener((retransformed, total) -> progress.add(retransformed + "/" + total)));
+        assertTrue(task.await(10, TimeUnit.SECONDS));
+
+        assertEquals(3, retransforms.size());
+        assertArrayEquals(new Class[]{TargetE.class, TargetD.class}, retransforms.get(0));
+        assertArrayEquals(new Class[]{TargetC.class, TargetB.class}, retransforms.get(1));
+        assertArrayEquals(new Class[]{TargetA.class}, retransforms.get(2));
+        assertEquals(Arrays.asList("2/5", "4/5", "5/5"), progress);
+        assertEquals(1F, task.getProgress());
+        assertEquals(0, task.getFailed());
+        assertFalse(task.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Stop retransforming when cancelled")
+    public void cancel() throws InterruptedException {
+        List<Class<?>[]> retransforms = new CopyOnWriteArrayList<>();
+        TransformerManager transformerManager = createTransformerManager(TARGETS);
+        RetransformTask task = transformerManager.hookInstrumentation(createInstrumentation(retransforms, TARGETS), false, new RetransformScheduler()
+                .chunkSize(1)
+                .pause(1, TimeUnit.HOURS));
+        for (int i = 0; i < 1000 && retransforms.isEmpty(); i++) Thread.sleep(5);
+        task.cancel();
+        assertTrue(task.await(10, TimeUnit.SECONDS));
+
+        assertTrue(task.isCancelled());
+        assertEquals(1, retransforms.size());
+        assertEquals(1, task.getRetransformed());
+        assertEquals(TARGETS.length, task.getTotal());
+    }
+
+
+    private static class TargetA {
+    }
+
+    private static class TargetB {
+    }
+
+    private static class TargetC {
+    }
+
+    private static class TargetD {
+    }
+
+    private static class TargetE {
+    }
+
+}
@@ -0,0 +1,105 @@
+package net.lenni0451.classtransform;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.lenni0451.classtransform.InstrumentationFixture.NO_OP;
+import static net.lenni0451.classtransform.InstrumentationFixture.createInstrumentation;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformerBatchTest {
+
+    @Test
+    @DisplayName("Retransform classes immediately without a batch")
+    public void unbatched() {
+        List<Class<?>[]> retransforms = new ArrayList<>();
+        TransformerManager transformerManager = this.createTransformerManager(retransforms);
+        transformerManager.addRawTransformer(TargetA.class.getName(), NO_OP);
+        transformerManager.addRawTransformer(TargetB.class.getName(), NO_OP);
+        transformerManager.addRawTransformer(TargetC.class.getName(), NO_OP);
+        assertEquals(3, retransforms.size());
+    }
+
+    @Test
+    @DisplayName("Retransform all classes of a batch at once")
+    public void batched() {
+        List<Class<?>[]> retransforms = new ArrayList<>();
+        TransformerManager transformerManager = this.createTransformerManager(retransforms);
+        try (TransformerBatch batch = transformerManager.beginBatch()) {
+            transformerManager.addRawTransformer(TargetA.class.getName(), NO_OP);
+            try (TransformerBatch nested = transformerManager.beginBatch()) {
+                transformerManager.addRawTransformer(TargetB.class.getName(), NO_OP);
+                transformerManager.addRawTransformer(TargetB.class.getName(), NO_OP);
+            }
+            transformerManager.addRawTransformer(TargetC.class.getName(), NO_OP);
+            transformerManager.addRawTransformer("not.Loaded", NO_OP);
+            assertTrue(retransforms.isEmpty());
+
+            batch.close();
+            batch.close();
+        }
+        assertEquals(1, retransforms.size());
+        assertEquals(new HashSet<>(Arrays.asList(TargetA.class, TargetB.class, TargetC.class)), new HashSet<>(Arrays.asList(retransforms.get(0))));
+
+        try (TransformerBatch batch = transformerManager.beginBatch()) {
+            assertNotNull(batch);
+        }
+        assertEquals(1, retransforms.size());
+        transformerManager.addRawTransformer(TargetA.class.getName(), NO_OP);
+        assertEquals(2, retransforms.size());
+    }
+
+    @Test
+    @DisplayName("Don't collect registrations of other threads")
+    public void otherThread() throws Exception {
+        List<Class<?>[]> retransforms = new CopyOnWriteArrayList<>();
+        TransformerManager transformerManager = this.createTransformerManager(retransforms);
+        TransformerBatch batch = transformerManager.beginBatch();
+        Thread thread = new Thread(() -> transformerManager.addRawTransformer(TargetA.class.getName(), NO_OP));
+        thread.start();
+        thread.join();
+        assertEquals(1, retransforms.size());
+        assertArrayEquals(new Class[]{TargetA.class}, retransforms.get(0));
+
+        transformerManager.addRawTransformer(TargetB.class.getName(), NO_OP);
+        assertEquals(1, retransforms.size());
+        AtomicReference<Throwable> closeError = new AtomicReference<>();
+        Thread closer = new Thread(() -> {
+            try {
+                batch.close();
+            } catch (Throwable t) {
+                closeError.set(t);
+            }
+        });
+        closer.start();
+        closer.join();
+        assertTrue(closeError.get() instanceof IllegalStateException);
+        batch.close();
+        assertEquals(2, retransforms.size());
+        assertArrayEquals(new Class[]{TargetB.class}, retransforms.get(1));
+    }
+
+    private TransformerManager createTransformerManager(final List<Class<?>[]> retransforms) {
+        TransformerManager transformerManager = InstrumentationFixture.createTransformerManager();
+        transformerManager.hookInstrumentation(createInstrumentation(retransforms, TargetA.class, TargetB.class, TargetC.class));
+        return transformerManager;
+    }
+
+
+    private static class TargetA {
+    }
+
+    private static class TargetB {
+    }
+
+    private static class TargetC {
+    }
+
+}
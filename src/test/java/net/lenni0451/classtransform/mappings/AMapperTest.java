@@ -0,0 +1,107 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AMapperTest {
+
+    @Test
+    @DisplayName("Remap transformers in parallel")
+    public void parallelMapClass() throws Exception {
+        BarrierRemapper remapper = new BarrierRemapper();
+        remapper.addClassMapping("a", "Target");
+        AMapper mapper = new TestMapper(MapperConfig.create().remapTransformer(true), remapper);
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider(), mapper);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ClassNode>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) futures.add(executor.submit(() -> mapper.mapClass(transformerManager, this.target(), this.transformer())));
+            for (Future<ClassNode> future : futures) assertEquals("LTarget;", future.get().fields.get(0).desc);
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(remapper.parallel.get());
+    }
+
+    @Test
+    @DisplayName("Look up class names while a transformer is remapped with super mappings")
+    public void parallelMapClassName() throws Exception {
+        BarrierRemapper remapper = new BarrierRemapper();
+        remapper.addClassMapping("a", "Target");
+        AMapper mapper = new TestMapper(MapperConfig.create().remapTransformer(true).fillSuperMappings(true), remapper);
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider(), mapper);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ClassNode> future = executor.submit(() -> mapper.mapClass(transformerManager, this.target(), this.transformer()));
+            assertTrue(remapper.entered.await(10, TimeUnit.SECONDS));
+            //Only passes the barrier while the transformer is remapped if the lookup isn't blocked by the remapping
+            assertEquals("Target", mapper.mapClassName("a"));
+            assertEquals("LTarget;", future.get().fields.get(0).desc);
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(remapper.parallel.get());
+    }
+
+    private ClassNode target() {
+        ClassNode target = new ClassNode();
+        target.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Target", null, "java/lang/Object", null);
+        return target;
+    }
+
+    private ClassNode transformer() {
+        ClassNode transformer = new ClassNode();
+        transformer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Transformer", null, "java/lang/Object", null);
+        transformer.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, "shadow", "La;", null, null));
+        return transformer;
+    }
+
+
+    private static class TestMapper extends AMapper {
+        private TestMapper(final MapperConfig config, final MapRemapper remapper) {
+            super(config, remapper);
+        }
+
+        @Override
+        protected void init() {
+        }
+    }
+
+    private static class BarrierRemapper extends MapRemapper {
+        private final CyclicBarrier barrier = new CyclicBarrier(2);
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicBoolean parallel = new AtomicBoolean();
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public String getClassMapping(final String name) {
+            //The first two lookups only pass the barrier if they happen at the same time
+            if (name.equals("a") && this.waiting.getAndIncrement() < 2) {
+                this.entered.countDown();
+                try {
+                    this.barrier.await(10, TimeUnit.SECONDS);
+                    this.parallel.set(true);
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException ignored) {
+                }
+            }
+            return super.getClassMapping(name);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncMapperLoadTest {
+
+    @Test
+    @DisplayName("Load mappings in the background")
+    public void loadInBackground() {
+        CountDownLatch latch = new CountDownLatch(1);
+        BlockingMapper mapper = new BlockingMapper(MapperConfig.create(), latch, false);
+        new TransformerManager(new BasicClassProvider(), mapper);
+
+        latch.countDown();
+        assertEquals("net.Mapped", mapper.mapClassName("a"));
+        assertNotNull(mapper.initThread);
+        assertNotEquals(Thread.currentThread(), mapper.initThread);
+    }
+
+    @Test
+    @DisplayName("Load mappings synchronously")
+    public void loadSynchronously() {
+        BlockingMapper mapper = new BlockingMapper(MapperConfig.create().loadAsync(false), new CountDownLatch(0), false);
+        new TransformerManager(new BasicClassProvider(), mapper);
+
+        assertEquals(Thread.currentThread(), mapper.initThread);
+        assertEquals("net.Mapped", mapper.mapClassName("a"));
+    }
+
+    @Test
+    @DisplayName("Rethrow load errors when awaiting")
+    public void loadError() {
+        BlockingMapper mapper = new BlockingMapper(MapperConfig.create(), new CountDownLatch(0), true);
+        new TransformerManager(new BasicClassProvider(), mapper);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> mapper.mapClassName("a"));
+        assertEquals("Unable to initialize mappings", exception.getMessage());
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertThrows(RuntimeException.class, mapper::load);
+    }
+
+
+    private static class BlockingMapper extends AMapper {
+        private final CountDownLatch latch;
+        private final boolean fail;
+        private volatile Thread initThread;
+
+        private BlockingMapper(final MapperConfig config, final CountDownLatch latch, final boolean fail) {
+            super(config);
+            this.latch = latch;
+            this.fail = fail;
+        }
+
+        @Override
+        protected void init() throws Throwable {
+            this.initThread = Thread.currentThread();
+            this.latch.await();
+            if (this.fail) throw new IllegalStateException("Test");
+            this.getRemapper().addClassMapping("a", "net/Mapped");
+        }
+    }
+
+}
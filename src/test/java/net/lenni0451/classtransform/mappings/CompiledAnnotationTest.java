@@ -0,0 +1,40 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.mappings.dynamic.TargetRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledAnnotationTest {
+
+    @Test
+    @DisplayName("Compile annotation only once")
+    public void cache() {
+        CompiledAnnotation annotation = CompiledAnnotation.get(Type.getDescriptor(CInject.class));
+
+        assertNotNull(annotation);
+        assertSame(annotation, CompiledAnnotation.get(Type.getDescriptor(CInject.class)));
+        assertEquals(CInject.class, annotation.getAnnotationClass());
+        assertEquals(3, annotation.getAttributes().length);
+        assertNull(CompiledAnnotation.get("Lnet/lenni0451/classtransform/Missing;"));
+    }
+
+    @Test
+    @DisplayName("Create dynamic remapper instances")
+    public void dynamicRemapper() {
+        CompiledAnnotation annotation = CompiledAnnotation.get(Type.getDescriptor(CTarget.class));
+
+        assertNotNull(annotation);
+        CompiledAnnotation.Attribute dynamic = null;
+        for (CompiledAnnotation.Attribute attribute : annotation.getAttributes()) {
+            if (attribute.getDynamicRemapper() != null) dynamic = attribute;
+        }
+        assertNotNull(dynamic);
+        assertTrue(dynamic.getDynamicRemapper() instanceof TargetRemapper);
+    }
+
+}
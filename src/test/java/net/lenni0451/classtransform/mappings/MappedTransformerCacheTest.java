@@ -0,0 +1,203 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTransformerCacheTest {
+
+    @Test
+    @DisplayName("Reuse cached transformers")
+    public void reuse() {
+        CountingRemapper remapper = new CountingRemapper();
+        remapper.addClassMapping("a", "Target");
+        MappedTransformerCache cache = this.create(remapper, true);
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        ClassNode first = cache.get(target, transformer);
+        int lookups = remapper.lookups;
+        ClassNode second = cache.get(target, transformer);
+
+        assertEquals(lookups, remapper.lookups);
+        assertNotSame(first, second);
+        assertNotSame(first.fields.get(0), second.fields.get(0));
+        assertEquals("LTarget;", second.fields.get(0).desc);
+        assertEquals("La;", transformer.fields.get(0).desc);
+    }
+
+    @Test
+    @DisplayName("Remap again after mappings changed")
+    public void mappingsChanged() {
+        CountingRemapper remapper = new CountingRemapper();
+        remapper.addClassMapping("a", "Target");
+        MappedTransformerCache cache = this.create(remapper, true);
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        assertEquals("LTarget;", cache.get(target, transformer).fields.get(0).desc);
+        remapper.addClassMapping("a", "Other");
+        assertEquals("LOther;", cache.get(target, transformer).fields.get(0).desc);
+    }
+
+    @Test
+    @DisplayName("Remap again after target or transformer changed")
+    public void invalidate() {
+        CountingRemapper remapper = new CountingRemapper();
+        MappedTransformerCache cache = this.create(remapper, true);
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        cache.get(target, transformer);
+        int lookups = remapper.lookups;
+        target.methods.add(new MethodNode(Opcodes.ACC_PUBLIC, "added", "()V", null, null));
+        cache.get(target, transformer);
+        assertNotEquals(lookups, remapper.lookups);
+
+        lookups = remapper.lookups;
+        cache.invalidate(transformer.name);
+        cache.get(target, transformer);
+        assertNotEquals(lookups, remapper.lookups);
+    }
+
+    @Test
+    @DisplayName("Keep cached transformers when super mappings are filled")
+    public void superMappings() {
+        CountingRemapper remapper = new CountingRemapper();
+        remapper.addClassMapping("named/Child", Type.getInternalName(Child.class));
+        remapper.addClassMapping("named/Parent", Type.getInternalName(Parent.class));
+        remapper.addMethodMapping("named/Parent", "named", "()V", "parentMethod");
+        AMapper mapper = new TestMapper(MapperConfig.create().remapTransformer(true).cacheTransformers(true).fillSuperMappings(true), remapper);
+        MappedTransformerCache cache = new TransformerManager(new BasicClassProvider(), mapper).getMappedTransformerCache();
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer("java.lang.Object");
+
+        cache.get(target, transformer);
+        cache.get(target, this.transformer("named.Child"));
+        assertEquals("parentMethod", remapper.getMethodMapping("named/Child", "named", "()V"));
+        int lookups = remapper.lookups;
+        cache.get(target, transformer);
+        assertEquals(lookups, remapper.lookups);
+    }
+
+    @Test
+    @DisplayName("Evict the least recently used targets")
+    public void evictTargets() {
+        CountingRemapper remapper = new CountingRemapper();
+        MappedTransformerCache cache = this.create(remapper, true);
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        cache.get(target, transformer);
+        for (int i = 0; i < 256; i++) {
+            ClassNode other = this.target();
+            other.name = "Target" + i;
+            cache.get(other, transformer);
+        }
+        int lookups = remapper.lookups;
+        cache.get(target, transformer);
+        assertNotEquals(lookups, remapper.lookups);
+    }
+
+    @Test
+    @DisplayName("Cache is disabled by default")
+    public void disabledByDefault() {
+        CountingRemapper remapper = new CountingRemapper();
+        AMapper mapper = new TestMapper(MapperConfig.create().remapTransformer(true), remapper);
+        MappedTransformerCache cache = new TransformerManager(new BasicClassProvider(), mapper).getMappedTransformerCache();
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        cache.get(target, transformer);
+        int lookups = remapper.lookups;
+        cache.get(target, transformer);
+        assertNotEquals(lookups, remapper.lookups);
+    }
+
+    @Test
+    @DisplayName("Disable cache")
+    public void disabled() {
+        CountingRemapper remapper = new CountingRemapper();
+        MappedTransformerCache cache = this.create(remapper, false);
+        ClassNode target = this.target();
+        ClassNode transformer = this.transformer();
+
+        cache.get(target, transformer);
+        int lookups = remapper.lookups;
+        cache.get(target, transformer);
+        assertNotEquals(lookups, remapper.lookups);
+    }
+
+    private MappedTransformerCache create(final MapRemapper remapper, final boolean cacheTransformers) {
+        AMapper mapper = new TestMapper(MapperConfig.create().remapTransformer(true).cacheTransformers(cacheTransformers), remapper);
+        return new TransformerManager(new BasicClassProvider(), mapper).getMappedTransformerCache();
+    }
+
+    private ClassNode target() {
+        ClassNode target = new ClassNode();
+        target.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Target", null, "java/lang/Object", null);
+        target.methods.add(new MethodNode(Opcodes.ACC_PUBLIC, "test", "()V", null, null));
+        target.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, "field", "I", null, null));
+        return target;
+    }
+
+    private ClassNode transformer() {
+        ClassNode transformer = new ClassNode();
+        transformer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Transformer", null, "java/lang/Object", null);
+        transformer.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, "shadow", "La;", null, null));
+        return transformer;
+    }
+
+    private ClassNode transformer(final String targetName) {
+        ClassNode transformer = this.transformer();
+        AnnotationNode annotation = new AnnotationNode(Type.getDescriptor(CTransformer.class));
+        annotation.values = Arrays.asList("name", Collections.singletonList(targetName));
+        transformer.visibleAnnotations = new ArrayList<>(Collections.singletonList(annotation));
+        return transformer;
+    }
+
+
+    private static class TestMapper extends AMapper {
+        private TestMapper(final MapperConfig config, final MapRemapper remapper) {
+            super(config, remapper);
+        }
+
+        @Override
+        protected void init() {
+        }
+    }
+
+    private static class Parent {
+        public void parentMethod() {
+        }
+    }
+
+    private static class Child extends Parent {
+    }
+
+    private static class CountingRemapper extends MapRemapper {
+        private int lookups;
+
+        @Override
+        public String getClassMapping(final String name) {
+            this.lookups++;
+            return super.getClassMapping(name);
+        }
+    }
+
+}
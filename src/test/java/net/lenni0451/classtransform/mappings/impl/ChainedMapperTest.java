@@ -0,0 +1,75 @@
+package net.lenni0451.classtransform.mappings.impl;
+
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainedMapperTest {
+
+    @Test
+    @DisplayName("Follow mappings through every hop")
+    public void chain() {
+        MapRemapper first = new MapRemapper();
+        first.addClassMapping("a", "class_1");
+        first.addClassMapping("b", "class_2");
+        first.addMethodMapping("a", "c", "(Lb;)La;", "method_1");
+        first.addFieldMapping("a", "d", "Lb;", "field_1");
+        first.addFieldMapping("b", "e", "field_2");
+        MapRemapper second = new MapRemapper();
+        second.addClassMapping("class_1", "net/Named");
+        second.addClassMapping("class_2", "net/Other");
+        second.addMethodMapping("class_1", "method_1", "(Lclass_2;)Lclass_1;", "run");
+        second.addFieldMapping("class_1", "field_1", "Lclass_2;", "value");
+        second.addFieldMapping("class_2", "field_2", "count");
+
+        MapRemapper chained = ChainedMapper.chain(first, second);
+
+        assertEquals("net/Named", chained.getClassMapping("a"));
+        assertEquals("net/Other", chained.getClassMapping("b"));
+        assertEquals("run", chained.getMethodMapping("a", "c", "(Lb;)La;"));
+        assertEquals("value", chained.getFieldMapping("a", "d", "Lb;"));
+        assertEquals("count", chained.getFieldMapping("b", "e", ""));
+    }
+
+    @Test
+    @DisplayName("Keep mappings missing in one hop")
+    public void partial() {
+        MapRemapper first = new MapRemapper();
+        first.addClassMapping("a", "class_1");
+        first.addMethodMapping("a", "b", "()V", "method_1");
+        MapRemapper second = new MapRemapper();
+        second.addClassMapping("class_1", "net/Named");
+        second.addClassMapping("Unmapped", "net/Unmapped");
+        second.addMethodMapping("class_1", "method_2", "(Lclass_1;)V", "other");
+        second.addMethodMapping("class_1", "method_4", "(La;)V", "unreachable");
+        second.addMethodMapping("a", "method_3", "()V", "hidden");
+
+        MapRemapper chained = ChainedMapper.chain(first, second);
+
+        assertEquals("method_1", chained.getMethodMapping("a", "b", "()V"));
+        assertEquals("net/Unmapped", chained.getClassMapping("Unmapped"));
+        assertEquals("other", chained.getMethodMapping("a", "method_2", "(La;)V"));
+        //The descriptor uses the class 'a' of the intermediate names which the first remapper renames
+        assertNull(chained.getMethodMapping("a", "method_4", "(La;)V"));
+        assertTrue(chained.getStartingMappings("a.method_4").isEmpty());
+        //The class 'a' of the second remapper can't be reached because the first remapper renames it
+        assertNull(chained.getMethodMapping("a", "method_3", "()V"));
+    }
+
+    @Test
+    @DisplayName("Load chained mappers")
+    public void load() {
+        RawMapper first = new RawMapper(MapperConfig.create(), new MapRemapper("a", "class_1"));
+        RawMapper second = new RawMapper(MapperConfig.create().loadAsync(false), new MapRemapper("class_1", "net/Named"));
+        RawMapper third = new RawMapper(MapperConfig.create(), new MapRemapper("net/Named", "net/Final"));
+        ChainedMapper mapper = new ChainedMapper(MapperConfig.create(), first, second, third);
+
+        mapper.load();
+        assertEquals("net.Final", mapper.mapClassName("a"));
+        assertThrows(IllegalArgumentException.class, () -> new ChainedMapper(MapperConfig.create()));
+    }
+
+}
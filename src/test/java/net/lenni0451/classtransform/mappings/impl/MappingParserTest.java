@@ -0,0 +1,105 @@
+package net.lenni0451.classtransform.mappings.impl;
+
+import net.lenni0451.classtransform.mappings.AMapper;
+import net.lenni0451.classtransform.mappings.MapperConfig;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingParserTest {
+
+    private static final int LARGE_CLASS_COUNT = 10_000;
+
+    private static InputStream stream(final CharSequence s) {
+        return new ByteArrayInputStream(s.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MapRemapper load(final AMapper mapper) {
+        mapper.load();
+        return mapper.getRemapper();
+    }
+
+    private static void assertInitFails(final Class<? extends Throwable> cause, final Runnable load) {
+        RuntimeException exception = assertThrows(RuntimeException.class, load::run);
+        assertTrue(cause.isInstance(exception.getCause()));
+    }
+
+    @Test
+    @DisplayName("Parse tiny v2 mappings")
+    public void tinyV2() {
+        String mappings = "tiny\t2\t0\tofficial\tintermediary\tnamed\n"
+                + "c\ta\tclass_1\tnet/example/Main\n"
+                + "\tc\tA comment\n"
+                + "\tf\tLa;\ta\tfield_1\tinstance\n"
+                + "\tm\t(La;I)V\tb\tmethod_1\trun\n"
+                + "\t\tp\t1\t\t\tself\n";
+        MapRemapper remapper = load(new TinyV2Mapper(MapperConfig.create(), stream(mappings), "intermediary", "named"));
+
+        assertEquals("net/example/Main", remapper.map("class_1"));
+        assertEquals("instance", remapper.mapFieldName("class_1", "field_1", "Lclass_1;"));
+        assertEquals("run", remapper.mapMethodName("class_1", "method_1", "(Lclass_1;I)V"));
+        assertInitFails(IllegalArgumentException.class, () -> load(new TinyV2Mapper(MapperConfig.create(), stream(mappings), "missing", "named")));
+    }
+
+    @Test
+    @DisplayName("Parse proguard mappings")
+    public void proguard() {
+        String mappings = "# compiler: R8\n"
+                + "net.example.Main -> a:\n"
+                + "    net.example.Other other -> a\n"
+                + "    int[] values -> b\n"
+                + "    1:5:void run(net.example.Other,char[]):10:14 -> c\n"
+                + "    java.lang.String toString() -> toString\n";
+        MapRemapper remapper = load(new ProguardMapper(MapperConfig.create(), stream(mappings)));
+
+        assertEquals("a", remapper.map("net/example/Main"));
+        assertEquals("a", remapper.mapFieldName("net/example/Main", "other", "Lnet/example/Other;"));
+        assertEquals("b", remapper.mapFieldName("net/example/Main", "values", "[I"));
+        assertEquals("c", remapper.mapMethodName("net/example/Main", "run", "(Lnet/example/Other;[C)V"));
+        assertNull(remapper.map("net/example/Main.toString()Ljava/lang/String;"));
+        assertInitFails(IllegalStateException.class, () -> load(new ProguardMapper(MapperConfig.create(), stream("    int field -> a\n"))));
+    }
+
+    @Test
+    @DisplayName("Parse srg mappings")
+    public void srg() {
+        String mappings = "CL: a net/example/Main\n"
+                + "FD: a/a net/example/Main/field\n"
+                + "MD: a/b (La;)V net/example/Main/run (Lnet/example/Main;)V\n";
+        MapRemapper remapper = load(new SrgMapper(MapperConfig.create(), stream(mappings)));
+
+        assertEquals("net/example/Main", remapper.map("a"));
+        assertEquals("field", remapper.mapFieldName("a", "a", "I"));
+        assertEquals("run", remapper.mapMethodName("a", "b", "(La;)V"));
+        assertInitFails(IllegalStateException.class, () -> load(new SrgMapper(MapperConfig.create(), stream("CL: a  b\n"))));
+    }
+
+    @Test
+    @DisplayName("Parse large mappings in chunks")
+    public void largeMappings() {
+        StringBuilder tiny = new StringBuilder("tiny\t2\t0\tofficial\tnamed\n");
+        StringBuilder proguard = new StringBuilder();
+        for (int i = 0; i < LARGE_CLASS_COUNT; i++) {
+            tiny.append("c\tc").append(i).append("\tnet/example/Class").append(i).append('\n');
+            tiny.append("\tm\t(Lc").append((i + 1) % LARGE_CLASS_COUNT).append(";)V\tm\tmethod").append(i).append('\n');
+            proguard.append("net.example.Class").append(i).append(" -> c").append(i).append(":\n");
+            proguard.append("    void method(net.example.Class").append((i + 1) % LARGE_CLASS_COUNT).append(") -> m").append(i).append('\n');
+        }
+        MapRemapper tinyRemapper = load(new TinyV2Mapper(MapperConfig.create(), stream(tiny), "official", "named"));
+        MapRemapper proguardRemapper = load(new ProguardMapper(MapperConfig.create(), stream(proguard)));
+
+        assertEquals(LARGE_CLASS_COUNT * 2, tinyRemapper.getMappings().size());
+        assertEquals(LARGE_CLASS_COUNT * 2, proguardRemapper.getMappings().size());
+        for (int i = 0; i < LARGE_CLASS_COUNT; i++) {
+            assertEquals("method" + i, tinyRemapper.mapMethodName("c" + i, "m", "(Lc" + ((i + 1) % LARGE_CLASS_COUNT) + ";)V"));
+            assertEquals("m" + i, proguardRemapper.mapMethodName("net/example/Class" + i, "method", "(Lnet/example/Class" + ((i + 1) % LARGE_CLASS_COUNT) + ";)V"));
+        }
+    }
+
+}
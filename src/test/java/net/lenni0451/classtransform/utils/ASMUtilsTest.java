@@ -0,0 +1,35 @@
+package net.lenni0451.classtransform.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ASMUtilsTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "getName, getName",
+            "getName, get*",
+            "getName, *Name",
+            "getName, g*t*e",
+            "getName, *",
+            "getName, **",
+            "getName, get*Name",
+            "getName, getN*Name",
+            "getName, *e*e*",
+            "getName, *x*",
+            "getName, set*",
+            "getName, getName*",
+            "getName, *getName",
+            "getName, ge*tN*me",
+            "aa, a*a",
+            "a, a*a"
+    })
+    @DisplayName("Match combis like the regex")
+    public void matchesCombi(final String name, final String combi) {
+        assertEquals(name.matches(ASMUtils.combiToRegex(combi)), ASMUtils.matchesCombi(name, combi));
+    }
+
+}
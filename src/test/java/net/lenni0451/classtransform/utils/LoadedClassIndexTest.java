@@ -0,0 +1,110 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.loader.InjectionClassLoader;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadedClassIndexTest {
+
+    @Test
+    @DisplayName("Get recorded classes by name")
+    public void record() {
+        LoadedClassIndex index = new LoadedClassIndex();
+        index.record(String.class);
+        index.record(LoadedClassIndexTest.class);
+        index.record(String[].class);
+        index.record(int.class);
+        assertEquals(2, index.size());
+
+        assertEquals(Collections.singletonList(String.class), index.getClasses(Collections.singleton("java.lang.String")));
+        assertEquals(Arrays.asList(String.class, LoadedClassIndexTest.class), index.getClasses(Arrays.asList("java.lang.String", LoadedClassIndexTest.class.getName(), "missing.Class")));
+    }
+
+    @Test
+    @DisplayName("Look up classes recorded while they were defined")
+    public void pending() {
+        ClassLoader loader = LoadedClassIndexTest.class.getClassLoader();
+        Instrumentation instrumentation = (Instrumentation) Proxy.newProxyInstance(Instrumentation.class.getClassLoader(), new Class[]{Instrumentation.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("getInitiatedClasses")) return null;
+            if (args[0] == null) return new Class[]{Integer.class, Long.class};
+            if (args[0] == loader) return new Class[]{Long.class, LoadedClassIndexTest.class};
+            return new Class[0];
+        });
+        LoadedClassIndex index = new LoadedClassIndex();
+        index.record(null, "java.lang.Integer", null);
+        index.record(loader, LoadedClassIndexTest.class.getName(), null);
+        List<String> names = Arrays.asList("java.lang.Integer", LoadedClassIndexTest.class.getName());
+        assertTrue(index.getClasses(names).isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList(Integer.class, LoadedClassIndexTest.class)), new HashSet<>(index.getClasses(names, instrumentation)));
+        assertEquals(Arrays.asList(Integer.class, LoadedClassIndexTest.class), index.getClasses(names));
+
+        //The class is not defined by the recorded loader and is removed
+        index.record(loader, "java.lang.Long", null);
+        assertTrue(index.getClasses(Collections.singleton("java.lang.Long"), instrumentation).isEmpty());
+        assertEquals(2, index.size());
+
+        //Classes which were never defined are removed without trying to load them
+        AtomicInteger loads = new AtomicInteger();
+        ClassLoader failingLoader = new ClassLoader(null) {
+            @Override
+            protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+                loads.incrementAndGet();
+                return super.loadClass(name, resolve);
+            }
+        };
+        index.record(failingLoader, "index.Failed", null);
+        assertTrue(index.getClasses(Collections.singleton("index.Failed"), instrumentation).isEmpty());
+        assertEquals(0, loads.get());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Keep a class per class loader")
+    public void multipleLoaders() throws Exception {
+        LoadedClassIndex index = new LoadedClassIndex();
+        Class<?> first = this.defineClass("index.Test");
+        Class<?> second = this.defineClass("index.Test");
+        index.record(first);
+        index.record(second);
+        index.record(first);
+
+        List<Class<?>> classes = index.getClasses(Collections.singleton("index.Test"));
+        assertEquals(2, classes.size());
+        assertTrue(classes.contains(first));
+        assertTrue(classes.contains(second));
+    }
+
+    @Test
+    @DisplayName("Remove classes of unloaded class loaders")
+    public void unload() throws Exception {
+        LoadedClassIndex index = new LoadedClassIndex();
+        index.record(this.defineClass("index.Unloaded"));
+        for (int i = 0; i < 50 && index.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, index.size());
+    }
+
+    private Class<?> defineClass(final String name) throws Exception {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        InjectionClassLoader loader = new InjectionClassLoader(transformerManager);
+        ClassNode node = ASMUtils.createEmptyClass(name);
+        loader.addRuntimeResource(node.name + ".class", ASMUtils.toBytes(node, transformerManager));
+        return loader.loadClass(name);
+    }
+
+}
@@ -1,12 +1,17 @@
 package net.lenni0451.classtransform.utils;
 
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MemberDeclarationTest {
@@ -36,4 +41,52 @@ class MemberDeclarationTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "java/lang/String.length()I",
+            "Ljava/lang/String;length()I",
+            "java/lang/System.out:Ljava/io/PrintStream;",
+            "Ljava/lang/System;out:Ljava/io/PrintStream;",
+            "Ljava/lang/String.length()I",
+            "L;a.b()V",
+            "a.b:c:d",
+            "a.b:(I)V",
+            "a.b()",
+            "a.b:",
+            ".b()V",
+            "a.(I)V",
+            "Lb;(I)V",
+            "a.b(I)V\n",
+            "a/b/c",
+            "test"
+    })
+    @DisplayName("Parse the same declarations as the regex patterns")
+    public void parseLikeRegex(final String declaration) {
+        MemberDeclaration expected = null;
+        Matcher method = Pattern.compile(ASMUtils.METHOD_DECLARATION_PATTERN).matcher(declaration);
+        Matcher field = Pattern.compile(ASMUtils.FIELD_DECLARATION_PATTERN).matcher(declaration);
+        if (method.matches()) expected = new MemberDeclaration(method.group(1) == null ? method.group(2) : method.group(1), method.group(3), method.group(4));
+        else if (field.matches()) expected = new MemberDeclaration(field.group(1) == null ? field.group(2) : field.group(1), field.group(3), field.group(4));
+
+        assertEquals(expected, MemberDeclarationParser.parse(declaration));
+        assertSame(MemberDeclarationParser.parse(declaration), MemberDeclarationParser.parse(declaration));
+    }
+
+    @Test
+    @DisplayName("Evict the least recently used declarations")
+    public void cacheEviction() {
+        MemberDeclaration hot = MemberDeclarationParser.parse("cache/Hot.hot()V");
+        MemberDeclaration first = MemberDeclarationParser.parse("cache/Cold.cold0()V");
+        for (int i = 1; i < MemberDeclarationParser.MAX_CACHE_SIZE * 2; i++) {
+            MemberDeclarationParser.parse("cache/Cold.cold" + i + "()V");
+            if (i % 1000 == 0) assertSame(hot, MemberDeclarationParser.parse("cache/Hot.hot()V"));
+        }
+        assertSame(hot, MemberDeclarationParser.parse("cache/Hot.hot()V"));
+        assertNotSame(first, MemberDeclarationParser.parse("cache/Cold.cold0()V"));
+
+        //New declarations are still cached after the cache is full
+        String last = "cache/Cold.cold" + (MemberDeclarationParser.MAX_CACHE_SIZE * 2 - 1) + "()V";
+        assertSame(MemberDeclarationParser.parse(last), MemberDeclarationParser.parse(last));
+    }
+
 }
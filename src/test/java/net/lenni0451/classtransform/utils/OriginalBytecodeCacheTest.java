@@ -0,0 +1,164 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+import static net.lenni0451.classtransform.utils.ASMUtils.slash;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OriginalBytecodeCacheTest {
+
+    @Test
+    @DisplayName("Get cached bytecode")
+    public void get() throws Exception {
+        byte[] bytecode = this.readClass(OriginalBytecodeCacheTest.class);
+        ClassLoader loader = OriginalBytecodeCacheTest.class.getClassLoader();
+        OriginalBytecodeCache cache = new OriginalBytecodeCache(1024 * 1024);
+        cache.put(loader, OriginalBytecodeCacheTest.class.getName(), bytecode);
+
+        assertTrue(cache.contains(loader, OriginalBytecodeCacheTest.class.getName()));
+        assertArrayEquals(bytecode, cache.get(loader, OriginalBytecodeCacheTest.class.getName()));
+        assertTrue(cache.getMemoryUsage() < bytecode.length);
+        assertEquals(1, cache.getHits());
+
+        //Classes of other class loaders are not returned
+        assertNull(cache.get(null, OriginalBytecodeCacheTest.class.getName()));
+        assertNull(cache.get(loader, "missing.Class"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Cache classes with the same name per class loader")
+    public void loaders() {
+        ClassLoader first = new URLClassLoader(new URL[0]);
+        ClassLoader second = new URLClassLoader(new URL[0]);
+        OriginalBytecodeCache cache = new OriginalBytecodeCache(1024 * 1024);
+        cache.put(first, "Test", new byte[]{1});
+        cache.put(second, "Test", new byte[]{2});
+        cache.put(null, "Test", new byte[]{3});
+
+        assertEquals(3, cache.size());
+        assertArrayEquals(new byte[]{1}, cache.get(first, "Test"));
+        assertArrayEquals(new byte[]{2}, cache.get(second, "Test"));
+        assertArrayEquals(new byte[]{3}, cache.get(null, "Test"));
+        assertFalse(cache.contains(new URLClassLoader(new URL[0]), "Test"));
+    }
+
+    @Test
+    @DisplayName("Don't cache the bytecode of redefined classes")
+    public void redefine() throws Exception {
+        String targetName = RedefineTarget.class.getName();
+        ClassLoader loader = RedefineTarget.class.getClassLoader();
+        List<ClassDefinition> redefinitions = new ArrayList<>();
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        OriginalBytecodeCache cache = new OriginalBytecodeCache(4096);
+        transformerManager.setOriginalBytecodeCache(cache);
+        transformerManager.hookInstrumentation((Instrumentation) Proxy.newProxyInstance(Instrumentation.class.getClassLoader(), new Class[]{Instrumentation.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isRedefineClassesSupported":
+                case "isRetransformClassesSupported":
+                    return true;
+                case "getAllLoadedClasses":
+                case "getInitiatedClasses":
+                    return new Class[]{RedefineTarget.class};
+                case "redefineClasses":
+                    for (ClassDefinition definition : (ClassDefinition[]) args[0]) {
+                        //The JVM passes the redefined bytecode to the transformer
+                        redefinitions.add(definition);
+                        transformerManager.transform(loader, slash(targetName), definition.getDefinitionClass(), null, definition.getDefinitionClassFile());
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }), true);
+        transformerManager.addRawTransformer(targetName, (tm, node) -> {
+            node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, "added" + node.fields.size(), "I", null, null));
+            return node;
+        });
+        ClassNode transformer = ASMUtils.createEmptyClass("test/HotswapTransformer");
+        AnnotationNode annotation = new AnnotationNode(Type.getDescriptor(CTransformer.class));
+        annotation.values = Arrays.asList("name", Collections.singletonList(targetName));
+        transformer.visibleAnnotations = new ArrayList<>(Collections.singletonList(annotation));
+        transformerManager.addTransformer(transformer);
+
+        byte[] original = this.readClass(RedefineTarget.class);
+        transformerManager.transform(loader, slash(targetName), null, null, original);
+        assertTrue(cache.contains(loader, targetName));
+
+        //Hotswap the transformer and redefine the target using the cached bytecode
+        transformerManager.transform(loader, "test/HotswapTransformer", null, null, ASMUtils.toBytes(transformer, transformerManager));
+        assertEquals(1, redefinitions.size());
+        assertEquals(1, ASMUtils.fromBytes(redefinitions.get(0).getDefinitionClassFile()).fields.size());
+        assertArrayEquals(original, cache.get(loader, targetName));
+
+        //A retransformation after the entry has been evicted passes the redefined bytecode
+        Random random = new Random(0);
+        for (int i = 0; i < 10 && cache.contains(loader, targetName); i++) {
+            byte[] filler = new byte[2048];
+            random.nextBytes(filler);
+            cache.put(null, "Filler" + i, filler);
+        }
+        assertFalse(cache.contains(loader, targetName));
+        transformerManager.transform(loader, slash(targetName), RedefineTarget.class, null, redefinitions.get(0).getDefinitionClassFile());
+        assertFalse(cache.contains(loader, targetName));
+    }
+
+    @Test
+    @DisplayName("Evict classes to stay within the memory budget")
+    public void evict() {
+        byte[] bytecode = new byte[4096];
+        OriginalBytecodeCache cache = new OriginalBytecodeCache(500);
+        for (int i = 0; i < 20; i++) cache.put(null, "Class" + i, bytecode);
+        assertTrue(cache.getMemoryUsage() <= cache.getMemoryBudget());
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(20 - cache.getEvictions(), cache.size());
+
+        //The least recently used classes are evicted first
+        assertFalse(cache.contains(null, "Class0"));
+        assertArrayEquals(bytecode, cache.get(null, "Class19"));
+    }
+
+    @Test
+    @DisplayName("Skip classes larger than the memory budget")
+    public void oversized() {
+        byte[] bytecode = new byte[4096];
+        for (int i = 0; i < bytecode.length; i++) bytecode[i] = (byte) (i * 31 + i / 7);
+        OriginalBytecodeCache cache = new OriginalBytecodeCache(256);
+        cache.put(null, "Small", new byte[16]);
+        cache.put(null, "Large", bytecode);
+        assertTrue(cache.contains(null, "Small"));
+        assertFalse(cache.contains(null, "Large"));
+    }
+
+    private static class RedefineTarget {
+    }
+
+    private byte[] readClass(final Class<?> clazz) throws Exception {
+        try (InputStream is = clazz.getResourceAsStream(clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = is.read(buffer)) != -1) baos.write(buffer, 0, length);
+            return baos.toByteArray();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    @DisplayName("Intern equal symbols to the same instance")
+    public void intern() {
+        String symbol = new String("net/lenni0451/Interned");
+        assertSame(symbol, SymbolTable.intern(symbol));
+        assertSame(symbol, SymbolTable.intern(new String(symbol)));
+        assertNull(SymbolTable.intern((String) null));
+    }
+
+    @Test
+    @DisplayName("Share symbols between class nodes")
+    public void internClassNode() {
+        ClassNode first = SymbolTable.intern(ASMUtils.fromBytes(this.createClass("a")));
+        ClassNode second = SymbolTable.intern(ASMUtils.fromBytes(this.createClass("b")));
+
+        assertSame(first.superName, second.superName);
+        assertSame(first.methods.get(0).desc, second.methods.get(0).desc);
+        MethodInsnNode firstInsn = (MethodInsnNode) first.methods.get(0).instructions.get(1);
+        MethodInsnNode secondInsn = (MethodInsnNode) second.methods.get(0).instructions.get(1);
+        assertSame(firstInsn.owner, secondInsn.owner);
+        assertSame(firstInsn.desc, secondInsn.desc);
+    }
+
+    @Test
+    @DisplayName("Share symbols between remappers")
+    public void internMappings() {
+        MapRemapper first = new MapRemapper();
+        first.addClassMapping(new String("net/Interned"), new String("a"));
+        MapRemapper second = new MapRemapper();
+        second.addClassMapping(new String("net/Other"), new String("a"));
+
+        assertSame(first.getClassMapping("net/Interned"), second.getClassMapping("net/Other"));
+        assertSame(first.reverse().getClassMapping("a"), SymbolTable.intern(new String("net/Interned")));
+    }
+
+    private byte[] createClass(final String name) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+}
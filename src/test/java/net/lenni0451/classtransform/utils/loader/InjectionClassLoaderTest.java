@@ -0,0 +1,200 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.transformer.IBytecodeTransformer;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InjectionClassLoaderTest {
+
+    private static final int CLASS_COUNT = 64;
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    @DisplayName("Transform classes in parallel")
+    public void parallelTransform() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        AtomicInteger waiting = new AtomicInteger();
+        AtomicBoolean parallel = new AtomicBoolean();
+        InjectionClassLoader loader = this.createLoader((className, bytecode, calculateStackMapFrames) -> {
+            //The first two classes only pass the barrier if they are transformed at the same time
+            if (waiting.getAndIncrement() < 2) {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    parallel.set(true);
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException ignored) {
+                }
+            }
+            return null;
+        });
+
+        List<Class<?>> classes = this.loadAll(loader);
+        assertTrue(parallel.get());
+        assertEquals(CLASS_COUNT, classes.size());
+        for (Class<?> clazz : classes) assertSame(loader, clazz.getClassLoader());
+    }
+
+    @Test
+    @DisplayName("Load the same class from multiple threads")
+    public void sameClass() throws Exception {
+        AtomicInteger transformations = new AtomicInteger();
+        InjectionClassLoader loader = this.createLoader((className, bytecode, calculateStackMapFrames) -> {
+            transformations.incrementAndGet();
+            return null;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Class<?>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) futures.add(executor.submit(() -> loader.loadClass("stress.Class0")));
+            Class<?> first = futures.get(0).get();
+            for (Future<Class<?>> future : futures) assertSame(first, future.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, transformations.get());
+    }
+
+    @Test
+    @DisplayName("Load classes from indexed jar files")
+    public void jarFile() throws Exception {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE, "Test");
+        Attributes sealed = new Attributes();
+        sealed.put(Attributes.Name.SEALED, "true");
+        manifest.getEntries().put("sealed/", sealed);
+        File jar = this.createJar(manifest, "sealed.Class0", "other.Class1");
+
+        try (InjectionClassLoader loader = new InjectionClassLoader(new TransformerManager(new BasicClassProvider()), jar.toURI().toURL())) {
+            Class<?> sealedClass = loader.loadClass("sealed.Class0");
+            assertSame(loader, sealedClass.getClassLoader());
+            assertEquals(jar.toURI().toURL(), sealedClass.getProtectionDomain().getCodeSource().getLocation());
+            assertTrue(sealedClass.getPackage().isSealed());
+            assertEquals("Test", sealedClass.getPackage().getImplementationTitle());
+            assertFalse(loader.loadClass("other.Class1").getPackage().isSealed());
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("sealed.Missing"));
+        }
+    }
+
+    @Test
+    @DisplayName("Respect the order of indexed and not indexed urls")
+    public void urlOrder() throws Exception {
+        File directory = Files.createTempDirectory("classes").toFile();
+        directory.deleteOnExit();
+        ClassNode node = ASMUtils.createEmptyClass("order.Class0");
+        node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "directory", "Z", null, null));
+        File classFile = new File(directory, "order/Class0.class");
+        classFile.getParentFile().mkdirs();
+        Files.write(classFile.toPath(), ASMUtils.toBytes(node, new TransformerManager(new BasicClassProvider())));
+        classFile.deleteOnExit();
+        classFile.getParentFile().deleteOnExit();
+
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        try (InjectionClassLoader loader = new InjectionClassLoader(transformerManager, this.createJar(null, "first.Class0").toURI().toURL(), directory.toURI().toURL())) {
+            loader.addURL(this.createJar(null, "order.Class0", "order.Class1").toURI().toURL());
+            assertNotNull(loader.loadClass("first.Class0"));
+            assertNotNull(loader.loadClass("order.Class0").getField("directory"));
+            assertNotNull(loader.loadClass("order.Class1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Load classes from jars referenced by a manifest")
+    public void manifestClassPath() throws Exception {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        File referenced = File.createTempFile("classes", ".jar");
+        referenced.deleteOnExit();
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(referenced))) {
+            ClassNode node = ASMUtils.createEmptyClass("path.Shadowed");
+            node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "referenced", "Z", null, null));
+            jos.putNextEntry(new JarEntry(node.name + ".class"));
+            jos.write(ASMUtils.toBytes(node, transformerManager));
+            jos.closeEntry();
+            node = ASMUtils.createEmptyClass("path.Referenced");
+            jos.putNextEntry(new JarEntry(node.name + ".class"));
+            jos.write(ASMUtils.toBytes(node, transformerManager));
+            jos.closeEntry();
+        }
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, referenced.getName());
+        File jar = File.createTempFile("classes", ".jar", referenced.getParentFile());
+        jar.deleteOnExit();
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+            jos.putNextEntry(new JarEntry("path/"));
+            jos.closeEntry();
+        }
+
+        try (InjectionClassLoader loader = new InjectionClassLoader(transformerManager, jar.toURI().toURL(), this.createJar(null, "path.Shadowed").toURI().toURL())) {
+            assertSame(loader, loader.loadClass("path.Referenced").getClassLoader());
+            //The referenced jar is searched before the urls after the jar declaring it
+            assertNotNull(loader.loadClass("path.Shadowed").getField("referenced"));
+        }
+    }
+
+    private InjectionClassLoader createLoader(final IBytecodeTransformer transformer) {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        transformerManager.addBytecodeTransformer(transformer);
+        InjectionClassLoader loader = new InjectionClassLoader(transformerManager);
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            ClassNode node = ASMUtils.createEmptyClass("stress.Class" + i);
+            loader.addRuntimeResource(node.name + ".class", ASMUtils.toBytes(node, transformerManager));
+        }
+        return loader;
+    }
+
+    private File createJar(@Nullable final Manifest manifest, final String... classNames) throws IOException {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        File file = File.createTempFile("classes", ".jar");
+        file.deleteOnExit();
+        try (JarOutputStream jos = manifest == null ? new JarOutputStream(new FileOutputStream(file)) : new JarOutputStream(new FileOutputStream(file), manifest)) {
+            for (String className : classNames) {
+                ClassNode node = ASMUtils.createEmptyClass(className);
+                jos.putNextEntry(new JarEntry(node.name + ".class"));
+                jos.write(ASMUtils.toBytes(node, transformerManager));
+                jos.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private List<Class<?>> loadAll(final InjectionClassLoader loader) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Class<?>>> futures = new ArrayList<>();
+            for (int i = 0; i < CLASS_COUNT; i++) {
+                String name = "stress.Class" + i;
+                futures.add(executor.submit(() -> loader.loadClass(name)));
+            }
+            List<Class<?>> classes = new ArrayList<>();
+            for (Future<Class<?>> future : futures) classes.add(future.get());
+            return classes;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreTransformerTest {
+
+    private static final int CLASS_COUNT = 32;
+
+    @Test
+    @DisplayName("Record the load order to a file")
+    public void profile() throws Exception {
+        LoadOrderProfile profile = this.recordProfile();
+        assertEquals(CLASS_COUNT, profile.size());
+        for (int i = 0; i < CLASS_COUNT; i++) assertEquals("pre.Class" + (CLASS_COUNT - 1 - i), profile.getClasses().get(i));
+    }
+
+    @Test
+    @DisplayName("Use pre-transformed classes")
+    public void preTransform() throws Exception {
+        LoadOrderProfile profile = this.recordProfile();
+        Map<String, AtomicInteger> transformations = new ConcurrentHashMap<>();
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        transformerManager.addBytecodeTransformer((className, bytecode, calculateStackMapFrames) -> {
+            transformations.computeIfAbsent(className, n -> new AtomicInteger()).incrementAndGet();
+            return null;
+        });
+
+        try (InjectionClassLoader loader = this.createLoader(transformerManager)) {
+            PreTransformer preTransformer = loader.preTransform(profile, 4);
+            assertTrue(preTransformer.awaitCompletion(10, TimeUnit.SECONDS));
+            for (int i = 0; i < CLASS_COUNT; i++) assertSame(loader, loader.loadClass("pre.Class" + i).getClassLoader());
+
+            assertEquals(CLASS_COUNT, preTransformer.getHits());
+            assertEquals(0, preTransformer.getMisses());
+            assertEquals(0, preTransformer.getDiscarded());
+            assertEquals(1, preTransformer.getHitRate());
+            assertEquals(CLASS_COUNT, transformations.size());
+            for (AtomicInteger count : transformations.values()) assertEquals(1, count.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Discard classes transformed by outdated transformers")
+    public void outdated() throws Exception {
+        LoadOrderProfile profile = this.recordProfile();
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        try (InjectionClassLoader loader = this.createLoader(transformerManager)) {
+            PreTransformer preTransformer = loader.preTransform(profile, 4);
+            assertTrue(preTransformer.awaitCompletion(10, TimeUnit.SECONDS));
+            transformerManager.addBytecodeTransformer((className, bytecode, calculateStackMapFrames) -> {
+                ClassNode node = ASMUtils.fromBytes(bytecode);
+                node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "transformed", "Z", null, null));
+                return ASMUtils.toBytes(node, transformerManager);
+            });
+
+            assertNotNull(loader.loadClass("pre.Class0").getField("transformed"));
+            assertEquals(0, preTransformer.getHits());
+            assertEquals(1, preTransformer.getDiscarded());
+        }
+    }
+
+    private LoadOrderProfile recordProfile() throws Exception {
+        LoadOrderProfile profile = new LoadOrderProfile();
+        try (InjectionClassLoader loader = this.createLoader(new TransformerManager(new BasicClassProvider()))) {
+            loader.recordLoadOrder(profile);
+            for (int i = CLASS_COUNT - 1; i >= 0; i--) loader.loadClass("pre.Class" + i);
+            loader.loadClass("pre.Class0");
+            assertThrows(ClassNotFoundException.class, () -> loader.loadClass("pre.Missing"));
+        }
+
+        File file = File.createTempFile("profile", ".txt");
+        file.deleteOnExit();
+        profile.write(file);
+        return LoadOrderProfile.read(file);
+    }
+
+    private InjectionClassLoader createLoader(final TransformerManager transformerManager) {
+        InjectionClassLoader loader = new InjectionClassLoader(transformerManager);
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            ClassNode node = ASMUtils.createEmptyClass("pre.Class" + i);
+            loader.addRuntimeResource(node.name + ".class", ASMUtils.toBytes(node, transformerManager));
+        }
+        return loader;
+    }
+
+}
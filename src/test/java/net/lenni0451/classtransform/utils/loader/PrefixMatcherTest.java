@@ -0,0 +1,56 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixMatcherTest {
+
+    @Test
+    @DisplayName("Match the same strings as startsWith")
+    public void matches() {
+        Random random = new Random(0);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) prefixes.add(this.randomName(random));
+        prefixes.add("");
+        PrefixMatcher matcher = new PrefixMatcher(prefixes.subList(0, 200));
+        PrefixMatcher matchAll = new PrefixMatcher(prefixes);
+
+        for (int i = 0; i < 10_000; i++) {
+            String name = this.randomName(random) + this.randomName(random);
+            boolean expected = false;
+            for (String prefix : prefixes.subList(0, 200)) expected |= name.startsWith(prefix);
+            assertEquals(expected, matcher.matches(name), name);
+            assertTrue(matchAll.matches(name));
+        }
+        assertFalse(new PrefixMatcher(Collections.emptyList()).matches("a.b"));
+    }
+
+    @Test
+    @DisplayName("Protect packages and exceptions added at runtime")
+    public void protectedPackages() {
+        InjectionClassLoader loader = new InjectionClassLoader(new TransformerManager(new BasicClassProvider()));
+        assertTrue(loader.isProtected("java.lang.String"));
+        assertTrue(loader.isProtected("com.sun.Test"));
+        assertFalse(loader.isProtected("com.sun.jna.Native"));
+        assertFalse(loader.isProtected("javafx.Test"));
+
+        loader.addProtectedPackage("com.example.");
+        loader.addProtectionException("com.example.api.");
+        assertTrue(loader.isProtected("com.example.Test"));
+        assertFalse(loader.isProtected("com.example.api.Test"));
+        assertFalse(loader.isProtected("com.examples.Test"));
+    }
+
+    private String randomName(final Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = random.nextInt(3) + 1; i > 0; i--) name.append((char) ('a' + random.nextInt(3))).append('.');
+        return name.toString();
+    }
+
+}
@@ -0,0 +1,106 @@
+package net.lenni0451.classtransform.utils.loader;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeResourceStoreTest {
+
+    @Test
+    @DisplayName("Store resources in shared and dedicated buffers")
+    public void store() throws IOException {
+        Random random = new Random(0);
+        RuntimeResourceStore store = new RuntimeResourceStore();
+        byte[][] data = new byte[2000][];
+        long size = 0;
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new byte[random.nextInt(i % 100 == 0 ? 500_000 : 2000)];
+            random.nextBytes(data[i]);
+            store.put("resource" + i, data[i]);
+            size += data[i].length;
+        }
+        assertEquals(size, store.getDataSize());
+        assertTrue(store.getAllocatedSize() >= size);
+
+        for (int i = 0; i < data.length; i++) {
+            RuntimeResourceStore.Resource resource = store.get("resource" + i);
+            assertNotNull(resource);
+            ByteBuffer buffer = resource.getData();
+            assertTrue(buffer.isDirect());
+            byte[] stored = new byte[buffer.remaining()];
+            buffer.get(stored);
+            assertArrayEquals(data[i], stored);
+            assertSame(resource.getUrl(), resource.getUrl());
+            try (InputStream is = resource.getUrl().openStream()) {
+                assertArrayEquals(data[i], ClassResource.read(is, -1));
+            }
+        }
+        store.put("resource0", new byte[]{1, 2, 3});
+        assertEquals(3, store.get("resource0").getData().remaining());
+        assertNull(store.get("missing"));
+    }
+
+    @Test
+    @DisplayName("Count the allocated chunks and the stored data")
+    public void size() {
+        RuntimeResourceStore store = new RuntimeResourceStore();
+        store.put("small", new byte[10]);
+        assertEquals(10, store.getDataSize());
+        assertEquals(RuntimeResourceStore.CHUNK_SIZE, store.getAllocatedSize());
+
+        store.put("large", new byte[RuntimeResourceStore.MAX_SHARED_SIZE + 1]);
+        assertEquals(10 + RuntimeResourceStore.MAX_SHARED_SIZE + 1, store.getDataSize());
+        assertEquals(RuntimeResourceStore.CHUNK_SIZE + RuntimeResourceStore.MAX_SHARED_SIZE + 1, store.getAllocatedSize());
+
+        //Replaced resources keep their space
+        store.put("small", new byte[10]);
+        assertEquals(20 + RuntimeResourceStore.MAX_SHARED_SIZE + 1, store.getDataSize());
+        assertEquals(RuntimeResourceStore.CHUNK_SIZE + RuntimeResourceStore.MAX_SHARED_SIZE + 1, store.getAllocatedSize());
+    }
+
+    @Test
+    @DisplayName("Load runtime resources and classes")
+    public void loader() throws Exception {
+        TransformerManager transformerManager = new TransformerManager(new BasicClassProvider());
+        transformerManager.addRawTransformer("runtime.Transformed", (manager, node) -> {
+            node.fields.add(new FieldNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "transformed", "Z", null, null));
+            return node;
+        });
+        try (InjectionClassLoader loader = new InjectionClassLoader(transformerManager)) {
+            for (String name : new String[]{"runtime.Plain", "runtime.Transformed"}) {
+                ClassNode node = ASMUtils.createEmptyClass(name);
+                loader.addRuntimeResource(node.name + ".class", ASMUtils.toBytes(node, transformerManager));
+            }
+            loader.addRuntimeResource("runtime/data.txt", new byte[]{'t', 'e', 's', 't'});
+
+            Class<?> plain = loader.loadClass("runtime.Plain");
+            assertSame(loader, plain.getClassLoader());
+            assertEquals(0, plain.getFields().length);
+            assertNotNull(loader.loadClass("runtime.Transformed").getField("transformed"));
+
+            URL url = loader.getResource("runtime/data.txt");
+            assertNotNull(url);
+            assertSame(url, loader.getResource("runtime/data.txt"));
+            assertSame(url, loader.findResource("runtime/data.txt"));
+            try (InputStream is = loader.getResourceAsStream("runtime/data.txt")) {
+                assertArrayEquals(new byte[]{'t', 'e', 's', 't'}, ClassResource.read(is, -1));
+            }
+            assertEquals(RuntimeResourceStore.CHUNK_SIZE, loader.getRuntimeResourcesSize());
+            assertTrue(loader.getRuntimeResourcesDataSize() > 4);
+        }
+    }
+
+}
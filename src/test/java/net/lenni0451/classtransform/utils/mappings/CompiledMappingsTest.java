@@ -0,0 +1,94 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledMappingsTest {
+
+    private static CompiledMapRemapper compile() throws IOException {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("a", "net/example/Main");
+        remapper.addClassMapping("b", "net/example/Other");
+        remapper.addMethodMapping("a", "a", "(Lb;)V", "run");
+        remapper.addFieldMapping("a", "b", "Lb;", "other");
+
+        File file = File.createTempFile("mappings", ".ctm");
+        file.deleteOnExit();
+        MappingsCompiler.write(Collections.singletonMap(MappingsCompiler.DEFAULT_TABLE, remapper), file);
+        return new CompiledMapRemapper(CompiledMappings.open(file).getTable(MappingsCompiler.DEFAULT_TABLE));
+    }
+
+    @Test
+    @DisplayName("Lookup compiled mappings")
+    public void lookup() throws IOException {
+        CompiledMapRemapper remapper = compile();
+
+        assertEquals("net/example/Main", remapper.map("a"));
+        assertEquals("run", remapper.mapMethodName("a", "a", "(Lb;)V"));
+        assertEquals("other", remapper.mapFieldName("a", "b", "Lb;"));
+        assertEquals("c", remapper.mapMethodName("a", "c", "()V"));
+        assertNull(remapper.map("c"));
+        assertEquals(2, remapper.getStartingMappings("a.").size());
+        assertEquals(Collections.singletonMap("(Lb;)V", "run"), remapper.getMethodMappings("a", "a"));
+        assertEquals(Collections.singletonMap("Lb;", "other"), remapper.getFieldMappings("a", "b"));
+    }
+
+    @Test
+    @DisplayName("Reverse compiled mappings")
+    public void reverse() throws IOException {
+        CompiledMapRemapper remapper = compile();
+        remapper.addClassMapping("c", "net/example/Third");
+        MapRemapper reverse = remapper.reverse();
+
+        assertEquals("a", reverse.map("net/example/Main"));
+        assertEquals("c", reverse.map("net/example/Third"));
+        assertEquals("a", reverse.mapMethodName("net/example/Main", "run", "(Lnet/example/Other;)V"));
+        assertEquals("b", reverse.mapFieldName("net/example/Main", "other", "Lnet/example/Other;"));
+    }
+
+    @Test
+    @DisplayName("Mirror added mappings into the reversed compiled mappings")
+    public void mirror() throws IOException {
+        CompiledMapRemapper remapper = compile();
+        MapRemapper reverse = remapper.reverse();
+        remapper.addMethodMapping("a", "b", "()Lb;", "get");
+        reverse.addFieldMapping("net/example/Other", "value", "I", "c");
+
+        //Member mappings are mirrored without rebuilding the reverse
+        assertSame(reverse, remapper.reverse());
+        assertSame(remapper, reverse.reverse());
+        assertEquals("b", reverse.mapMethodName("net/example/Main", "get", "()Lnet/example/Other;"));
+        assertEquals("value", remapper.mapFieldName("b", "c", "I"));
+
+        //Overriding a compiled mapping rebuilds the reverse
+        remapper.addMethodMapping("a", "a", "(Lb;)V", "start");
+        MapRemapper rebuilt = remapper.reverse();
+        assertNotSame(reverse, rebuilt);
+        assertEquals("a", rebuilt.mapMethodName("net/example/Main", "start", "(Lnet/example/Other;)V"));
+    }
+
+    @Test
+    @DisplayName("View compiled and added mappings")
+    public void mappings() throws IOException {
+        CompiledMapRemapper remapper = compile();
+        remapper.addClassMapping("a", "net/example/Renamed");
+        remapper.addClassMapping("c", "net/example/Third");
+
+        Map<String, String> mappings = new HashMap<>();
+        for (Map.Entry<String, String> entry : remapper.getMappings().entrySet()) assertNull(mappings.put(entry.getKey(), entry.getValue()));
+        assertEquals(5, mappings.size());
+        assertEquals(5, remapper.getMappings().size());
+        assertEquals("net/example/Renamed", mappings.get("a"));
+        assertEquals("net/example/Third", remapper.getMappings().get("c"));
+        assertEquals("run", mappings.get("a.a(Lb;)V"));
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRemapperTest {
+
+    private static MapRemapper create() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("a", "net/example/Main");
+        remapper.addMethodMapping("a", "a", "(La;)V", "run");
+        remapper.addFieldMapping("a", "b", "I", "count");
+        remapper.addFieldMapping("a", "c", "untyped");
+        return remapper;
+    }
+
+    @Test
+    @DisplayName("Lookup structured mappings")
+    public void lookup() {
+        MapRemapper remapper = create();
+
+        assertEquals("net/example/Main", remapper.map("a"));
+        assertEquals("run", remapper.mapMethodName("a", "a", "(La;)V"));
+        assertEquals("a", remapper.mapMethodName("a", "a", "()V"));
+        assertEquals("count", remapper.mapFieldName("a", "b", "I"));
+        assertEquals("untyped", remapper.mapFieldName("a", "c", "J"));
+        assertEquals("run", remapper.map("a.a(La;)V"));
+        assertEquals("count", remapper.map("a.b:I"));
+        assertEquals("untyped", remapper.map("a.c:"));
+        assertNull(remapper.map("a.c:J"));
+    }
+
+    @Test
+    @DisplayName("Mappings view uses flat keys")
+    public void mappingsView() {
+        MapRemapper remapper = create();
+        Map<String, String> expected = new HashMap<>();
+        expected.put("a", "net/example/Main");
+        expected.put("a.a(La;)V", "run");
+        expected.put("a.b:I", "count");
+        expected.put("a.c:", "untyped");
+
+        assertEquals(expected, new HashMap<>(remapper.getMappings()));
+        assertEquals(4, remapper.getMappings().size());
+        assertEquals(expected, new HashMap<>(new MapRemapper(expected).getMappings()));
+        assertThrows(UnsupportedOperationException.class, () -> remapper.getMappings().put("b", "c"));
+    }
+
+    @Test
+    @DisplayName("Query members of an owner")
+    public void ownerQueries() {
+        MapRemapper remapper = create();
+        remapper.addMethodMapping("a", "a", "()V", "init");
+        remapper.addMethodMapping("b", "a", "()V", "other");
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("(La;)V", "run");
+        expected.put("()V", "init");
+        assertEquals(expected, remapper.getMethodMappings("a", "a"));
+        assertEquals(Collections.singletonMap("", "untyped"), remapper.getFieldMappings("a", "c"));
+        assertTrue(remapper.getMethodMappings("c", "a").isEmpty());
+        assertEquals(2, remapper.getStartingMappings("a.a(").size());
+        assertEquals(4, remapper.getStartingMappings("a.").size());
+        assertEquals(5, remapper.getStartingMappings("a").size());
+    }
+
+    @Test
+    @DisplayName("Copy and reverse mappings")
+    public void copyAndReverse() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.copy(create());
+        for (int i = 0; i < 100; i++) remapper.addMethodMapping("a", "m" + i, "()V", "method" + i);
+        MapRemapper reverse = remapper.reverse();
+
+        assertEquals(104, remapper.getMappings().size());
+        assertEquals("a", reverse.map("net/example/Main"));
+        assertEquals("a", reverse.mapMethodName("net/example/Main", "run", "(Lnet/example/Main;)V"));
+        assertEquals("b", reverse.mapFieldName("net/example/Main", "count", "I"));
+        assertEquals("m42", reverse.mapMethodName("net/example/Main", "method42", "()V"));
+        assertSame(remapper, reverse.reverse());
+    }
+
+    @Test
+    @DisplayName("Keep reverse mappings up to date")
+    public void incrementalReverse() {
+        MapRemapper remapper = create();
+        MapRemapper reverse = remapper.reverse();
+        remapper.addMethodMapping("a", "d", "(La;)La;", "copy");
+        remapper.addMethodMapping("a", "a", "(La;)V", "execute");
+        remapper.addClassMapping("b", "net/example/Other");
+        reverse.addFieldMapping("net/example/Main", "flag", "Z", "e");
+
+        assertSame(reverse, remapper.reverse());
+        assertEquals("d", reverse.mapMethodName("net/example/Main", "copy", "(Lnet/example/Main;)Lnet/example/Main;"));
+        assertEquals("a", reverse.mapMethodName("net/example/Main", "execute", "(Lnet/example/Main;)V"));
+        assertEquals("run", reverse.mapMethodName("net/example/Main", "run", "(Lnet/example/Main;)V"));
+        assertEquals("b", reverse.map("net/example/Other"));
+        assertEquals("flag", remapper.mapFieldName("a", "e", "Z"));
+
+        for (int i = 0; i < 200; i++) remapper.addFieldMapping("a", "f" + i, "I", "old" + i);
+        for (int i = 0; i < 200; i++) remapper.addFieldMapping("a", "f" + i, "I", "new" + i);
+        assertSame(reverse, remapper.reverse());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("f" + i, reverse.mapFieldName("net/example/Main", "new" + i, "I"));
+            assertEquals("old" + i, reverse.mapFieldName("net/example/Main", "old" + i, "I"));
+        }
+        assertEquals(remapper.getMappings().size(), reverse.getMappings().size());
+
+        remapper.addClassMapping("a", "net/example/Renamed");
+        MapRemapper rebuilt = remapper.reverse();
+        assertNotSame(reverse, rebuilt);
+        assertEquals("a", rebuilt.map("net/example/Renamed"));
+        assertEquals("d", rebuilt.mapMethodName("net/example/Renamed", "copy", "(Lnet/example/Renamed;)Lnet/example/Renamed;"));
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuperMappingClosureTest {
+
+    @Test
+    @DisplayName("Fill super mappings of all mapped classes")
+    public void compute() {
+        MapRemapper remapper = this.remapper();
+        TestClassProvider classProvider = new TestClassProvider();
+
+        SuperMappingClosure closure = SuperMappingClosure.compute(remapper, classProvider);
+        closure.apply(remapper);
+
+        assertEquals(2, closure.size());
+        assertTrue(closure.contains("a"));
+        assertFalse(closure.contains("c"));
+        assertEquals("m", remapper.getMethodMapping("net/A", "run", "()V"));
+        assertEquals("f", remapper.getFieldMapping("net/A", "value", "Lnet/B;"));
+    }
+
+    @Test
+    @DisplayName("Reuse cache only if nothing changed")
+    public void cache() throws IOException {
+        File file = File.createTempFile("supermappings", ".bin");
+        file.deleteOnExit();
+        TestClassProvider classProvider = new TestClassProvider();
+        SuperMappingClosure.compute(this.remapper(), classProvider).write(file);
+
+        SuperMappingClosure cached = SuperMappingClosure.read(file, this.remapper(), classProvider);
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+
+        MapRemapper changedMappings = this.remapper();
+        changedMappings.addClassMapping("net/D", "d");
+        assertNull(SuperMappingClosure.read(file, changedMappings, classProvider));
+
+        classProvider.classes.put("b", this.createClass("b", "java/lang/Object", "x"));
+        assertNull(SuperMappingClosure.read(file, this.remapper(), classProvider));
+        assertEquals(1, SuperMappingClosure.load(file, this.remapper(), classProvider).size());
+        assertNotNull(SuperMappingClosure.read(file, this.remapper(), classProvider));
+    }
+
+    private MapRemapper remapper() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("net/A", "a");
+        remapper.addClassMapping("net/B", "b");
+        remapper.addMethodMapping("net/B", "run", "()V", "m");
+        remapper.addFieldMapping("net/B", "value", "Lnet/B;", "f");
+        return remapper;
+    }
+
+    private byte[] createClass(final String name, final String superName, final String method) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        writer.visitField(Opcodes.ACC_PUBLIC, "f", "Lb;", null, null).visitEnd();
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, method, "()V", null, null).visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+
+    private class TestClassProvider implements IClassProvider {
+        private final Map<String, byte[]> classes = new HashMap<>();
+
+        private TestClassProvider() {
+            this.classes.put("a", createClass("a", "c", "other"));
+            this.classes.put("b", createClass("b", "java/lang/Object", "m"));
+            this.classes.put("c", createClass("c", "b", "other"));
+        }
+
+        @Override
+        public byte[] getClass(final String name) throws ClassNotFoundException {
+            byte[] bytecode = this.classes.get(name);
+            if (bytecode == null) throw new ClassNotFoundException(name);
+            return bytecode;
+        }
+
+        @Override
+        public Map<String, Supplier<byte[]>> getAllClasses() {
+            Map<String, Supplier<byte[]>> classes = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : this.classes.entrySet()) classes.put(entry.getKey(), entry::getValue);
+            return classes;
+        }
+    }
+
+}
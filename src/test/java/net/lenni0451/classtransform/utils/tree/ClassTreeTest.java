@@ -1,12 +1,12 @@
 package net.lenni0451.classtransform.utils.tree;
 
+import net.lenni0451.classtransform.TransformerManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.Set;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ClassTreeTest {
 
@@ -24,4 +24,19 @@ class ClassTreeTest {
         assertTrue(superClasses.contains("java.lang.reflect.Member"));
     }
 
+    @Test
+    @DisplayName("Share untransformed class nodes with the untransformed view")
+    public void untransformedView() throws ClassNotFoundException {
+        IClassProvider classProvider = new BasicClassProvider();
+        ClassTree tree = new TransformerManager(classProvider).getClassTree();
+        ClassTree view = tree.getUntransformedView();
+
+        ClassTree.TreePart part = tree.getTreePart(classProvider, ClassTreeTest.class.getName());
+        ClassTree.TreePart viewPart = view.getTreePart(classProvider, ClassTreeTest.class.getName());
+        assertNotSame(part, viewPart);
+        assertSame(part.getNode(), viewPart.getNode());
+        assertSame(view, tree.getUntransformedView());
+        assertSame(view, view.getUntransformedView());
+    }
+
 }
@@ -0,0 +1,40 @@
+package net.lenni0451.classtransform.utils.tree;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedClassTreeTest {
+
+    @Test
+    @DisplayName("Share tree parts between class trees")
+    public void shareTreeParts() throws ClassNotFoundException {
+        SharedClassTree sharedTree = new SharedClassTree();
+        IClassProvider classProvider = new BasicClassProvider();
+        ClassTree tree1 = new ClassTree(null, sharedTree);
+        ClassTree tree2 = new ClassTree(null, sharedTree);
+
+        ClassTree.TreePart part1 = tree1.getTreePart(classProvider, "java.lang.reflect.Method");
+        ClassTree.TreePart part2 = tree2.getTreePart(classProvider, "java.lang.reflect.Method");
+        assertSame(part1, part2);
+        assertEquals(6, part1.getSuperClasses().size());
+        assertTrue(part1.getSuperClasses().contains("java.lang.reflect.AccessibleObject"));
+    }
+
+    @Test
+    @DisplayName("Keep non shared classes in the overlay")
+    public void keepOverlayParts() throws ClassNotFoundException {
+        SharedClassTree sharedTree = new SharedClassTree();
+        IClassProvider classProvider = new BasicClassProvider();
+        ClassTree tree1 = new ClassTree(null, sharedTree);
+        ClassTree tree2 = new ClassTree(null, sharedTree);
+
+        ClassTree.TreePart part1 = tree1.getTreePart(classProvider, SharedClassTreeTest.class.getName());
+        ClassTree.TreePart part2 = tree2.getTreePart(classProvider, SharedClassTreeTest.class.getName());
+        assertNotSame(part1, part2);
+        assertFalse(sharedTree.isShared(SharedClassTreeTest.class.getName()));
+        assertSame(part1.parseSuperClass(classProvider), part2.parseSuperClass(classProvider));
+    }
+
+}